@@ -0,0 +1,77 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.DotaChallengeApplication;
+import gg.bayes.challenge.service.MatchService;
+import org.apache.commons.io.IOUtils;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Starts the application without the startup ingest unless asked for, and without a web server unless the benchmark
+ * goes through HTTP.
+ */
+final class BenchmarkContext {
+
+    static final String[] SAMPLE_LOGS = {"/data/combatlog_1.log.txt", "/data/combatlog_2.log.txt"};
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... args) {
+        return run(false, Stream.concat(Stream.of("--spring.main.web-application-type=none"), Stream.of(args))
+                .toArray(String[]::new));
+    }
+
+    /**
+     * Starts the application without a web server, ingesting the combat logs of a directory at startup.
+     */
+    static ConfigurableApplicationContext startWithBootstrap(String directory, String... args) {
+        return run(true, Stream.concat(Stream.of("--spring.main.web-application-type=none",
+                "--dota.bootstrap.directory=" + directory), Stream.of(args)).toArray(String[]::new));
+    }
+
+    /**
+     * Starts the application with its web server on a random port, for benchmarks that go through HTTP.
+     *
+     * @return the context, whose {@code local.server.port} property holds the port
+     */
+    static ConfigurableApplicationContext startServer(String... args) {
+        return run(false, Stream.concat(Stream.of("--server.port=0"), Stream.of(args)).toArray(String[]::new));
+    }
+
+    private static ConfigurableApplicationContext run(boolean bootstrap, String... args) {
+        String[] defaults = {
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--logging.level.gg.bayes=WARN",
+                "--dota.bootstrap.enabled=" + bootstrap,
+                "--spring.jpa.properties.hibernate.generate_statistics=false"
+        };
+        return SpringApplication.run(DotaChallengeApplication.class,
+                Stream.concat(Stream.of(defaults), Stream.of(args)).toArray(String[]::new));
+    }
+
+    static String readSampleLog(String file) throws IOException {
+        return IOUtils.resourceToString(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Ingests the sample logs alternately until the given number of matches is stored.
+     *
+     * @return the ids of the ingested matches
+     */
+    static List<Long> ingestSampleLogs(MatchService matchService, int matches) throws IOException {
+        String[] logs = {readSampleLog(SAMPLE_LOGS[0]), readSampleLog(SAMPLE_LOGS[1])};
+        List<Long> matchIds = new ArrayList<>(matches);
+        for (int i = 0; i < matches; i++) {
+            matchIds.add(matchService.ingestCombatLog(logs[i % logs.length]));
+        }
+        return matchIds;
+    }
+}
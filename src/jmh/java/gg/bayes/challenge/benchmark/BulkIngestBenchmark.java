@@ -0,0 +1,99 @@
+package gg.bayes.challenge.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingest throughput over HTTP, in matches per second: {@code matches} sample logs sent as that many
+ * {@code POST /api/match} requests, against the same logs sent in one multipart {@code POST /api/match/bulk}. Each
+ * bulk log gets a unique first line, so its content hash is new and it is not skipped as already ingested.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class BulkIngestBenchmark {
+
+    private static final int MATCHES = 32;
+    private static final String BOUNDARY = "bulk-ingest-benchmark";
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI single;
+    private URI bulk;
+    private String[] logs;
+    private byte[] bulkBody;
+    private long run;
+
+    @Setup
+    public void setup() throws Exception {
+        context = BenchmarkContext.startServer();
+        String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        single = URI.create(base + "/api/match");
+        bulk = URI.create(base + "/api/match/bulk");
+        client = HttpClient.newHttpClient();
+        logs = new String[]{BenchmarkContext.readSampleLog(BenchmarkContext.SAMPLE_LOGS[0]),
+                BenchmarkContext.readSampleLog(BenchmarkContext.SAMPLE_LOGS[1])};
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareBulkBody() {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (int i = 0; i < MATCHES; i++) {
+            String part = "--" + BOUNDARY + "\r\n"
+                    + "Content-Disposition: form-data; name=\"files\"; filename=\"match-" + i + ".log\"\r\n"
+                    + "Content-Type: text/plain\r\n\r\n"
+                    + "[00:00:00.000] run " + run + " match " + i + "\n"
+                    + logs[i % logs.length] + "\r\n";
+            body.writeBytes(part.getBytes(StandardCharsets.UTF_8));
+        }
+        body.writeBytes(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        bulkBody = body.toByteArray();
+        run++;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MATCHES)
+    public int singlePosts() throws Exception {
+        int status = 0;
+        for (int i = 0; i < MATCHES; i++) {
+            status += send(HttpRequest.newBuilder(single)
+                    .header("Content-Type", "text/plain")
+                    .POST(HttpRequest.BodyPublishers.ofString(logs[i % logs.length]))
+                    .build());
+        }
+        return status;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MATCHES)
+    public int bulkPost() throws Exception {
+        return send(HttpRequest.newBuilder(bulk)
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(bulkBody))
+                .build());
+    }
+
+    private int send(HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(response.statusCode() + " " + response.body());
+        }
+        return response.statusCode();
+    }
+}
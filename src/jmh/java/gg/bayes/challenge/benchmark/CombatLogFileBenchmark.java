@@ -0,0 +1,102 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.service.CombatLogParser;
+import gg.bayes.challenge.service.MatchCodec;
+import gg.bayes.challenge.utils.MappedCombatLog;
+import gg.bayes.challenge.utils.Utils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses every line of a synthetic combat log file, read line by line through a buffered file channel or
+ * scanned in place with {@link MappedCombatLog}, or decodes the same entries exported with {@link MatchCodec}. Run
+ * with {@code -prof gc} to compare allocation per line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CombatLogFileBenchmark {
+
+    @Param({"1000000"})
+    private long lines;
+
+    private Path file;
+    private Path encoded;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Files.createTempFile("combatlog-", ".log");
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            SyntheticCombatLog.fromSampleLogs().write(writer, lines);
+        }
+        encoded = Files.createTempFile("combatlog-", ".dotam");
+        try (OutputStream out = Files.newOutputStream(encoded)) {
+            MatchCodec.Encoder encoder = new MatchCodec.Encoder(out);
+            MappedCombatLog.forEachLine(file, line -> {
+                CombatLogEntryEntity entry = CombatLogParser.parse(line);
+                if (entry != null) {
+                    try {
+                        encoder.write(entry);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                }
+            });
+            encoder.finish();
+        }
+        System.out.printf("%ntext: %d bytes, encoded: %d bytes%n", Files.size(file), Files.size(encoded));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(encoded);
+    }
+
+    @Benchmark
+    public void reader(Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = Utils.newReader(Channels.newInputStream(FileChannel.open(file)))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                blackhole.consume(CombatLogParser.parse(line));
+            }
+        }
+    }
+
+    @Benchmark
+    public void mapped(Blackhole blackhole) throws IOException {
+        MappedCombatLog.forEachLine(file, line -> {
+            CombatLogEntryEntity entry = CombatLogParser.parse(line);
+            blackhole.consume(entry);
+        });
+    }
+
+    @Benchmark
+    public void binary(Blackhole blackhole) throws IOException {
+        try (InputStream in = Files.newInputStream(encoded)) {
+            Iterator<CombatLogEntryEntity> entries = MatchCodec.decode(in);
+            while (entries.hasNext()) {
+                blackhole.consume(entries.next());
+            }
+        }
+    }
+}
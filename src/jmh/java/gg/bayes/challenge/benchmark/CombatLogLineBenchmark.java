@@ -0,0 +1,72 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.service.CombatLogParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to parse one line of each kind found in the sample logs: the lines matched by each {@link CombatLogParser}
+ * pattern, and the lines matched by none of them. Each invocation parses the next line of that kind.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CombatLogLineBenchmark {
+
+    private static final String UNMATCHED = "UNMATCHED";
+
+    @Param({"PURCHASE_ITEM", "KILL_HERO", "CAST_SPELL", "DAMAGE_HERO", UNMATCHED})
+    private String lineType;
+
+    private String[] lines;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        List<String> selected = new ArrayList<>();
+        for (String file : BenchmarkContext.SAMPLE_LOGS) {
+            BenchmarkContext.readSampleLog(file).lines()
+                    .filter(line -> lineType.equals(matchingParser(line)))
+                    .forEach(selected::add);
+        }
+        lines = selected.toArray(String[]::new);
+    }
+
+    private static String matchingParser(String line) {
+        for (CombatLogParser parser : CombatLogParser.values()) {
+            if (parser.parseCombatLog(line) != null) {
+                return parser.name();
+            }
+        }
+        return UNMATCHED;
+    }
+
+    private String nextLine() {
+        next = (next + 1) % lines.length;
+        return lines[next];
+    }
+
+    @Benchmark
+    public CombatLogEntryEntity regexCascade() {
+        String line = nextLine();
+        for (CombatLogParser parser : CombatLogParser.values()) {
+            CombatLogEntryEntity entry = parser.parseCombatLog(line);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public CombatLogEntryEntity singlePass() {
+        return CombatLogParser.parse(nextLine());
+    }
+}
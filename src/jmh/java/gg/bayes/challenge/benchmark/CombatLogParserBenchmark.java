@@ -0,0 +1,54 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.service.CombatLogParser;
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the regex cascade over {@link CombatLogParser#values()} with the single pass
+ * {@link CombatLogParser#parse(CharSequence)} on every line of a sample log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CombatLogParserBenchmark {
+
+    @Param({"/data/combatlog_1.log.txt", "/data/combatlog_2.log.txt"})
+    private String file;
+
+    private String[] lines;
+
+    @Setup
+    public void setup() throws Exception {
+        lines = IOUtils.resourceToString(file, StandardCharsets.UTF_8).lines().toArray(String[]::new);
+    }
+
+    @Benchmark
+    public void regexCascade(Blackhole blackhole) {
+        for (String line : lines) {
+            CombatLogEntryEntity entry = Arrays.stream(CombatLogParser.values())
+                    .map(parser -> parser.parseCombatLog(line))
+                    .filter(Objects::nonNull)
+                    .findFirst()
+                    .orElse(null);
+            blackhole.consume(entry);
+        }
+    }
+
+    @Benchmark
+    public void singlePass(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(CombatLogParser.parse(line));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.model.FightDetector;
+import gg.bayes.challenge.model.MatchAggregates;
+import gg.bayes.challenge.model.exception.NoResultException;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.service.CombatLogParser;
+import gg.bayes.challenge.service.MatchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Cost of fight detection. {@code detect} runs {@link FightDetector} alone over the parsed entries of the first sample
+ * log, and {@code aggregate} runs every running aggregate of the ingest including it. {@code fights} reads the stored
+ * fights of a match, against {@code timelines}, which asks the timeline of every hero of the match in 5 second buckets
+ * from the database. The query cache is disabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FightDetectionBenchmark {
+
+    private static final long BUCKET = 5_000;
+
+    private ConfigurableApplicationContext context;
+    private MatchService matchService;
+    private List<CombatLogEntryEntity> entries;
+    private List<Long> matchIds;
+    private List<List<String>> heroes;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        entries = BenchmarkContext.readSampleLog(BenchmarkContext.SAMPLE_LOGS[0]).lines()
+                .map(CombatLogParser::parse)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        context = BenchmarkContext.start("--dota.cache.enabled=false");
+        matchService = context.getBean(MatchService.class);
+        matchIds = BenchmarkContext.ingestSampleLogs(matchService, 20);
+        heroes = new ArrayList<>();
+        for (Long matchId : matchIds) {
+            heroes.add(new ArrayList<>(matchService.getSummary(matchId).heroes()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object detect() {
+        FightDetector fightDetector = new FightDetector();
+        entries.forEach(fightDetector::add);
+        return fightDetector.fights();
+    }
+
+    @Benchmark
+    public Object aggregate() {
+        MatchAggregates aggregates = new MatchAggregates();
+        entries.forEach(aggregates::add);
+        return aggregates;
+    }
+
+    @Benchmark
+    public Object fights() {
+        next = (next + 1) % matchIds.size();
+        return matchService.getFights(matchIds.get(next));
+    }
+
+    @Benchmark
+    public int timelines() {
+        next = (next + 1) % matchIds.size();
+        int buckets = 0;
+        for (String hero : heroes.get(next)) {
+            try {
+                buckets += matchService.getHeroTimeline(matchIds.get(next), hero, null, null, BUCKET).size();
+            } catch (NoResultException ex) {
+                // A hero without entries.
+            }
+        }
+        return buckets;
+    }
+}
@@ -0,0 +1,48 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.service.MatchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end {@link MatchService#ingestCombatLog(String)} of the sample logs and of synthetic logs of growing size.
+ * A source is either a sample log resource or {@code synthetic:<lines>}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class IngestBenchmark {
+
+    private static final String SYNTHETIC = "synthetic:";
+
+    @Param({"/data/combatlog_1.log.txt", "/data/combatlog_2.log.txt", "synthetic:100000", "synthetic:1000000"})
+    private String source;
+
+    private ConfigurableApplicationContext context;
+    private MatchService matchService;
+    private String combatLog;
+
+    @Setup
+    public void setup() throws Exception {
+        context = BenchmarkContext.start();
+        matchService = context.getBean(MatchService.class);
+        combatLog = source.startsWith(SYNTHETIC)
+                ? SyntheticCombatLog.fromSampleLogs().generate(Integer.parseInt(source.substring(SYNTHETIC.length())))
+                : BenchmarkContext.readSampleLog(source);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long ingestCombatLog() {
+        return matchService.ingestCombatLog(combatLog);
+    }
+}
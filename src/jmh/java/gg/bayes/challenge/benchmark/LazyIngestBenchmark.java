@@ -0,0 +1,91 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.service.MatchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Eager against lazy ingest of the sample logs through {@link MatchService}: the latency of
+ * {@link MatchService#ingestCombatLog(String)}, and that of the first kills query of a freshly ingested match, which
+ * the eager mode answers from the cache it preloaded and the lazy mode only once the match is parsed. The heap retained
+ * by {@code matches} stored matches, none of them queried yet, is printed once loading completes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class LazyIngestBenchmark {
+
+    @Param({"jpa", "columnar"})
+    private String engine;
+
+    @Param({"false", "true"})
+    private boolean lazy;
+
+    @Param({"200"})
+    private int matches;
+
+    private ConfigurableApplicationContext context;
+    private MatchService matchService;
+    private String[] logs;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        context = BenchmarkContext.start("--dota.storage.engine=" + engine, "--dota.lazy.enabled=" + lazy);
+        matchService = context.getBean(MatchService.class);
+        logs = new String[]{BenchmarkContext.readSampleLog(BenchmarkContext.SAMPLE_LOGS[0]),
+                BenchmarkContext.readSampleLog(BenchmarkContext.SAMPLE_LOGS[1])};
+        long before = usedHeap();
+        BenchmarkContext.ingestSampleLogs(matchService, matches);
+        long after = usedHeap();
+        System.out.printf("%n%s store, %s: %d matches retain %.1f MB of heap%n", engine, lazy ? "lazy" : "eager",
+                matches, (after - before) / (1024.0 * 1024.0));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private Long ingestNext() {
+        next = (next + 1) % logs.length;
+        return matchService.ingestCombatLog(logs[next]);
+    }
+
+    @Benchmark
+    public Long ingest() {
+        return ingestNext();
+    }
+
+    @Benchmark
+    public Object firstQuery(FreshMatch freshMatch) {
+        return matchService.getMatch(freshMatch.matchId);
+    }
+
+    /**
+     * A match ingested before each invocation, outside the measured time.
+     */
+    @State(Scope.Thread)
+    public static class FreshMatch {
+
+        private Long matchId;
+
+        @Setup(Level.Invocation)
+        public void ingest(LazyIngestBenchmark benchmark) {
+            matchId = benchmark.ingestNext();
+        }
+    }
+}
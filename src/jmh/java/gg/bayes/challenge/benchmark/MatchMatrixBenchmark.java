@@ -0,0 +1,70 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.model.exception.NoResultException;
+import gg.bayes.challenge.service.MatchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the hero versus hero damage and kills of a match through {@link MatchService}: the kills query followed by
+ * the damage query of every hero, against one matrix query. The query cache is disabled so every call reaches the
+ * match store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchMatrixBenchmark {
+
+    @Param({"jpa", "columnar"})
+    private String engine;
+
+    private ConfigurableApplicationContext context;
+    private MatchService matchService;
+    private List<Long> matchIds;
+    private List<List<String>> heroes;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        context = BenchmarkContext.start("--dota.storage.engine=" + engine, "--dota.cache.enabled=false");
+        matchService = context.getBean(MatchService.class);
+        matchIds = BenchmarkContext.ingestSampleLogs(matchService, 20);
+        heroes = new ArrayList<>();
+        for (Long matchId : matchIds) {
+            heroes.add(new ArrayList<>(matchService.getSummary(matchId).heroes()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int perHero() {
+        next = (next + 1) % matchIds.size();
+        Long matchId = matchIds.get(next);
+        int size = matchService.getMatch(matchId).size();
+        for (String hero : heroes.get(next)) {
+            try {
+                size += matchService.getHeroDamages(matchId, hero).size();
+            } catch (NoResultException ex) {
+                // A hero that did no damage.
+            }
+        }
+        return size;
+    }
+
+    @Benchmark
+    public Object matrix() {
+        next = (next + 1) % matchIds.size();
+        return matchService.getMatrix(matchIds.get(next));
+    }
+}
@@ -0,0 +1,107 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.persistence.model.MatchEntity;
+import gg.bayes.challenge.persistence.repository.CombatLogEntryRepository;
+import gg.bayes.challenge.persistence.repository.MatchAggregateReader;
+import gg.bayes.challenge.persistence.repository.MatchRepository;
+import gg.bayes.challenge.service.MatchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Query latency with many matches stored: entity queries that hydrate entities and group in Java, GROUP BY
+ * projections over {@code dota_combat_log}, and lookups of the aggregates stored at ingest, read with
+ * {@link MatchAggregateReader}. Run with {@code -prof gc} to compare allocation per query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchQueryBenchmark {
+
+    private static final String HERO = "mars";
+
+    @Param({"100"})
+    private int matches;
+
+    private ConfigurableApplicationContext context;
+    private CombatLogEntryRepository combatLogEntryRepository;
+    private MatchAggregateReader matchAggregateReader;
+    private EntityManager entityManager;
+    private List<MatchEntity> matchEntities;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        context = BenchmarkContext.start();
+        combatLogEntryRepository = context.getBean(CombatLogEntryRepository.class);
+        matchAggregateReader = context.getBean(MatchAggregateReader.class);
+        entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+        List<Long> matchIds = BenchmarkContext.ingestSampleLogs(context.getBean(MatchService.class), matches);
+        matchEntities = context.getBean(MatchRepository.class).findAllById(matchIds);
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        context.close();
+    }
+
+    private MatchEntity nextMatch() {
+        next = (next + 1) % matchEntities.size();
+        return matchEntities.get(next);
+    }
+
+    @Benchmark
+    public Map<String, Long> killsEntityQuery() {
+        return entityManager.createQuery("SELECT e FROM CombatLogEntryEntity e "
+                        + "WHERE e.match = :match AND e.type = :type", CombatLogEntryEntity.class)
+                .setParameter("match", nextMatch())
+                .setParameter("type", CombatLogEntryEntity.Type.HERO_KILLED)
+                .getResultStream()
+                .collect(Collectors.groupingBy(CombatLogEntryEntity::getActor, Collectors.counting()));
+    }
+
+    @Benchmark
+    public Object killsProjection() {
+        return combatLogEntryRepository.countByActor(nextMatch().getId(), CombatLogEntryEntity.Type.HERO_KILLED);
+    }
+
+    @Benchmark
+    public Object killsAggregate() {
+        return matchAggregateReader.readKills(nextMatch().getId());
+    }
+
+    @Benchmark
+    public Map<String, Integer> damageEntityQuery() {
+        return entityManager.createQuery("SELECT e FROM CombatLogEntryEntity e "
+                        + "WHERE e.match = :match AND e.actor = :actor AND e.type = :type", CombatLogEntryEntity.class)
+                .setParameter("match", nextMatch())
+                .setParameter("actor", HERO)
+                .setParameter("type", CombatLogEntryEntity.Type.DAMAGE_DONE)
+                .getResultStream()
+                .collect(Collectors.groupingBy(CombatLogEntryEntity::getTarget,
+                        Collectors.summingInt(CombatLogEntryEntity::getDamage)));
+    }
+
+    @Benchmark
+    public Object damageProjection() {
+        return combatLogEntryRepository.sumDamageByTarget(nextMatch().getId(), HERO,
+                CombatLogEntryEntity.Type.DAMAGE_DONE);
+    }
+
+    @Benchmark
+    public Object damageAggregate() {
+        return matchAggregateReader.readDamages(nextMatch().getId(), HERO);
+    }
+}
@@ -0,0 +1,71 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.service.MatchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of each {@link MatchService} query method as the number of stored matches grows. The query cache is
+ * disabled unless {@code cache} is true, so that the store is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class MatchServiceQueryBenchmark {
+
+    private static final String HERO = "mars";
+
+    @Param({"10", "100", "1000"})
+    private int matches;
+
+    @Param({"false"})
+    private boolean cache;
+
+    private ConfigurableApplicationContext context;
+    private MatchService matchService;
+    private List<Long> matchIds;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        context = BenchmarkContext.start("--dota.cache.enabled=" + cache);
+        matchService = context.getBean(MatchService.class);
+        matchIds = BenchmarkContext.ingestSampleLogs(matchService, matches);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private Long nextMatch() {
+        next = (next + 1) % matchIds.size();
+        return matchIds.get(next);
+    }
+
+    @Benchmark
+    public Object getMatch() {
+        return matchService.getMatch(nextMatch());
+    }
+
+    @Benchmark
+    public Object getHeroItems() {
+        return matchService.getHeroItems(nextMatch(), HERO);
+    }
+
+    @Benchmark
+    public Object getHeroSpells() {
+        return matchService.getHeroSpells(nextMatch(), HERO);
+    }
+
+    @Benchmark
+    public Object getHeroDamages() {
+        return matchService.getHeroDamages(nextMatch(), HERO);
+    }
+}
@@ -0,0 +1,100 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.service.MatchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of the JPA and the columnar match stores through {@link MatchService}, with the sample logs ingested
+ * many times. The heap retained by the stored matches is printed once loading completes. Windowed damage queries read
+ * a five minute window and the whole match through the timestamp index, to compare their cost with the window size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class MatchStoreBenchmark {
+
+    private static final String HERO = "mars";
+    private static final long MINUTE = 60_000;
+
+    @Param({"jpa", "columnar"})
+    private String engine;
+
+    @Param({"200"})
+    private int matches;
+
+    private ConfigurableApplicationContext context;
+    private MatchService matchService;
+    private List<Long> matchIds;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        context = BenchmarkContext.start("--dota.storage.engine=" + engine, "--dota.cache.enabled=false");
+        matchService = context.getBean(MatchService.class);
+        long before = usedHeap();
+        matchIds = BenchmarkContext.ingestSampleLogs(matchService, matches);
+        long after = usedHeap();
+        System.out.printf("%n%s store: %d matches retain %.1f MB of heap%n", engine, matches,
+                (after - before) / (1024.0 * 1024.0));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private Long nextMatch() {
+        next = (next + 1) % matchIds.size();
+        return matchIds.get(next);
+    }
+
+    @Benchmark
+    public Object kills() {
+        return matchService.getMatch(nextMatch());
+    }
+
+    @Benchmark
+    public Object damages() {
+        return matchService.getHeroDamages(nextMatch(), HERO);
+    }
+
+    @Benchmark
+    public Object spells() {
+        return matchService.getHeroSpells(nextMatch(), HERO);
+    }
+
+    @Benchmark
+    public Object items() {
+        return matchService.getHeroItems(nextMatch(), HERO);
+    }
+
+    @Benchmark
+    public Object damagesInFiveMinutes() {
+        return matchService.getHeroDamages(nextMatch(), HERO, 20 * MINUTE, 25 * MINUTE);
+    }
+
+    @Benchmark
+    public Object damagesInWholeMatchWindow() {
+        return matchService.getHeroDamages(nextMatch(), HERO, 0L, Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public Object timeline() {
+        return matchService.getHeroTimeline(nextMatch(), HERO, null, null, 5 * MINUTE);
+    }
+}
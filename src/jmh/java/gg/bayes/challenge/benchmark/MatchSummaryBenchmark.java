@@ -0,0 +1,78 @@
+package gg.bayes.challenge.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gg.bayes.challenge.service.MatchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency over HTTP of everything a dashboard shows about one match: {@code GET /api/match/{id}} followed by the
+ * items, spells and damage of each hero, against one {@code GET /api/match/{id}/summary}. Runs with the query cache
+ * enabled and disabled; the preload is disabled so the first per hero calls are not answered in advance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MatchSummaryBenchmark {
+
+    @Param({"true", "false"})
+    private boolean cache;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private List<URI> perHeroCalls;
+    private URI summary;
+
+    @Setup
+    public void setup() throws Exception {
+        context = BenchmarkContext.startServer("--dota.cache.enabled=" + cache, "--dota.cache.preload=false");
+        Long matchId = BenchmarkContext.ingestSampleLogs(context.getBean(MatchService.class), 10).get(0);
+        String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                + "/api/match/" + matchId;
+        client = HttpClient.newHttpClient();
+        summary = URI.create(base + "/summary");
+        perHeroCalls = new ArrayList<>();
+        perHeroCalls.add(URI.create(base));
+        JsonNode heroes = new ObjectMapper().readTree(send(summary));
+        for (JsonNode hero : heroes) {
+            for (String query : List.of("items", "spells", "damage")) {
+                perHeroCalls.add(URI.create(base + "/" + hero.get("hero").asText() + "/" + query));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int perHero() throws Exception {
+        int length = 0;
+        for (URI uri : perHeroCalls) {
+            length += send(uri).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int summary() throws Exception {
+        return send(summary).length();
+    }
+
+    private String send(URI uri) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
@@ -0,0 +1,56 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.config.DotaProperties;
+import gg.bayes.challenge.service.IngestMetrics;
+import gg.bayes.challenge.service.ParallelLogParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.util.unit.DataSize;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a synthetic combat log with {@link ParallelLogParser} on 1 to 8 threads, to measure how parsing a single log
+ * scales with cores. Thread counts above the number of available cores only add overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ParallelParseBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    private int threads;
+
+    @Param({"1000000"})
+    private int lines;
+
+    private ParallelLogParser parser;
+    private String combatLog;
+
+    @Setup
+    public void setup() throws Exception {
+        DotaProperties properties = new DotaProperties();
+        properties.getIngest().setParseThreads(threads);
+        properties.getIngest().setParallelThreshold(DataSize.ofBytes(0));
+        parser = new ParallelLogParser(new IngestMetrics(new SimpleMeterRegistry()), properties);
+        combatLog = SyntheticCombatLog.fromSampleLogs().generate(lines);
+    }
+
+    @TearDown
+    public void tearDown() {
+        parser.shutdown();
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        parser.parse(new StringReader(combatLog), entries -> {
+            entries.forEachRemaining(blackhole::consume);
+            return null;
+        });
+    }
+}
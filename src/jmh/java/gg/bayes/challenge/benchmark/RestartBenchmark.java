@@ -0,0 +1,76 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.rest.model.BootstrapProgress;
+import gg.bayes.challenge.service.BootstrapService;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Start and shutdown time of the application with {@code matches} combat logs in the bootstrap directory. With the
+ * {@code durable} profile, the logs were ingested by an earlier start and are only looked up again; otherwise the
+ * in-memory database starts empty and every log is ingested. Each log gets a unique first line, so none is skipped
+ * as a duplicate of another.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class RestartBenchmark {
+
+    @Param({"16", "64"})
+    private int matches;
+
+    @Param({"true", "false"})
+    private boolean durable;
+
+    private Path directory;
+    private Path logs;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("restart-");
+        logs = Files.createDirectory(directory.resolve("data"));
+        String[] samples = {BenchmarkContext.readSampleLog(BenchmarkContext.SAMPLE_LOGS[0]),
+                BenchmarkContext.readSampleLog(BenchmarkContext.SAMPLE_LOGS[1])};
+        for (int i = 0; i < matches; i++) {
+            Files.writeString(logs.resolve("match-" + i + ".log"),
+                    "[00:00:00.000] match " + i + "\n" + samples[i % samples.length], StandardCharsets.UTF_8);
+        }
+        if (durable) {
+            start().close();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    @Benchmark
+    public BootstrapProgress restart() {
+        try (ConfigurableApplicationContext context = start()) {
+            BootstrapProgress progress = context.getBean(BootstrapService.class).getProgress();
+            if (progress.getIngested() + progress.getSkipped() != matches) {
+                throw new IllegalStateException(progress.toString());
+            }
+            return progress;
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        if (!durable) {
+            return BenchmarkContext.startWithBootstrap(logs.toString());
+        }
+        return BenchmarkContext.startWithBootstrap(logs.toString(), "--spring.profiles.active=durable",
+                "--DOTA_STORE=" + directory.resolve("store"));
+    }
+}
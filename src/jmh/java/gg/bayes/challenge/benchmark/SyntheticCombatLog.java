@@ -0,0 +1,118 @@
+package gg.bayes.challenge.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scales the sample logs to an arbitrary number of lines. The sample lines are replayed in turn, each replay shifted
+ * in time so that timestamps keep increasing; they wrap around after 24 hours since the log format has no day field.
+ * <p>
+ * Run {@code main} with an output file and a number of lines to write a synthetic log to disk.
+ */
+public final class SyntheticCombatLog {
+
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private final List<String> lines;
+    private final long[] timestamps;
+    private final long replayMillis;
+
+    private SyntheticCombatLog(List<String> lines) {
+        this.lines = lines;
+        this.timestamps = new long[lines.size()];
+        long offset = 0;
+        long previous = 0;
+        for (int i = 0; i < timestamps.length; i++) {
+            long timestamp = timestamp(lines.get(i));
+            if (timestamp + offset < previous) {
+                // the next sample log starts over at zero
+                offset = previous - timestamp;
+            }
+            timestamps[i] = timestamp + offset;
+            previous = timestamps[i];
+        }
+        this.replayMillis = previous + 1;
+    }
+
+    /**
+     * @return a generator replaying both sample logs
+     */
+    public static SyntheticCombatLog fromSampleLogs() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String file : BenchmarkContext.SAMPLE_LOGS) {
+            BenchmarkContext.readSampleLog(file).lines().filter(line -> timestamp(line) >= 0).forEach(lines::add);
+        }
+        return new SyntheticCombatLog(lines);
+    }
+
+    /**
+     * @param lineCount the number of lines to generate
+     * @return a combat log of the given number of lines
+     */
+    public String generate(int lineCount) {
+        StringBuilder builder = new StringBuilder(lineCount * 80);
+        try {
+            write(builder, lineCount);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes a combat log of the given number of lines.
+     */
+    public void write(Appendable out, long lineCount) throws IOException {
+        for (long i = 0; i < lineCount; i++) {
+            int index = (int) (i % lines.size());
+            long shift = (i / lines.size()) * replayMillis;
+            String line = lines.get(index);
+            appendTimestamp(out, (timestamps[index] + shift) % DAY_MILLIS);
+            out.append(line, line.indexOf(']') + 1, line.length()).append('\n');
+        }
+    }
+
+    private static void appendTimestamp(Appendable out, long millis) throws IOException {
+        long seconds = millis / 1000;
+        out.append('[')
+                .append(twoDigits(seconds / 3600)).append(':')
+                .append(twoDigits(seconds / 60 % 60)).append(':')
+                .append(twoDigits(seconds % 60)).append('.')
+                .append(String.format("%03d", millis % 1000))
+                .append(']');
+    }
+
+    private static String twoDigits(long value) {
+        return value < 10 ? "0" + value : Long.toString(value);
+    }
+
+    /**
+     * @return the timestamp of a line in milliseconds, or -1 if the line has none
+     */
+    private static long timestamp(String line) {
+        if (line.length() < 14 || line.charAt(0) != '[' || line.charAt(13) != ']') {
+            return -1;
+        }
+        return ((Long.parseLong(line.substring(1, 3)) * 60 + Long.parseLong(line.substring(4, 6))) * 60
+                + Long.parseLong(line.substring(7, 9))) * 1000 + Long.parseLong(line.substring(10, 13));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: SyntheticCombatLog <output file> <lines>");
+            System.exit(1);
+        }
+        Path output = Paths.get(args[0]);
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+            fromSampleLogs().write(writer, Long.parseLong(args[1]));
+        }
+    }
+}
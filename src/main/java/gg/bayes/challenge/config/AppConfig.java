@@ -1,9 +1,11 @@
 package gg.bayes.challenge.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 @ComponentScan("gg")
+@EnableConfigurationProperties(DotaProperties.class)
 public class AppConfig {
 }
@@ -0,0 +1,202 @@
+package gg.bayes.challenge.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "dota")
+public class DotaProperties {
+
+    private final Ingest ingest = new Ingest();
+    private final Bootstrap bootstrap = new Bootstrap();
+    private final Storage storage = new Storage();
+    private final Cache cache = new Cache();
+    private final Jobs jobs = new Jobs();
+    private final Live live = new Live();
+    private final Lazy lazy = new Lazy();
+
+    @Getter
+    @Setter
+    public static class Ingest {
+        /**
+         * Number of parsed entries kept in memory before they are flushed to the database.
+         */
+        private int chunkSize = 1000;
+
+        /**
+         * How entries are written: with JDBC batch inserts, or through the JPA persistence context.
+         */
+        private Writer writer = Writer.JDBC;
+
+        /**
+         * Whether per-hero aggregates are computed and stored at ingest time. Matches without aggregates are queried
+         * with GROUP BY projections over the combat log table.
+         */
+        private boolean aggregates = true;
+
+        /**
+         * Number of threads parsing a single combat log.
+         */
+        private int parseThreads = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Combat logs longer than this, in characters, are parsed on {@code parse-threads} threads.
+         */
+        private DataSize parallelThreshold = DataSize.ofMegabytes(4);
+
+        /**
+         * Characters of a combat log handed to a parser thread at once.
+         */
+        private DataSize parseChunkSize = DataSize.ofMegabytes(1);
+
+        /**
+         * Number of matches of a bulk ingest written together, in one transaction.
+         */
+        private int bulkBatchSize = 8;
+
+        /**
+         * Largest combat log posted to {@code /api/match}, or of a bulk ingest once decompressed. Larger posted logs
+         * are rejected with 413, larger logs of a bulk ingest fail on their own.
+         */
+        private DataSize maxLogSize = DataSize.ofMegabytes(256);
+
+        /**
+         * Largest total size of the files of a bulk ingest, as extracted from a zip archive or uploaded. Larger
+         * requests are rejected with 413.
+         */
+        private DataSize maxBulkSize = DataSize.ofGigabytes(2);
+    }
+
+    @Getter
+    @Setter
+    public static class Bootstrap {
+        /**
+         * Whether combat logs found under the bootstrap directory are ingested at startup.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Directory walked for combat logs at startup.
+         */
+        private String directory = "data/";
+
+        /**
+         * Number of threads parsing files in parallel. Parsed files are persisted by a single writer.
+         */
+        private int threads = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Whether the bootstrap runs in the background, letting the application report ready before it finishes.
+         */
+        private boolean async = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Storage {
+        /**
+         * Where matches are stored: in the relational database, or in memory as primitive columns. Read at startup.
+         */
+        private Engine engine = Engine.JPA;
+
+        /**
+         * Whether the database keeps stored matches across restarts, as with the {@code durable} profile. Otherwise it
+         * is in memory, so every start begins without matches.
+         */
+        private boolean durable = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+        /**
+         * Whether query results are cached in front of the match store.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of cached query results.
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * How long not found results are cached.
+         */
+        private Duration negativeTtl = Duration.ofSeconds(10);
+
+        /**
+         * Whether the answers of every query about a match are computed and cached right after it is ingested.
+         */
+        private boolean preload = true;
+    }
+
+    @Getter
+    @Setter
+    public static class Jobs {
+        /**
+         * Number of threads ingesting queued combat logs.
+         */
+        private int workers = 2;
+
+        /**
+         * Number of combat logs that may wait for a worker. Submissions beyond it are rejected with 503.
+         */
+        private int queueCapacity = 16;
+
+        /**
+         * Largest combat log accepted by a job. Larger uploads are rejected with 413 once this much has been spooled.
+         */
+        private DataSize maxLogSize = DataSize.ofMegabytes(256);
+
+        /**
+         * How long finished jobs can be looked up.
+         */
+        private Duration retention = Duration.ofHours(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Live {
+        /**
+         * How long a live match may go without an append before it is closed.
+         */
+        private Duration idleTimeout = Duration.ofMinutes(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Lazy {
+        /**
+         * Whether a single combat log is only stored gzip compressed at ingest, and parsed when a query first touches
+         * its match. Bulk and bootstrap ingests stay eager.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of lazily ingested matches kept parsed. Past it, the least recently queried ones are evicted back to
+         * their compressed log.
+         */
+        private int maxResident = 64;
+
+        /**
+         * Fraction of the maximum heap which, when still in use after the last garbage collection, evicts every parsed
+         * lazy match but the most recently queried one.
+         */
+        private double heapThreshold = 0.8;
+    }
+
+    public enum Writer {
+        JDBC,
+        JPA
+    }
+
+    public enum Engine {
+        JPA,
+        COLUMNAR
+    }
+}
@@ -1,12 +1,19 @@
 package gg.bayes.challenge.config;
 
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
 import springfox.documentation.builders.PathSelectors;
 import springfox.documentation.builders.RequestHandlerSelectors;
 import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
+import springfox.documentation.spring.web.plugins.WebMvcRequestHandlerProvider;
 
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Objects;
 import java.util.function.Predicate;
 
 @Configuration
@@ -21,4 +28,24 @@ public class SwaggerConfig {
                 .build();
     }
 
+    /**
+     * Springfox only reads handler mappings that match with {@code AntPathMatcher}. The actuator endpoints are mapped
+     * with {@code PathPatternParser} whatever {@code spring.mvc.pathmatch} says, so their mappings are hidden from it.
+     */
+    @Bean
+    public static BeanPostProcessor springfoxHandlerMappingsPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof WebMvcRequestHandlerProvider) {
+                    Field field = Objects.requireNonNull(ReflectionUtils.findField(bean.getClass(), "handlerMappings"));
+                    ReflectionUtils.makeAccessible(field);
+                    ((List<RequestMappingInfoHandlerMapping>) ReflectionUtils.getField(field, bean))
+                            .removeIf(mapping -> mapping.getPatternParser() != null);
+                }
+                return bean;
+            }
+        };
+    }
 }
@@ -0,0 +1,152 @@
+package gg.bayes.challenge.model;
+
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Entries of a single match stored column by column in primitive arrays. Names are ids into the dictionaries of the
+ * store that built the match, and columns that do not apply to an entry type hold -1. Rows are ordered by timestamp,
+ * keeping the log order of equal timestamps, so a time window is found with two binary searches.
+ */
+@Getter
+public class ColumnarMatch {
+
+    private static final CombatLogEntryEntity.Type[] TYPES = CombatLogEntryEntity.Type.values();
+
+    private final int size;
+    private final long[] timestamps;
+    private final byte[] types;
+    private final int[] actors;
+    private final int[] targets;
+    /**
+     * Ability id of spell casts, item id of purchases.
+     */
+    private final int[] names;
+    /**
+     * Damage of damage entries, ability level of spell casts.
+     */
+    private final int[] values;
+
+    private ColumnarMatch(Builder builder) {
+        this.size = builder.size;
+        this.timestamps = Arrays.copyOf(builder.timestamps, size);
+        this.types = Arrays.copyOf(builder.types, size);
+        this.actors = Arrays.copyOf(builder.actors, size);
+        this.targets = Arrays.copyOf(builder.targets, size);
+        this.names = Arrays.copyOf(builder.names, size);
+        this.values = Arrays.copyOf(builder.values, size);
+        if (!builder.ordered) {
+            sortByTimestamp();
+        }
+    }
+
+    /**
+     * Stable sort of every column by timestamp. Combat logs are written in time order, so this only runs for the
+     * rare log whose lines are not.
+     */
+    private void sortByTimestamp() {
+        Integer[] order = new Integer[size];
+        Arrays.setAll(order, row -> row);
+        Arrays.sort(order, (left, right) -> Long.compare(timestamps[left], timestamps[right]));
+        long[] sortedTimestamps = timestamps.clone();
+        byte[] sortedTypes = types.clone();
+        int[] sortedActors = actors.clone();
+        int[] sortedTargets = targets.clone();
+        int[] sortedNames = names.clone();
+        int[] sortedValues = values.clone();
+        for (int row = 0; row < size; row++) {
+            timestamps[row] = sortedTimestamps[order[row]];
+            types[row] = sortedTypes[order[row]];
+            actors[row] = sortedActors[order[row]];
+            targets[row] = sortedTargets[order[row]];
+            names[row] = sortedNames[order[row]];
+            values[row] = sortedValues[order[row]];
+        }
+    }
+
+    /**
+     * @param timestamp a timestamp in milliseconds
+     * @return the first row whose timestamp is not before the given one, or the size if there is none
+     */
+    public int firstRowAt(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[middle] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public static byte code(CombatLogEntryEntity.Type type) {
+        return (byte) type.ordinal();
+    }
+
+    public CombatLogEntryEntity.Type type(int row) {
+        return TYPES[types[row]];
+    }
+
+    /**
+     * Retained size of the arrays in bytes, ignoring object headers.
+     */
+    public long sizeInBytes() {
+        return (long) size * (Long.BYTES + Byte.BYTES + 4 * Integer.BYTES);
+    }
+
+    public static class Builder {
+        private int size;
+        private long[] timestamps = new long[1024];
+        private byte[] types = new byte[1024];
+        private int[] actors = new int[1024];
+        private int[] targets = new int[1024];
+        private int[] names = new int[1024];
+        private int[] values = new int[1024];
+        private boolean ordered = true;
+        private ColumnarMatch built;
+
+        public Builder add(long timestamp, CombatLogEntryEntity.Type type, int actor, int target, int name, int value) {
+            if (size == timestamps.length) {
+                int capacity = size * 2;
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                types = Arrays.copyOf(types, capacity);
+                actors = Arrays.copyOf(actors, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                names = Arrays.copyOf(names, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            if (size > 0 && timestamp < timestamps[size - 1]) {
+                ordered = false;
+            }
+            timestamps[size] = timestamp;
+            types[size] = code(type);
+            actors[size] = actor;
+            targets[size] = target;
+            names[size] = name;
+            values[size] = value;
+            size++;
+            built = null;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Copies the rows added so far into a match. The copy is reused until the next row is added, so a builder
+         * read between appends is only copied once.
+         */
+        public ColumnarMatch build() {
+            if (built == null) {
+                built = new ColumnarMatch(this);
+            }
+            return built;
+        }
+    }
+}
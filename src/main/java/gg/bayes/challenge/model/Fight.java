@@ -0,0 +1,96 @@
+package gg.bayes.challenge.model;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A fight detected by {@link FightDetector}: from its first kill to its last, with the kills, deaths and damage of
+ * every hero that took part, its longest kill streak and its burst damage.
+ */
+@Getter
+public class Fight {
+
+    private final long start;
+    private long end;
+    private int kills;
+    private long totalDamage;
+    private final Map<String, Participant> participants = new TreeMap<>();
+
+    public Fight(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public void addKill(long timestamp, String killer, String victim) {
+        end = Math.max(end, timestamp);
+        kills++;
+        participant(killer).kills++;
+        participant(victim).deaths++;
+    }
+
+    public void addDamage(String hero, long damage) {
+        totalDamage += damage;
+        participant(hero).damage += damage;
+    }
+
+    /**
+     * @param streak kills made by the hero in a row so far, kept if it is the most so far
+     */
+    public void addStreak(String hero, int streak) {
+        Participant participant = participant(hero);
+        participant.streak = Math.max(participant.streak, streak);
+    }
+
+    /**
+     * @param damage damage done by the hero within {@link FightDetector#BURST}, kept if it is the most so far
+     */
+    public void addBurst(String hero, long damage) {
+        Participant participant = participant(hero);
+        participant.burstDamage = Math.max(participant.burstDamage, damage);
+    }
+
+    /**
+     * Adds the totals of a participant, as stored.
+     */
+    public void add(String hero, int kills, int deaths, long damage, int streak, long burstDamage) {
+        Participant participant = participant(hero);
+        participant.kills += kills;
+        participant.deaths += deaths;
+        participant.damage += damage;
+        participant.streak = Math.max(participant.streak, streak);
+        participant.burstDamage = Math.max(participant.burstDamage, burstDamage);
+        this.kills += kills;
+        this.totalDamage += damage;
+    }
+
+    /**
+     * @return a copy that later additions to this one do not change
+     */
+    public Fight copy() {
+        Fight copy = new Fight(start, end);
+        participants.forEach((hero, participant) -> copy.add(hero, participant.kills, participant.deaths,
+                participant.damage, participant.streak, participant.burstDamage));
+        return copy;
+    }
+
+    private Participant participant(String hero) {
+        return participants.computeIfAbsent(hero, key -> new Participant());
+    }
+
+    @Getter
+    public static class Participant {
+        private int kills;
+        private int deaths;
+        private long damage;
+        /**
+         * Most kills in a row without dying in between.
+         */
+        private int streak;
+        /**
+         * Most damage done within {@link FightDetector#BURST}.
+         */
+        private long burstDamage;
+    }
+}
@@ -0,0 +1,212 @@
+package gg.bayes.challenge.model;
+
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Detects fights in the entries of a match as they are parsed, in timestamp order. A fight starts once
+ * {@link #MIN_KILLS} kills fall within {@link #WINDOW}, and goes on while every next kill follows the previous one
+ * within the window. Its damage is the damage done from one window before its first kill, to the second, until its
+ * last kill. Within that damage, the burst damage of a hero is the most it did in {@link #BURST}, counted in whole
+ * seconds; the kill streak of a hero is the most kills it made in the fight without dying in between.
+ * <p>
+ * State is fixed in size: a ring of the last kills, and per hero a ring of damage per second covering two windows,
+ * enough to look back one window from the first of kills that are at most one window apart. Each entry costs constant
+ * time, so a match costs time linear in its entries.
+ */
+public class FightDetector {
+
+    public static final long WINDOW = 15_000;
+    public static final int MIN_KILLS = 3;
+    public static final long BURST = 5_000;
+    private static final long BUCKET = 1_000;
+    private static final int BUCKETS = (int) (2 * WINDOW / BUCKET) + 1;
+
+    private final List<Fight> fights = new ArrayList<>();
+    private final Map<String, DamageRing> damage = new HashMap<>();
+    private final long[] killTimes = new long[MIN_KILLS];
+    private final String[] killers = new String[MIN_KILLS];
+    private final String[] victims = new String[MIN_KILLS];
+    private int recentKills;
+    private int nextKill;
+    private long now = Long.MIN_VALUE;
+    private Fight open;
+    private long openFromSecond;
+    private final Map<String, Long> damageSinceKill = new HashMap<>();
+    private final Map<String, Long> burstSinceKill = new HashMap<>();
+    private final Map<String, Integer> streaks = new HashMap<>();
+
+    /**
+     * Feeds the next entry. An entry older than the previous one is taken as happening at the same time.
+     */
+    public void add(CombatLogEntryEntity entry) {
+        now = Math.max(now, entry.getTimestamp());
+        if (open != null && now - open.getEnd() > WINDOW) {
+            fights.add(open);
+            open = null;
+            damageSinceKill.clear();
+            burstSinceKill.clear();
+            streaks.clear();
+        }
+        if (entry.getType() == CombatLogEntryEntity.Type.DAMAGE_DONE) {
+            DamageRing ring = damage.computeIfAbsent(entry.getActor(), key -> new DamageRing());
+            ring.add(now, entry.getDamage());
+            if (open != null) {
+                damageSinceKill.merge(entry.getActor(), (long) entry.getDamage(), Long::sum);
+                burstSinceKill.merge(entry.getActor(), ring.burst(openFromSecond, Math.floorDiv(now, BUCKET)),
+                        Math::max);
+            }
+        } else if (entry.getType() == CombatLogEntryEntity.Type.HERO_KILLED) {
+            kill(entry.getActor(), entry.getTarget());
+        }
+    }
+
+    /**
+     * @return the fights detected so far, earliest first, including one still going on
+     */
+    public List<Fight> fights() {
+        List<Fight> result = new ArrayList<>(fights);
+        if (open != null) {
+            result.add(open.copy());
+        }
+        return result;
+    }
+
+    /**
+     * @return a copy that later additions to this one do not change
+     */
+    public FightDetector copy() {
+        FightDetector copy = new FightDetector();
+        copy.fights.addAll(fights);
+        damage.forEach((hero, ring) -> copy.damage.put(hero, ring.copy()));
+        System.arraycopy(killTimes, 0, copy.killTimes, 0, MIN_KILLS);
+        System.arraycopy(killers, 0, copy.killers, 0, MIN_KILLS);
+        System.arraycopy(victims, 0, copy.victims, 0, MIN_KILLS);
+        copy.recentKills = recentKills;
+        copy.nextKill = nextKill;
+        copy.now = now;
+        copy.open = open == null ? null : open.copy();
+        copy.openFromSecond = openFromSecond;
+        copy.damageSinceKill.putAll(damageSinceKill);
+        copy.burstSinceKill.putAll(burstSinceKill);
+        copy.streaks.putAll(streaks);
+        return copy;
+    }
+
+    private void kill(String killer, String victim) {
+        if (open != null) {
+            damageSinceKill.forEach(open::addDamage);
+            damageSinceKill.clear();
+            burstSinceKill.forEach(open::addBurst);
+            burstSinceKill.clear();
+            addKill(now, killer, victim);
+            return;
+        }
+        killTimes[nextKill] = now;
+        killers[nextKill] = killer;
+        victims[nextKill] = victim;
+        nextKill = (nextKill + 1) % MIN_KILLS;
+        recentKills = Math.min(recentKills + 1, MIN_KILLS);
+        // Once the ring is full, the next slot holds the oldest kill.
+        if (recentKills == MIN_KILLS && now - killTimes[nextKill] <= WINDOW) {
+            long first = killTimes[nextKill];
+            open = new Fight(first, now);
+            for (int i = 0; i < MIN_KILLS; i++) {
+                int slot = (nextKill + i) % MIN_KILLS;
+                addKill(killTimes[slot], killers[slot], victims[slot]);
+            }
+            openFromSecond = Math.floorDiv(first - WINDOW, BUCKET);
+            long nowSecond = Math.floorDiv(now, BUCKET);
+            damage.forEach((hero, ring) -> {
+                long total = ring.sum(first - WINDOW, now);
+                if (total > 0) {
+                    open.addDamage(hero, total);
+                    open.addBurst(hero, ring.peakBurst(openFromSecond, nowSecond));
+                }
+            });
+            recentKills = 0;
+        }
+    }
+
+    /**
+     * Adds a kill to the open fight, which extends the streak of the killer and ends the streak of the victim.
+     */
+    private void addKill(long timestamp, String killer, String victim) {
+        open.addKill(timestamp, killer, victim);
+        open.addStreak(killer, streaks.merge(killer, 1, Integer::sum));
+        streaks.put(victim, 0);
+    }
+
+    /**
+     * Damage of one hero per second, over the last {@code BUCKETS} seconds.
+     */
+    private static class DamageRing {
+
+        private final long[] seconds = new long[BUCKETS];
+        private final long[] totals = new long[BUCKETS];
+
+        DamageRing() {
+            Arrays.fill(seconds, Long.MIN_VALUE);
+        }
+
+        void add(long timestamp, int amount) {
+            long second = Math.floorDiv(timestamp, BUCKET);
+            int slot = Math.floorMod(second, BUCKETS);
+            if (seconds[slot] != second) {
+                seconds[slot] = second;
+                totals[slot] = 0;
+            }
+            totals[slot] += amount;
+        }
+
+        long sum(long from, long to) {
+            long first = Math.floorDiv(from, BUCKET);
+            long last = Math.floorDiv(to, BUCKET);
+            long total = 0;
+            for (int slot = 0; slot < BUCKETS; slot++) {
+                if (seconds[slot] >= first && seconds[slot] <= last) {
+                    total += totals[slot];
+                }
+            }
+            return total;
+        }
+
+        /**
+         * @return the damage of the {@link #BURST} ending with the given second, not counting seconds before the
+         * first one
+         */
+        long burst(long firstSecond, long second) {
+            long total = 0;
+            for (long previous = second; previous > second - BURST / BUCKET && previous >= firstSecond; previous--) {
+                int slot = Math.floorMod(previous, BUCKETS);
+                if (seconds[slot] == previous) {
+                    total += totals[slot];
+                }
+            }
+            return total;
+        }
+
+        /**
+         * @return the most damage of a {@link #BURST} ending between the given seconds, both included
+         */
+        long peakBurst(long firstSecond, long lastSecond) {
+            long peak = 0;
+            for (long second = firstSecond; second <= lastSecond; second++) {
+                peak = Math.max(peak, burst(firstSecond, second));
+            }
+            return peak;
+        }
+
+        DamageRing copy() {
+            DamageRing copy = new DamageRing();
+            System.arraycopy(seconds, 0, copy.seconds, 0, BUCKETS);
+            System.arraycopy(totals, 0, copy.totals, 0, BUCKETS);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package gg.bayes.challenge.model;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hero versus hero totals of a match: for every attacker and victim, the damage instances, the total damage and the
+ * kills. Rows are attackers and columns victims, both in the order of {@link #getHeroes()}, which holds every hero that
+ * damaged, killed, was damaged or was killed, sorted by name.
+ */
+@Getter
+public class HeroMatrix {
+
+    private final List<String> heroes;
+    private final int[][] hits;
+    private final long[][] damage;
+    private final int[][] kills;
+
+    private HeroMatrix(List<String> heroes, int[][] hits, long[][] damage, int[][] kills) {
+        this.heroes = heroes;
+        this.hits = hits;
+        this.damage = damage;
+        this.kills = kills;
+    }
+
+    /**
+     * @param aggregates the aggregates of a match
+     * @return the matrix of their damage and kills
+     */
+    public static HeroMatrix of(MatchAggregates aggregates) {
+        Builder builder = new Builder();
+        aggregates.getDamages().forEach((hero, targets) -> {
+            int attacker = builder.index(hero);
+            targets.forEach((target, totals) ->
+                    builder.addDamage(attacker, builder.index(target), totals.getInstances(), totals.getTotal()));
+        });
+        aggregates.getVictims().forEach((hero, victims) -> {
+            int killer = builder.index(hero);
+            victims.forEach((victim, count) -> builder.addKills(killer, builder.index(victim), count.intValue()));
+        });
+        return builder.build();
+    }
+
+    /**
+     * Accumulates a matrix in dense arrays indexed by order of first appearance, grown as new heroes appear, so a scan
+     * of the match only does array arithmetic once its heroes are known. The heroes are sorted when it is built.
+     */
+    public static class Builder {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private int[][] hits = new int[INITIAL_CAPACITY][INITIAL_CAPACITY];
+        private long[][] damage = new long[INITIAL_CAPACITY][INITIAL_CAPACITY];
+        private int[][] kills = new int[INITIAL_CAPACITY][INITIAL_CAPACITY];
+
+        /**
+         * @return the index of the hero, assigning the next one on its first appearance
+         */
+        public int index(String hero) {
+            Integer index = indexes.get(hero);
+            if (index == null) {
+                index = names.size();
+                if (index == hits.length) {
+                    grow(index * 2);
+                }
+                names.add(hero);
+                indexes.put(hero, index);
+            }
+            return index;
+        }
+
+        public void addDamage(int attacker, int victim, int instances, long total) {
+            hits[attacker][victim] += instances;
+            damage[attacker][victim] += total;
+        }
+
+        public void addKills(int killer, int victim, int count) {
+            kills[killer][victim] += count;
+        }
+
+        public HeroMatrix build() {
+            int size = names.size();
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparing(names::get));
+            List<String> heroes = new ArrayList<>(size);
+            int[][] sortedHits = new int[size][size];
+            long[][] sortedDamage = new long[size][size];
+            int[][] sortedKills = new int[size][size];
+            for (int row = 0; row < size; row++) {
+                heroes.add(names.get(order[row]));
+                for (int column = 0; column < size; column++) {
+                    sortedHits[row][column] = hits[order[row]][order[column]];
+                    sortedDamage[row][column] = damage[order[row]][order[column]];
+                    sortedKills[row][column] = kills[order[row]][order[column]];
+                }
+            }
+            return new HeroMatrix(heroes, sortedHits, sortedDamage, sortedKills);
+        }
+
+        private void grow(int capacity) {
+            hits = grow(hits, capacity);
+            damage = grow(damage, capacity);
+            kills = grow(kills, capacity);
+        }
+
+        private static int[][] grow(int[][] matrix, int capacity) {
+            int[][] grown = new int[capacity][];
+            for (int row = 0; row < capacity; row++) {
+                grown[row] = row < matrix.length ? Arrays.copyOf(matrix[row], capacity) : new int[capacity];
+            }
+            return grown;
+        }
+
+        private static long[][] grow(long[][] matrix, int capacity) {
+            long[][] grown = new long[capacity][];
+            for (int row = 0; row < capacity; row++) {
+                grown[row] = row < matrix.length ? Arrays.copyOf(matrix[row], capacity) : new long[capacity];
+            }
+            return grown;
+        }
+    }
+}
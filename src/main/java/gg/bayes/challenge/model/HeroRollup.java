@@ -0,0 +1,98 @@
+package gg.bayes.challenge.model;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Totals of one hero over every stored match: matches played, kills, damage, and how often each item was bought and
+ * each ability cast. Built per match from its {@link MatchAggregates} and summed into the global rollup.
+ */
+@Getter
+public class HeroRollup {
+
+    private final String hero;
+    private long matches;
+    private long kills;
+    private long damageInstances;
+    private long totalDamage;
+    private final Map<String, Usage> items = new HashMap<>();
+    private final Map<String, Usage> spells = new HashMap<>();
+
+    public HeroRollup(String hero) {
+        this.hero = hero;
+    }
+
+    public HeroRollup(String hero, long matches, long kills, long damageInstances, long totalDamage) {
+        this.hero = hero;
+        this.matches = matches;
+        this.kills = kills;
+        this.damageInstances = damageInstances;
+        this.totalDamage = totalDamage;
+    }
+
+    /**
+     * @param aggregates the aggregates of one match
+     * @return per hero acting in the match, its contribution to the rollup
+     */
+    public static Map<String, HeroRollup> of(MatchAggregates aggregates) {
+        Map<String, HeroRollup> rollups = new HashMap<>();
+        aggregates.getKills().forEach((hero, kills) -> rollup(rollups, hero).kills = kills);
+        aggregates.getDamages().forEach((hero, targets) -> {
+            HeroRollup rollup = rollup(rollups, hero);
+            targets.values().forEach(totals -> {
+                rollup.damageInstances += totals.getInstances();
+                rollup.totalDamage += totals.getTotal();
+            });
+        });
+        aggregates.getSpells().forEach((hero, casts) -> {
+            Map<String, Usage> spells = rollup(rollups, hero).spells;
+            casts.forEach((ability, count) -> spells.put(ability, new Usage(count, 1)));
+        });
+        aggregates.getItems().forEach((hero, purchases) -> {
+            Map<String, Usage> items = rollup(rollups, hero).items;
+            purchases.forEach(purchase -> items.merge(purchase.getLeft(), new Usage(1, 1),
+                    (usage, one) -> new Usage(usage.count + 1, 1)));
+        });
+        return rollups;
+    }
+
+    private static HeroRollup rollup(Map<String, HeroRollup> rollups, String hero) {
+        return rollups.computeIfAbsent(hero, key -> {
+            HeroRollup rollup = new HeroRollup(key);
+            rollup.matches = 1;
+            return rollup;
+        });
+    }
+
+    /**
+     * Adds the totals of another rollup of the same hero.
+     */
+    public void add(HeroRollup other) {
+        matches += other.matches;
+        kills += other.kills;
+        damageInstances += other.damageInstances;
+        totalDamage += other.totalDamage;
+        other.items.forEach((item, usage) -> items.merge(item, usage, Usage::plus));
+        other.spells.forEach((ability, usage) -> spells.merge(ability, usage, Usage::plus));
+    }
+
+    /**
+     * How many times an item was bought or an ability cast, and in how many matches.
+     */
+    @Getter
+    public static class Usage {
+        private final long count;
+        private final long matches;
+
+        public Usage(long count, long matches) {
+            this.count = count;
+            this.matches = matches;
+        }
+
+        Usage plus(Usage other) {
+            return new Usage(count + other.count, matches + other.matches);
+        }
+    }
+}
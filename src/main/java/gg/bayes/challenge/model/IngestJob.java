@@ -0,0 +1,55 @@
+package gg.bayes.challenge.model;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * An asynchronous ingest of one combat log. Updated by the worker running it and read by status requests.
+ */
+@Getter
+public class IngestJob {
+
+    public enum State {
+        QUEUED,
+        PARSING,
+        PERSISTING,
+        DONE,
+        FAILED
+    }
+
+    private final String id;
+    private final Instant submittedAt;
+    private volatile State state = State.QUEUED;
+    private volatile Long matchId;
+    private volatile String error;
+    private volatile Instant finishedAt;
+
+    public IngestJob(String id) {
+        this.id = id;
+        this.submittedAt = Instant.now();
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public void done(Long matchId) {
+        this.matchId = matchId;
+        finish(State.DONE);
+    }
+
+    public void failed(String error) {
+        this.error = error;
+        finish(State.FAILED);
+    }
+
+    private void finish(State state) {
+        this.finishedAt = Instant.now();
+        this.state = state;
+    }
+
+    public boolean isFinished() {
+        return state == State.DONE || state == State.FAILED;
+    }
+}
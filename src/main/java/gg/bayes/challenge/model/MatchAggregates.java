@@ -0,0 +1,135 @@
+package gg.bayes.challenge.model;
+
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import lombok.Getter;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Running per-hero aggregates of a match and the fights detected so far, updated entry by entry while the combat log
+ * is parsed.
+ */
+@Getter
+public class MatchAggregates {
+
+    private final Map<String, Long> kills = new HashMap<>();
+    private final Map<String, Map<String, Long>> victims = new HashMap<>();
+    private final Map<String, Map<String, Long>> spells = new HashMap<>();
+    private final Map<String, Map<String, DamageTotals>> damages = new HashMap<>();
+    private final Map<String, List<Pair<String, Long>>> items = new HashMap<>();
+    private FightDetector fightDetector = new FightDetector();
+
+    public void add(CombatLogEntryEntity entry) {
+        String hero = entry.getActor();
+        fightDetector.add(entry);
+        switch (entry.getType()) {
+            case HERO_KILLED:
+                addKills(hero, 1);
+                addVictim(hero, entry.getTarget(), 1);
+                break;
+            case SPELL_CAST:
+                addCasts(hero, entry.getAbility(), 1);
+                break;
+            case DAMAGE_DONE:
+                addDamage(hero, entry.getTarget(), 1, entry.getDamage());
+                break;
+            case ITEM_PURCHASED:
+                addItem(hero, entry.getItem(), entry.getTimestamp());
+                break;
+            default:
+                break;
+        }
+    }
+
+    public void addKills(String hero, long count) {
+        kills.merge(hero, count, Long::sum);
+    }
+
+    /**
+     * Counts kills of the victim by the hero; the kills of the hero are counted apart, by {@link #addKills}.
+     */
+    public void addVictim(String hero, String victim, long count) {
+        victims.computeIfAbsent(hero, key -> new HashMap<>()).merge(victim, count, Long::sum);
+    }
+
+    public void addCasts(String hero, String ability, long count) {
+        spells.computeIfAbsent(hero, key -> new HashMap<>()).merge(ability, count, Long::sum);
+    }
+
+    public void addDamage(String hero, String target, int instances, int total) {
+        DamageTotals totals = damages.computeIfAbsent(hero, key -> new HashMap<>())
+                .computeIfAbsent(target, key -> new DamageTotals());
+        totals.instances += instances;
+        totals.total += total;
+    }
+
+    /**
+     * Appends a purchase; purchases of a hero must be added in purchase order.
+     */
+    public void addItem(String hero, String item, long timestamp) {
+        items.computeIfAbsent(hero, key -> new ArrayList<>()).add(new ImmutablePair<>(item, timestamp));
+    }
+
+    /**
+     * @return every hero with at least one kill, spell cast, damage instance or purchase, sorted by name
+     */
+    public SortedSet<String> heroes() {
+        SortedSet<String> heroes = new TreeSet<>(kills.keySet());
+        heroes.addAll(spells.keySet());
+        heroes.addAll(damages.keySet());
+        heroes.addAll(items.keySet());
+        return heroes;
+    }
+
+    /**
+     * @return a copy that later additions to this one do not change
+     */
+    public MatchAggregates copy() {
+        MatchAggregates copy = new MatchAggregates();
+        copy.kills.putAll(kills);
+        victims.forEach((hero, counts) -> copy.victims.put(hero, new HashMap<>(counts)));
+        spells.forEach((hero, casts) -> copy.spells.put(hero, new HashMap<>(casts)));
+        damages.forEach((hero, targets) -> targets.forEach((target, totals) ->
+                copy.addDamage(hero, target, totals.instances, totals.total)));
+        items.forEach((hero, purchases) -> copy.items.put(hero, new ArrayList<>(purchases)));
+        copy.fightDetector = fightDetector.copy();
+        return copy;
+    }
+
+    /**
+     * @return the items bought by the hero and their timestamps, in purchase order
+     */
+    public List<Pair<String, Long>> itemsOf(String hero) {
+        return new ArrayList<>(items.getOrDefault(hero, List.of()));
+    }
+
+    /**
+     * @return per ability, the number of times the hero cast it
+     */
+    public Map<String, Long> spellsOf(String hero) {
+        return new HashMap<>(spells.getOrDefault(hero, Map.of()));
+    }
+
+    /**
+     * @return per target, the number of damage instances and the total damage done by the hero
+     */
+    public Map<String, Pair<Integer, Integer>> damagesOf(String hero) {
+        Map<String, Pair<Integer, Integer>> result = new HashMap<>();
+        damages.getOrDefault(hero, Map.of()).forEach((target, totals) ->
+                result.put(target, new ImmutablePair<>(totals.getInstances(), totals.getTotal())));
+        return result;
+    }
+
+    @Getter
+    public static class DamageTotals {
+        private int instances;
+        private int total;
+    }
+}
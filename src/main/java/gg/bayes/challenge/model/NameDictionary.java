@@ -0,0 +1,144 @@
+package gg.bayes.challenge.model;
+
+import java.util.Arrays;
+
+/**
+ * Maps names to dense int ids, so each distinct name is stored once however often it occurs. Names can be looked up
+ * by a region of a {@link CharSequence}, which lets a parser resolve a name without allocating a string for it.
+ * Lookups are lock free; new names are assigned under a lock and published with a new copy of the table.
+ */
+public class NameDictionary {
+
+    private volatile Table table = new Table(new String[64], new int[128], 0);
+
+    /**
+     * @param name the name to encode
+     * @return the id of the name, assigning a new one if the name is not known yet
+     */
+    public int id(String name) {
+        int id = find(name);
+        return id >= 0 ? id : add(name);
+    }
+
+    /**
+     * @return the id of the characters between {@code start} and {@code end}, assigning a new one if the name is not
+     * known yet
+     */
+    public int id(CharSequence s, int start, int end) {
+        int id = find(s, start, end);
+        return id >= 0 ? id : add(s.subSequence(start, end).toString());
+    }
+
+    /**
+     * @param name the name to look up
+     * @return the id of the name, or -1 if it was never encoded
+     */
+    public int find(String name) {
+        return find(name, 0, name.length());
+    }
+
+    /**
+     * @return the id of the characters between {@code start} and {@code end}, or -1 if they were never encoded
+     */
+    public int find(CharSequence s, int start, int end) {
+        return table.find(s, start, end, hash(s, start, end));
+    }
+
+    /**
+     * @param id an id returned by {@link #id(String)}
+     * @return the name encoded with the given id
+     */
+    public String name(int id) {
+        return table.names[id];
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    private synchronized int add(String name) {
+        Table current = table;
+        int hash = hash(name, 0, name.length());
+        int id = current.find(name, 0, name.length(), hash);
+        if (id >= 0) {
+            return id;
+        }
+        id = current.size;
+        String canonical = name.intern();
+        table = current.with(canonical, hash);
+        return id;
+    }
+
+    private static int hash(CharSequence s, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + s.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Immutable snapshot of the dictionary: names by id and an open addressing index of ids by name hash.
+     */
+    private static final class Table {
+        private final String[] names;
+        private final int[] slots;
+        private final int size;
+
+        private Table(String[] names, int[] slots, int size) {
+            this.names = names;
+            this.slots = slots;
+            this.size = size;
+        }
+
+        private int find(CharSequence s, int start, int end, int hash) {
+            int mask = slots.length - 1;
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                int id = slots[slot] - 1;
+                if (id < 0) {
+                    return -1;
+                }
+                if (matches(names[id], s, start, end)) {
+                    return id;
+                }
+            }
+        }
+
+        private Table with(String name, int hash) {
+            String[] newNames = size < names.length ? names.clone() : Arrays.copyOf(names, names.length * 2);
+            newNames[size] = name;
+            int[] newSlots;
+            if ((size + 1) * 2 > slots.length) {
+                newSlots = new int[slots.length * 2];
+                for (int id = 0; id < size; id++) {
+                    insert(newSlots, hash(newNames[id], 0, newNames[id].length()), id);
+                }
+            } else {
+                newSlots = slots.clone();
+            }
+            insert(newSlots, hash, size);
+            return new Table(newNames, newSlots, size + 1);
+        }
+
+        private static void insert(int[] slots, int hash, int id) {
+            int mask = slots.length - 1;
+            int slot = hash & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+
+        private static boolean matches(String name, CharSequence s, int start, int end) {
+            if (name.length() != end - start) {
+                return false;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                if (name.charAt(i) != s.charAt(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package gg.bayes.challenge.model;
+
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Activity of one hero counted in fixed size time buckets. Buckets start at {@code origin} plus a multiple of the
+ * bucket size, and only buckets with at least one entry are kept.
+ */
+public class Timeline {
+
+    private final long origin;
+    private final long bucketSize;
+    private final TreeMap<Long, Bucket> buckets = new TreeMap<>();
+
+    public Timeline(long origin, long bucketSize) {
+        this.origin = origin;
+        this.bucketSize = bucketSize;
+    }
+
+    public void add(long timestamp, CombatLogEntryEntity.Type type, int damage) {
+        long index = Math.floorDiv(timestamp - origin, bucketSize);
+        Bucket bucket = buckets.computeIfAbsent(index, key -> new Bucket(origin + key * bucketSize, bucketSize));
+        switch (type) {
+            case HERO_KILLED:
+                bucket.kills++;
+                break;
+            case ITEM_PURCHASED:
+                bucket.itemPurchases++;
+                break;
+            case SPELL_CAST:
+                bucket.spellCasts++;
+                break;
+            case DAMAGE_DONE:
+                bucket.damageInstances++;
+                bucket.totalDamage += damage;
+                break;
+        }
+    }
+
+    /**
+     * @return the non-empty buckets, earliest first
+     */
+    public List<Bucket> getBuckets() {
+        return new ArrayList<>(buckets.values());
+    }
+
+    @Getter
+    public static class Bucket {
+        private final long start;
+        private final long end;
+        private long kills;
+        private long itemPurchases;
+        private long spellCasts;
+        private long damageInstances;
+        private long totalDamage;
+
+        Bucket(long start, long size) {
+            this.start = start;
+            this.end = start + size;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package gg.bayes.challenge.model.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.PAYLOAD_TOO_LARGE, reason = "The combat log is larger than allowed.")
+public class CombatLogTooLargeException extends RuntimeException {
+}
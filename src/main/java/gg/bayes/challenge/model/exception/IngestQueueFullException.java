@@ -0,0 +1,8 @@
+package gg.bayes.challenge.model.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "Too many combat logs waiting to be ingested, retry later.")
+public class IngestQueueFullException extends RuntimeException {
+}
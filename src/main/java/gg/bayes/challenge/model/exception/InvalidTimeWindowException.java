@@ -0,0 +1,8 @@
+package gg.bayes.challenge.model.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "The time window must end after it starts and buckets must be longer than 0 ms.")
+public class InvalidTimeWindowException extends RuntimeException {
+}
@@ -0,0 +1,8 @@
+package gg.bayes.challenge.model.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.NOT_FOUND, reason = "Job with given id not found.")
+public class JobNotFoundException extends RuntimeException {
+}
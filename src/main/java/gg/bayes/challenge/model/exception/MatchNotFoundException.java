@@ -5,4 +5,14 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 
 @ResponseStatus(value = HttpStatus.NOT_FOUND, reason = "Match with given id not found.")
 public class MatchNotFoundException extends RuntimeException {
+
+    public MatchNotFoundException() {
+    }
+
+    /**
+     * @param writableStackTrace false for a cached answer, which is thrown often and whose stack trace tells nothing
+     */
+    public MatchNotFoundException(boolean writableStackTrace) {
+        super(null, null, false, writableStackTrace);
+    }
 }
@@ -5,4 +5,14 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 
 @ResponseStatus(value = HttpStatus.NOT_FOUND, reason = "No result matched the given query.")
 public class NoResultException extends RuntimeException {
+
+    public NoResultException() {
+    }
+
+    /**
+     * @param writableStackTrace false for a cached answer, which is thrown often and whose stack trace tells nothing
+     */
+    public NoResultException(boolean writableStackTrace) {
+        super(null, null, false, writableStackTrace);
+    }
 }
@@ -0,0 +1,32 @@
+package gg.bayes.challenge.persistence.converter;
+
+import gg.bayes.challenge.persistence.repository.NameDictionaryRepository;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+@Component
+@Converter
+public class ItemNameConverter implements AttributeConverter<String, Integer> {
+
+    private final NameDictionaryRepository nameDictionaryRepository;
+
+    public ItemNameConverter(@Lazy NameDictionaryRepository nameDictionaryRepository) {
+        this.nameDictionaryRepository = nameDictionaryRepository;
+    }
+
+    /**
+     * Also converts query parameters, so an unknown name is -1, which matches nothing instead of failing the query.
+     */
+    @Override
+    public Integer convertToDatabaseColumn(String name) {
+        return nameDictionaryRepository.itemId(name);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer id) {
+        return nameDictionaryRepository.itemName(id);
+    }
+}
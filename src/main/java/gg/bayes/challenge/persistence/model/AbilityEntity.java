@@ -0,0 +1,9 @@
+package gg.bayes.challenge.persistence.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "dota_ability")
+public class AbilityEntity extends NameEntity {
+}
@@ -1,5 +1,8 @@
 package gg.bayes.challenge.persistence.model;
 
+import gg.bayes.challenge.persistence.converter.AbilityNameConverter;
+import gg.bayes.challenge.persistence.converter.HeroNameConverter;
+import gg.bayes.challenge.persistence.converter.ItemNameConverter;
 import lombok.*;
 
 import javax.persistence.*;
@@ -11,9 +14,15 @@ import javax.validation.constraints.NotNull;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "dota_combat_log")
+@Table(name = "dota_combat_log", indexes = @Index(name = "dota_combat_log_match_actor_time_idx", columnList = "match_id, actor_id, entry_timestamp"))
 public class CombatLogEntryEntity {
 
+    /**
+     * Number of ids reserved by one call to {@code dota_combat_log_sequence}. Ids are handed out with the pooled-lo
+     * strategy, i.e. a sequence value {@code v} reserves {@code [v, v + ID_ALLOCATION_SIZE)}.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @GeneratedValue(
             strategy = GenerationType.SEQUENCE,
             generator = "dota_combat_log_sequence_generator"
@@ -21,7 +30,7 @@ public class CombatLogEntryEntity {
     @SequenceGenerator(
             name = "dota_combat_log_sequence_generator",
             sequenceName = "dota_combat_log_sequence",
-            allocationSize = 1
+            allocationSize = ID_ALLOCATION_SIZE
     )
     @Id
     @Column(name = "id")
@@ -39,19 +48,26 @@ public class CombatLogEntryEntity {
     @Enumerated(EnumType.STRING)
     private Type type;
 
-    @Column(name = "actor")
+    /**
+     * Names are stored as ids into the name dictionary tables and converted back when the entry is read.
+     */
+    @Convert(converter = HeroNameConverter.class)
+    @Column(name = "actor_id")
     private String actor;
 
-    @Column(name = "target")
+    @Convert(converter = HeroNameConverter.class)
+    @Column(name = "target_id")
     private String target;
 
-    @Column(name = "ability")
+    @Convert(converter = AbilityNameConverter.class)
+    @Column(name = "ability_id")
     private String ability;
 
     @Column(name = "ability_level")
     private Integer abilityLevel;
 
-    @Column(name = "item")
+    @Convert(converter = ItemNameConverter.class)
+    @Column(name = "item_id")
     private String item;
 
     @Column(name = "damage")
@@ -0,0 +1,38 @@
+package gg.bayes.challenge.persistence.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "dota_fight")
+@IdClass(FightEntity.Key.class)
+public class FightEntity {
+
+    @Id
+    @Column(name = "match_id")
+    private Long matchId;
+
+    @Id
+    @Column(name = "fight_order")
+    private Integer fightOrder;
+
+    @Column(name = "start_timestamp", nullable = false)
+    private Long startTimestamp;
+
+    @Column(name = "end_timestamp", nullable = false)
+    private Long endTimestamp;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long matchId;
+        private Integer fightOrder;
+    }
+}
@@ -0,0 +1,52 @@
+package gg.bayes.challenge.persistence.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "dota_fight_hero")
+@IdClass(FightHeroEntity.Key.class)
+public class FightHeroEntity {
+
+    @Id
+    @Column(name = "match_id")
+    private Long matchId;
+
+    @Id
+    @Column(name = "fight_order")
+    private Integer fightOrder;
+
+    @Id
+    @Column(name = "hero")
+    private String hero;
+
+    @Column(name = "kills", nullable = false)
+    private Integer kills;
+
+    @Column(name = "deaths", nullable = false)
+    private Integer deaths;
+
+    @Column(name = "damage", nullable = false)
+    private Long damage;
+
+    @Column(name = "streak", nullable = false)
+    private Integer streak;
+
+    @Column(name = "burst_damage", nullable = false)
+    private Long burstDamage;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long matchId;
+        private Integer fightOrder;
+        private String hero;
+    }
+}
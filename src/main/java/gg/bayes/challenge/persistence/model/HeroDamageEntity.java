@@ -0,0 +1,43 @@
+package gg.bayes.challenge.persistence.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "dota_hero_damage", indexes = @Index(name = "dota_hero_damage_match_hero_idx", columnList = "match_id, hero"))
+@IdClass(HeroDamageEntity.Key.class)
+public class HeroDamageEntity {
+
+    @Id
+    @Column(name = "match_id")
+    private Long matchId;
+
+    @Id
+    @Column(name = "hero")
+    private String hero;
+
+    @Id
+    @Column(name = "target")
+    private String target;
+
+    @Column(name = "damage_instances")
+    private Integer damageInstances;
+
+    @Column(name = "total_damage")
+    private Integer totalDamage;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long matchId;
+        private String hero;
+        private String target;
+    }
+}
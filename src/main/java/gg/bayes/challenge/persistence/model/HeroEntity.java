@@ -0,0 +1,12 @@
+package gg.bayes.challenge.persistence.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+/**
+ * Names of heroes, and of the other units that appear as spell targets.
+ */
+@Entity
+@Table(name = "dota_hero")
+public class HeroEntity extends NameEntity {
+}
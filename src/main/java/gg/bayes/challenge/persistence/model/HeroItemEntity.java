@@ -0,0 +1,43 @@
+package gg.bayes.challenge.persistence.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "dota_hero_items", indexes = @Index(name = "dota_hero_items_match_hero_idx", columnList = "match_id, hero, purchase_order"))
+@IdClass(HeroItemEntity.Key.class)
+public class HeroItemEntity {
+
+    @Id
+    @Column(name = "match_id")
+    private Long matchId;
+
+    @Id
+    @Column(name = "hero")
+    private String hero;
+
+    @Id
+    @Column(name = "purchase_order")
+    private Integer purchaseOrder;
+
+    @Column(name = "item")
+    private String item;
+
+    @Column(name = "entry_timestamp")
+    private Long timestamp;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long matchId;
+        private String hero;
+        private Integer purchaseOrder;
+    }
+}
@@ -0,0 +1,41 @@
+package gg.bayes.challenge.persistence.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * Purchases of an item by a hero over every stored match, and the number of matches with at least one.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "dota_hero_item_stats")
+@IdClass(HeroItemStatsEntity.Key.class)
+public class HeroItemStatsEntity {
+
+    @Id
+    @Column(name = "hero")
+    private String hero;
+
+    @Id
+    @Column(name = "item")
+    private String item;
+
+    @Column(name = "purchases")
+    private Long purchases;
+
+    @Column(name = "matches")
+    private Long matches;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String hero;
+        private String item;
+    }
+}
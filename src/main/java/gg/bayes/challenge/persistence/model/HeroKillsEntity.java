@@ -0,0 +1,35 @@
+package gg.bayes.challenge.persistence.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "dota_hero_kills", indexes = @Index(name = "dota_hero_kills_match_idx", columnList = "match_id"))
+@IdClass(HeroKillsEntity.Key.class)
+public class HeroKillsEntity {
+
+    @Id
+    @Column(name = "match_id")
+    private Long matchId;
+
+    @Id
+    @Column(name = "hero")
+    private String hero;
+
+    @Column(name = "kills")
+    private Long kills;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long matchId;
+        private String hero;
+    }
+}
@@ -0,0 +1,41 @@
+package gg.bayes.challenge.persistence.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * Casts of an ability by a hero over every stored match, and the number of matches with at least one.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "dota_hero_spell_stats")
+@IdClass(HeroSpellStatsEntity.Key.class)
+public class HeroSpellStatsEntity {
+
+    @Id
+    @Column(name = "hero")
+    private String hero;
+
+    @Id
+    @Column(name = "ability")
+    private String ability;
+
+    @Column(name = "casts")
+    private Long casts;
+
+    @Column(name = "matches")
+    private Long matches;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String hero;
+        private String ability;
+    }
+}
@@ -0,0 +1,40 @@
+package gg.bayes.challenge.persistence.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "dota_hero_spells", indexes = @Index(name = "dota_hero_spells_match_hero_idx", columnList = "match_id, hero"))
+@IdClass(HeroSpellsEntity.Key.class)
+public class HeroSpellsEntity {
+
+    @Id
+    @Column(name = "match_id")
+    private Long matchId;
+
+    @Id
+    @Column(name = "hero")
+    private String hero;
+
+    @Id
+    @Column(name = "ability")
+    private String ability;
+
+    @Column(name = "casts")
+    private Long casts;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long matchId;
+        private String hero;
+        private String ability;
+    }
+}
@@ -0,0 +1,33 @@
+package gg.bayes.challenge.persistence.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+/**
+ * Totals of a hero over every stored match, updated by each ingest.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "dota_hero_stats")
+public class HeroStatsEntity {
+
+    @Id
+    @Column(name = "hero")
+    private String hero;
+
+    @Column(name = "matches")
+    private Long matches;
+
+    @Column(name = "kills")
+    private Long kills;
+
+    @Column(name = "damage_instances")
+    private Long damageInstances;
+
+    @Column(name = "total_damage")
+    private Long totalDamage;
+}
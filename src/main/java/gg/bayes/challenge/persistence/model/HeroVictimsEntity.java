@@ -0,0 +1,40 @@
+package gg.bayes.challenge.persistence.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "dota_hero_victims", indexes = @Index(name = "dota_hero_victims_match_idx", columnList = "match_id"))
+@IdClass(HeroVictimsEntity.Key.class)
+public class HeroVictimsEntity {
+
+    @Id
+    @Column(name = "match_id")
+    private Long matchId;
+
+    @Id
+    @Column(name = "hero")
+    private String hero;
+
+    @Id
+    @Column(name = "victim")
+    private String victim;
+
+    @Column(name = "kills")
+    private Long kills;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long matchId;
+        private String hero;
+        private String victim;
+    }
+}
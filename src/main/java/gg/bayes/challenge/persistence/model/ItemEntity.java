@@ -0,0 +1,9 @@
+package gg.bayes.challenge.persistence.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "dota_item")
+public class ItemEntity extends NameEntity {
+}
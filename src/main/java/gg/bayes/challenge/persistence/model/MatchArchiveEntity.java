@@ -0,0 +1,38 @@
+package gg.bayes.challenge.persistence.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+/**
+ * The gzip compressed combat log of a match ingested lazily. Its entries and aggregates are only stored while the
+ * match is resident, from the first query that touches it until it is evicted.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "dota_match_archive")
+public class MatchArchiveEntity {
+
+    @Id
+    @Column(name = "match_id")
+    private Long matchId;
+
+    @Lob
+    @Column(name = "content", nullable = false)
+    private byte[] content;
+
+    /**
+     * Length of the combat log before compression, in bytes.
+     */
+    @Column(name = "raw_size", nullable = false)
+    private long rawSize;
+
+    /**
+     * Whether the entries and aggregates of the match are currently stored.
+     */
+    @Column(name = "resident", nullable = false)
+    private boolean resident;
+}
@@ -4,13 +4,11 @@ import lombok.Getter;
 import lombok.Setter;
 
 import javax.persistence.*;
-import java.util.HashSet;
-import java.util.Set;
 
 @Getter
 @Setter
 @Entity
-@Table(name = "dota_match")
+@Table(name = "dota_match", indexes = @Index(name = "dota_match_source_hash_idx", columnList = "source_hash"))
 public class MatchEntity {
 
     @GeneratedValue(
@@ -26,12 +24,22 @@ public class MatchEntity {
     @Column(name = "id")
     private Long id;
 
-    @OneToMany(mappedBy = "match", cascade = CascadeType.PERSIST)
-    private Set<CombatLogEntryEntity> combatLogEntries = new HashSet<>();
+    /**
+     * Whether per-hero aggregates were stored for this match at ingest time.
+     */
+    @Column(name = "aggregated")
+    private boolean aggregated;
 
-    public void addCombatLogEntry(CombatLogEntryEntity combatLogEntry) {
-        combatLogEntries.add(combatLogEntry);
-        combatLogEntry.setMatch(this);
-    }
+    /**
+     * Whether the fights of this match were detected at ingest time and stored in {@code dota_fight}.
+     */
+    @Column(name = "fights_detected")
+    private boolean fightsDetected;
+
+    /**
+     * Hex encoded SHA-256 of the combat log the match was loaded from, when the source is tracked.
+     */
+    @Column(name = "source_hash", length = 64)
+    private String sourceHash;
 
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package gg.bayes.challenge.persistence.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+import javax.persistence.MappedSuperclass;
+
+/**
+ * Entry of a name dictionary table. Ids are dense and assigned in memory by
+ * {@link gg.bayes.challenge.persistence.repository.NameDictionaryRepository}.
+ */
+@Getter
+@Setter
+@MappedSuperclass
+public abstract class NameEntity {
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    @Column(name = "name", nullable = false, unique = true)
+    private String name;
+}
@@ -0,0 +1,31 @@
+package gg.bayes.challenge.persistence.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+/**
+ * A file read by the bootstrap, with the size and modification time it had then. A file found unchanged at the next
+ * startup is skipped without being read.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "dota_source_file")
+public class SourceFileEntity {
+
+    @Id
+    @Column(name = "path", length = 1024)
+    private String path;
+
+    @Column(name = "size", nullable = false)
+    private long size;
+
+    @Column(name = "last_modified", nullable = false)
+    private long lastModified;
+
+    @Column(name = "source_hash", length = 64, nullable = false)
+    private String sourceHash;
+}
@@ -0,0 +1,9 @@
+package gg.bayes.challenge.persistence.projection;
+
+public interface ArchiveState {
+
+    Long getMatchId();
+
+    Boolean getResident();
+
+}
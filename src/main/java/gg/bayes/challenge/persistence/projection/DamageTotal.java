@@ -0,0 +1,11 @@
+package gg.bayes.challenge.persistence.projection;
+
+public interface DamageTotal {
+
+    String getTarget();
+
+    Long getInstances();
+
+    Long getTotal();
+
+}
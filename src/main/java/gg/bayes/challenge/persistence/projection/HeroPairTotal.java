@@ -0,0 +1,17 @@
+package gg.bayes.challenge.persistence.projection;
+
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+
+public interface HeroPairTotal {
+
+    String getActor();
+
+    String getTarget();
+
+    CombatLogEntryEntity.Type getType();
+
+    Long getCount();
+
+    Long getTotal();
+
+}
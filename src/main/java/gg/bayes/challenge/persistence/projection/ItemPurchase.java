@@ -0,0 +1,9 @@
+package gg.bayes.challenge.persistence.projection;
+
+public interface ItemPurchase {
+
+    String getItem();
+
+    Long getTimestamp();
+
+}
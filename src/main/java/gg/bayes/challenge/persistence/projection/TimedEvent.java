@@ -0,0 +1,13 @@
+package gg.bayes.challenge.persistence.projection;
+
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+
+public interface TimedEvent {
+
+    CombatLogEntryEntity.Type getType();
+
+    Long getTimestamp();
+
+    Integer getDamage();
+
+}
@@ -0,0 +1,86 @@
+package gg.bayes.challenge.persistence.repository;
+
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+@Repository
+public class CombatLogEntryBatchWriter {
+
+    private static final String NEXT_ID_BLOCK = "SELECT NEXT VALUE FOR dota_combat_log_sequence";
+    private static final String INSERT = "INSERT INTO dota_combat_log "
+            + "(id, match_id, entry_timestamp, entry_type, actor_id, target_id, ability_id, ability_level, item_id, damage) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE = "DELETE FROM dota_combat_log WHERE match_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NameDictionaryRepository nameDictionaryRepository;
+
+    private long nextId;
+    private long idLimit;
+
+    public CombatLogEntryBatchWriter(JdbcTemplate jdbcTemplate, NameDictionaryRepository nameDictionaryRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nameDictionaryRepository = nameDictionaryRepository;
+    }
+
+    /**
+     * Inserts the entries with a single JDBC batch. Ids are taken from blocks of
+     * {@link CombatLogEntryEntity#ID_ALLOCATION_SIZE} reserved on the entry sequence, so ids never collide with those
+     * allocated by Hibernate. The match of every entry must already be flushed and the names of every entry registered
+     * with {@link NameDictionaryRepository#register(List)}.
+     *
+     * @param entries the entries to insert, associated with their match
+     */
+    public void insert(List<CombatLogEntryEntity> entries) {
+        for (CombatLogEntryEntity entry : entries) {
+            entry.setId(nextId());
+        }
+        jdbcTemplate.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                CombatLogEntryEntity entry = entries.get(i);
+                ps.setLong(1, entry.getId());
+                ps.setLong(2, entry.getMatch().getId());
+                ps.setLong(3, entry.getTimestamp());
+                ps.setString(4, entry.getType().name());
+                ps.setObject(5, nameDictionaryRepository.requireHeroId(entry.getActor()), Types.INTEGER);
+                ps.setObject(6, nameDictionaryRepository.requireHeroId(entry.getTarget()), Types.INTEGER);
+                ps.setObject(7, nameDictionaryRepository.requireAbilityId(entry.getAbility()), Types.INTEGER);
+                ps.setObject(8, entry.getAbilityLevel(), Types.INTEGER);
+                ps.setObject(9, nameDictionaryRepository.requireItemId(entry.getItem()), Types.INTEGER);
+                ps.setObject(10, entry.getDamage(), Types.INTEGER);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return entries.size();
+            }
+        });
+    }
+
+    /**
+     * Deletes every entry of a match.
+     *
+     * @param matchId the match identifier
+     * @return the number of entries deleted
+     */
+    public int delete(long matchId) {
+        return jdbcTemplate.update(DELETE, matchId);
+    }
+
+    private synchronized long nextId() {
+        if (nextId == idLimit) {
+            Long low = jdbcTemplate.queryForObject(NEXT_ID_BLOCK, Long.class);
+            nextId = low;
+            idLimit = low + CombatLogEntryEntity.ID_ALLOCATION_SIZE;
+        }
+        return nextId++;
+    }
+}
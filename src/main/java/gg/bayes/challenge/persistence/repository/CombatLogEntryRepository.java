@@ -1,18 +1,83 @@
 package gg.bayes.challenge.persistence.repository;
 
 import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
-import gg.bayes.challenge.persistence.model.MatchEntity;
+import gg.bayes.challenge.persistence.projection.DamageTotal;
+import gg.bayes.challenge.persistence.projection.HeroPairTotal;
+import gg.bayes.challenge.persistence.projection.ItemPurchase;
+import gg.bayes.challenge.persistence.projection.NameCount;
+import gg.bayes.challenge.persistence.projection.TimedEvent;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import javax.validation.constraints.NotNull;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface CombatLogEntryRepository extends JpaRepository<CombatLogEntryEntity, Long> {
 
-    List<CombatLogEntryEntity> findCombatLogEntryEntitiesByMatchAndType(MatchEntity match, CombatLogEntryEntity.@NotNull Type type);
+    @Query("SELECT e FROM CombatLogEntryEntity e WHERE e.match.id = :matchId ORDER BY e.id")
+    Stream<CombatLogEntryEntity> streamByMatchId(@Param("matchId") Long matchId);
 
-    List<CombatLogEntryEntity> findCombatLogEntryEntitiesByMatchAndActorAndType(MatchEntity match, String actor, CombatLogEntryEntity.@NotNull Type type);
+    @Query("SELECT DISTINCT e.actor FROM CombatLogEntryEntity e WHERE e.match.id = :matchId")
+    List<String> findActors(@Param("matchId") Long matchId);
+
+    @Query("SELECT e.actor AS name, COUNT(e) AS count FROM CombatLogEntryEntity e "
+            + "WHERE e.match.id = :matchId AND e.type = :type GROUP BY e.actor")
+    List<NameCount> countByActor(@Param("matchId") Long matchId, @Param("type") CombatLogEntryEntity.Type type);
+
+    @Query("SELECT e.ability AS name, COUNT(e) AS count FROM CombatLogEntryEntity e "
+            + "WHERE e.match.id = :matchId AND e.type = :type AND e.actor = :actor GROUP BY e.ability")
+    List<NameCount> countByAbility(@Param("matchId") Long matchId, @Param("actor") String actor,
+                                   @Param("type") CombatLogEntryEntity.Type type);
+
+    @Query("SELECT e.target AS target, COUNT(e) AS instances, SUM(e.damage) AS total FROM CombatLogEntryEntity e "
+            + "WHERE e.match.id = :matchId AND e.type = :type AND e.actor = :actor GROUP BY e.target")
+    List<DamageTotal> sumDamageByTarget(@Param("matchId") Long matchId, @Param("actor") String actor,
+                                        @Param("type") CombatLogEntryEntity.Type type);
+
+    @Query("SELECT e.item AS item, e.timestamp AS timestamp FROM CombatLogEntryEntity e "
+            + "WHERE e.match.id = :matchId AND e.type = :type AND e.actor = :actor ORDER BY e.timestamp, e.id")
+    List<ItemPurchase> findItemPurchases(@Param("matchId") Long matchId, @Param("actor") String actor,
+                                         @Param("type") CombatLogEntryEntity.Type type);
+
+    @Query("SELECT e.actor AS actor, e.target AS target, e.type AS type, COUNT(e) AS count, SUM(e.damage) AS total "
+            + "FROM CombatLogEntryEntity e WHERE e.match.id = :matchId AND e.type IN :types "
+            + "GROUP BY e.actor, e.target, e.type")
+    List<HeroPairTotal> sumByActorAndTarget(@Param("matchId") Long matchId,
+                                            @Param("types") Collection<CombatLogEntryEntity.Type> types);
+
+    /*
+     * Time windowed variants, served by the (match_id, actor_id, entry_timestamp) index: they read the entries of the
+     * hero within the window only. Windows are half open, [from, to).
+     */
+
+    @Query("SELECT e.ability AS name, COUNT(e) AS count FROM CombatLogEntryEntity e "
+            + "WHERE e.match.id = :matchId AND e.actor = :actor AND e.timestamp >= :from AND e.timestamp < :to "
+            + "AND e.type = :type GROUP BY e.ability")
+    List<NameCount> countByAbilityBetween(@Param("matchId") Long matchId, @Param("actor") String actor,
+                                          @Param("from") Long from, @Param("to") Long to,
+                                          @Param("type") CombatLogEntryEntity.Type type);
+
+    @Query("SELECT e.target AS target, COUNT(e) AS instances, SUM(e.damage) AS total FROM CombatLogEntryEntity e "
+            + "WHERE e.match.id = :matchId AND e.actor = :actor AND e.timestamp >= :from AND e.timestamp < :to "
+            + "AND e.type = :type GROUP BY e.target")
+    List<DamageTotal> sumDamageByTargetBetween(@Param("matchId") Long matchId, @Param("actor") String actor,
+                                               @Param("from") Long from, @Param("to") Long to,
+                                               @Param("type") CombatLogEntryEntity.Type type);
+
+    @Query("SELECT e.item AS item, e.timestamp AS timestamp FROM CombatLogEntryEntity e "
+            + "WHERE e.match.id = :matchId AND e.actor = :actor AND e.timestamp >= :from AND e.timestamp < :to "
+            + "AND e.type = :type ORDER BY e.timestamp, e.id")
+    List<ItemPurchase> findItemPurchasesBetween(@Param("matchId") Long matchId, @Param("actor") String actor,
+                                                @Param("from") Long from, @Param("to") Long to,
+                                                @Param("type") CombatLogEntryEntity.Type type);
+
+    @Query("SELECT e.type AS type, e.timestamp AS timestamp, e.damage AS damage FROM CombatLogEntryEntity e "
+            + "WHERE e.match.id = :matchId AND e.actor = :actor AND e.timestamp >= :from AND e.timestamp < :to")
+    List<TimedEvent> findEventsBetween(@Param("matchId") Long matchId, @Param("actor") String actor,
+                                       @Param("from") Long from, @Param("to") Long to);
 
 }
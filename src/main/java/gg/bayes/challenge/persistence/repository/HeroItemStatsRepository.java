@@ -0,0 +1,14 @@
+package gg.bayes.challenge.persistence.repository;
+
+import gg.bayes.challenge.persistence.model.HeroItemStatsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface HeroItemStatsRepository extends JpaRepository<HeroItemStatsEntity, HeroItemStatsEntity.Key> {
+
+    List<HeroItemStatsEntity> findByHero(String hero);
+
+}
@@ -0,0 +1,72 @@
+package gg.bayes.challenge.persistence.repository;
+
+import gg.bayes.challenge.model.HeroRollup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class HeroRollupWriter {
+
+    private static final String UPDATE_STATS = "UPDATE dota_hero_stats SET matches = matches + ?, kills = kills + ?, "
+            + "damage_instances = damage_instances + ?, total_damage = total_damage + ? WHERE hero = ?";
+    private static final String INSERT_STATS = "INSERT INTO dota_hero_stats "
+            + "(matches, kills, damage_instances, total_damage, hero) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_ITEMS = "UPDATE dota_hero_item_stats SET purchases = purchases + ?, "
+            + "matches = matches + ? WHERE hero = ? AND item = ?";
+    private static final String INSERT_ITEMS = "INSERT INTO dota_hero_item_stats (purchases, matches, hero, item) "
+            + "VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_SPELLS = "UPDATE dota_hero_spell_stats SET casts = casts + ?, "
+            + "matches = matches + ? WHERE hero = ? AND ability = ?";
+    private static final String INSERT_SPELLS = "INSERT INTO dota_hero_spell_stats (casts, matches, hero, ability) "
+            + "VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public HeroRollupWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds the rollups of a match to the stored ones: one batch of increments per table, then one batch inserting the
+     * rows that did not exist. Callers must not add rollups of the same hero concurrently.
+     *
+     * @param rollups per hero, the contribution of one match
+     */
+    public void add(Collection<HeroRollup> rollups) {
+        List<Object[]> stats = new ArrayList<>();
+        List<Object[]> items = new ArrayList<>();
+        List<Object[]> spells = new ArrayList<>();
+        for (HeroRollup rollup : rollups) {
+            String hero = rollup.getHero();
+            stats.add(new Object[]{rollup.getMatches(), rollup.getKills(), rollup.getDamageInstances(),
+                    rollup.getTotalDamage(), hero});
+            rollup.getItems().forEach((item, usage) ->
+                    items.add(new Object[]{usage.getCount(), usage.getMatches(), hero, item}));
+            rollup.getSpells().forEach((ability, usage) ->
+                    spells.add(new Object[]{usage.getCount(), usage.getMatches(), hero, ability}));
+        }
+        upsert(UPDATE_STATS, INSERT_STATS, stats);
+        upsert(UPDATE_ITEMS, INSERT_ITEMS, items);
+        upsert(UPDATE_SPELLS, INSERT_SPELLS, spells);
+    }
+
+    private void upsert(String update, String insert, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        int[] updated = jdbcTemplate.batchUpdate(update, rows);
+        List<Object[]> missing = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                missing.add(rows.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(insert, missing);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package gg.bayes.challenge.persistence.repository;
+
+import gg.bayes.challenge.persistence.model.HeroSpellStatsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface HeroSpellStatsRepository extends JpaRepository<HeroSpellStatsEntity, HeroSpellStatsEntity.Key> {
+
+    List<HeroSpellStatsEntity> findByHero(String hero);
+
+}
@@ -0,0 +1,152 @@
+package gg.bayes.challenge.persistence.repository;
+
+import gg.bayes.challenge.model.Fight;
+import gg.bayes.challenge.model.HeroMatrix;
+import gg.bayes.challenge.model.MatchAggregates;
+import gg.bayes.challenge.rest.model.HeroDamage;
+import gg.bayes.challenge.rest.model.HeroItem;
+import gg.bayes.challenge.rest.model.HeroKills;
+import gg.bayes.challenge.rest.model.HeroSpells;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the aggregates stored by {@link MatchAggregateWriter} with plain JDBC, straight from the result set into the
+ * responses the queries return. Loading them as entities went through the persistence context, which allocated
+ * tens of kilobytes per query.
+ */
+@Repository
+public class MatchAggregateReader {
+
+    private static final String SELECT_KILLS = "SELECT hero, kills FROM dota_hero_kills WHERE match_id = ?";
+    private static final String SELECT_ITEMS = "SELECT item, entry_timestamp FROM dota_hero_items "
+            + "WHERE match_id = ? AND hero = ? ORDER BY purchase_order";
+    private static final String SELECT_SPELLS = "SELECT ability, casts FROM dota_hero_spells "
+            + "WHERE match_id = ? AND hero = ?";
+    private static final String SELECT_DAMAGE = "SELECT target, damage_instances, total_damage FROM dota_hero_damage "
+            + "WHERE match_id = ? AND hero = ?";
+    private static final String SELECT_ALL_VICTIMS = "SELECT hero, victim, kills FROM dota_hero_victims "
+            + "WHERE match_id = ?";
+    private static final String SELECT_ALL_ITEMS = "SELECT hero, item, entry_timestamp FROM dota_hero_items "
+            + "WHERE match_id = ? ORDER BY hero, purchase_order";
+    private static final String SELECT_ALL_SPELLS = "SELECT hero, ability, casts FROM dota_hero_spells "
+            + "WHERE match_id = ?";
+    private static final String SELECT_ALL_DAMAGE = "SELECT hero, target, damage_instances, total_damage "
+            + "FROM dota_hero_damage WHERE match_id = ?";
+    private static final String SELECT_FIGHTS = "SELECT fight_order, start_timestamp, end_timestamp FROM dota_fight "
+            + "WHERE match_id = ? ORDER BY fight_order";
+    private static final String SELECT_FIGHT_HEROES = "SELECT fight_order, hero, kills, deaths, damage, streak, "
+            + "burst_damage FROM dota_fight_hero WHERE match_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MatchAggregateReader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return per hero, the kills stored for the match
+     */
+    public List<HeroKills> readKills(long matchId) {
+        List<HeroKills> kills = new ArrayList<>();
+        jdbcTemplate.query(SELECT_KILLS, rs -> {
+            kills.add(new HeroKills(rs.getString(1), rs.getInt(2)));
+        }, matchId);
+        return kills;
+    }
+
+    /**
+     * @return the items bought by the hero and their timestamps, in purchase order
+     */
+    public List<HeroItem> readItems(long matchId, String hero) {
+        List<HeroItem> items = new ArrayList<>();
+        jdbcTemplate.query(SELECT_ITEMS, rs -> {
+            items.add(new HeroItem(rs.getString(1), rs.getLong(2)));
+        }, matchId, hero);
+        return items;
+    }
+
+    /**
+     * @return per ability, the number of times the hero cast it
+     */
+    public List<HeroSpells> readSpells(long matchId, String hero) {
+        List<HeroSpells> spells = new ArrayList<>();
+        jdbcTemplate.query(SELECT_SPELLS, rs -> {
+            spells.add(new HeroSpells(rs.getString(1), rs.getInt(2)));
+        }, matchId, hero);
+        return spells;
+    }
+
+    /**
+     * @return per target, the number of damage instances and the total damage done by the hero
+     */
+    public List<HeroDamage> readDamages(long matchId, String hero) {
+        List<HeroDamage> damages = new ArrayList<>();
+        jdbcTemplate.query(SELECT_DAMAGE, rs -> {
+            damages.add(new HeroDamage(rs.getString(1), rs.getInt(2), rs.getInt(3)));
+        }, matchId, hero);
+        return damages;
+    }
+
+    /**
+     * Reads the damage and kills of every hero on every other hero, from the damage and victims tables.
+     *
+     * @return the matrix of the match, empty if no aggregates were stored
+     */
+    public HeroMatrix readMatrix(long matchId) {
+        HeroMatrix.Builder builder = new HeroMatrix.Builder();
+        jdbcTemplate.query(SELECT_ALL_DAMAGE, rs -> {
+            builder.addDamage(builder.index(rs.getString(1)), builder.index(rs.getString(2)), rs.getInt(3),
+                    rs.getInt(4));
+        }, matchId);
+        jdbcTemplate.query(SELECT_ALL_VICTIMS, rs -> {
+            builder.addKills(builder.index(rs.getString(1)), builder.index(rs.getString(2)), rs.getInt(3));
+        }, matchId);
+        return builder.build();
+    }
+
+    /**
+     * @return the fights detected in the match, earliest first
+     */
+    public List<Fight> readFights(long matchId) {
+        List<Fight> fights = new ArrayList<>();
+        jdbcTemplate.query(SELECT_FIGHTS, rs -> {
+            fights.add(new Fight(rs.getLong(2), rs.getLong(3)));
+        }, matchId);
+        if (!fights.isEmpty()) {
+            jdbcTemplate.query(SELECT_FIGHT_HEROES, rs -> {
+                fights.get(rs.getInt(1)).add(rs.getString(2), rs.getInt(3), rs.getInt(4), rs.getLong(5), rs.getInt(6),
+                        rs.getLong(7));
+            }, matchId);
+        }
+        return fights;
+    }
+
+    /**
+     * Reads every aggregate of a match, one query per aggregate table.
+     *
+     * @return the aggregates of the match, empty if none were stored
+     */
+    public MatchAggregates readAll(long matchId) {
+        MatchAggregates aggregates = new MatchAggregates();
+        jdbcTemplate.query(SELECT_KILLS, rs -> {
+            aggregates.addKills(rs.getString(1), rs.getLong(2));
+        }, matchId);
+        jdbcTemplate.query(SELECT_ALL_VICTIMS, rs -> {
+            aggregates.addVictim(rs.getString(1), rs.getString(2), rs.getLong(3));
+        }, matchId);
+        jdbcTemplate.query(SELECT_ALL_SPELLS, rs -> {
+            aggregates.addCasts(rs.getString(1), rs.getString(2), rs.getLong(3));
+        }, matchId);
+        jdbcTemplate.query(SELECT_ALL_DAMAGE, rs -> {
+            aggregates.addDamage(rs.getString(1), rs.getString(2), rs.getInt(3), rs.getInt(4));
+        }, matchId);
+        jdbcTemplate.query(SELECT_ALL_ITEMS, rs -> {
+            aggregates.addItem(rs.getString(1), rs.getString(2), rs.getLong(3));
+        }, matchId);
+        return aggregates;
+    }
+}
@@ -0,0 +1,99 @@
+package gg.bayes.challenge.persistence.repository;
+
+import gg.bayes.challenge.model.Fight;
+import gg.bayes.challenge.model.MatchAggregates;
+import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+public class MatchAggregateWriter {
+
+    private static final String INSERT_KILLS = "INSERT INTO dota_hero_kills (match_id, hero, kills) VALUES (?, ?, ?)";
+    private static final String INSERT_VICTIMS = "INSERT INTO dota_hero_victims (match_id, hero, victim, kills) "
+            + "VALUES (?, ?, ?, ?)";
+    private static final String INSERT_SPELLS = "INSERT INTO dota_hero_spells (match_id, hero, ability, casts) "
+            + "VALUES (?, ?, ?, ?)";
+    private static final String INSERT_DAMAGE = "INSERT INTO dota_hero_damage "
+            + "(match_id, hero, target, damage_instances, total_damage) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_ITEMS = "INSERT INTO dota_hero_items "
+            + "(match_id, hero, purchase_order, item, entry_timestamp) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_FIGHT = "INSERT INTO dota_fight "
+            + "(match_id, fight_order, start_timestamp, end_timestamp) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_FIGHT_HERO = "INSERT INTO dota_fight_hero "
+            + "(match_id, fight_order, hero, kills, deaths, damage, streak, burst_damage) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final List<String> TABLES = List.of("dota_hero_kills", "dota_hero_victims", "dota_hero_spells",
+            "dota_hero_damage", "dota_hero_items", "dota_fight", "dota_fight_hero");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MatchAggregateWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the aggregates of a match, one JDBC batch per aggregate table.
+     *
+     * @param matchId    the match identifier
+     * @param aggregates the aggregates computed while parsing the match
+     */
+    public void insert(long matchId, MatchAggregates aggregates) {
+        List<Object[]> kills = new ArrayList<>();
+        aggregates.getKills().forEach((hero, count) -> kills.add(new Object[]{matchId, hero, count}));
+        jdbcTemplate.batchUpdate(INSERT_KILLS, kills);
+
+        List<Object[]> victims = new ArrayList<>();
+        aggregates.getVictims().forEach((hero, counts) ->
+                counts.forEach((victim, count) -> victims.add(new Object[]{matchId, hero, victim, count})));
+        jdbcTemplate.batchUpdate(INSERT_VICTIMS, victims);
+
+        List<Object[]> spells = new ArrayList<>();
+        aggregates.getSpells().forEach((hero, casts) ->
+                casts.forEach((ability, count) -> spells.add(new Object[]{matchId, hero, ability, count})));
+        jdbcTemplate.batchUpdate(INSERT_SPELLS, spells);
+
+        List<Object[]> damages = new ArrayList<>();
+        aggregates.getDamages().forEach((hero, targets) -> targets.forEach((target, totals) ->
+                damages.add(new Object[]{matchId, hero, target, totals.getInstances(), totals.getTotal()})));
+        jdbcTemplate.batchUpdate(INSERT_DAMAGE, damages);
+
+        List<Object[]> items = new ArrayList<>();
+        aggregates.getItems().forEach((hero, purchases) -> {
+            for (int i = 0; i < purchases.size(); i++) {
+                Pair<String, Long> purchase = purchases.get(i);
+                items.add(new Object[]{matchId, hero, i, purchase.getLeft(), purchase.getRight()});
+            }
+        });
+        jdbcTemplate.batchUpdate(INSERT_ITEMS, items);
+
+        List<Object[]> fights = new ArrayList<>();
+        List<Object[]> participants = new ArrayList<>();
+        List<Fight> detected = aggregates.getFightDetector().fights();
+        for (int i = 0; i < detected.size(); i++) {
+            Fight fight = detected.get(i);
+            int order = i;
+            fights.add(new Object[]{matchId, order, fight.getStart(), fight.getEnd()});
+            fight.getParticipants().forEach((hero, participant) -> participants.add(new Object[]{matchId, order, hero,
+                    participant.getKills(), participant.getDeaths(), participant.getDamage(), participant.getStreak(),
+                    participant.getBurstDamage()}));
+        }
+        jdbcTemplate.batchUpdate(INSERT_FIGHT, fights);
+        jdbcTemplate.batchUpdate(INSERT_FIGHT_HERO, participants);
+    }
+
+    /**
+     * Deletes every aggregate of a match written by {@link #insert(long, MatchAggregates)}.
+     *
+     * @param matchId the match identifier
+     */
+    public void delete(long matchId) {
+        for (String table : TABLES) {
+            jdbcTemplate.update("DELETE FROM " + table + " WHERE match_id = ?", matchId);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package gg.bayes.challenge.persistence.repository;
+
+import gg.bayes.challenge.persistence.model.MatchArchiveEntity;
+import gg.bayes.challenge.persistence.projection.ArchiveState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads and updates archives without loading their content unless asked for it, and updates the flags with bulk
+ * statements, so the compressed log is never written back.
+ */
+@Repository
+public interface MatchArchiveRepository extends JpaRepository<MatchArchiveEntity, Long> {
+
+    @Query("SELECT a.matchId AS matchId, a.resident AS resident FROM MatchArchiveEntity a")
+    List<ArchiveState> findStates();
+
+    @Query("SELECT a.content FROM MatchArchiveEntity a WHERE a.matchId = :matchId")
+    Optional<byte[]> findContent(@Param("matchId") Long matchId);
+
+    @Modifying
+    @Query("UPDATE MatchArchiveEntity a SET a.resident = true WHERE a.matchId = :matchId")
+    void markLoaded(@Param("matchId") Long matchId);
+
+    @Modifying
+    @Query("UPDATE MatchArchiveEntity a SET a.resident = false WHERE a.matchId = :matchId")
+    void markEvicted(@Param("matchId") Long matchId);
+
+}
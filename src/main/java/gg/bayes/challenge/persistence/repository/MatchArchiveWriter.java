@@ -0,0 +1,35 @@
+package gg.bayes.challenge.persistence.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.InputStream;
+
+@Repository
+public class MatchArchiveWriter {
+
+    private static final String INSERT_ARCHIVE = "INSERT INTO dota_match_archive "
+            + "(match_id, content, raw_size, resident) VALUES (?, ?, ?, FALSE)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MatchArchiveWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the archive of a match, streaming its content into the LOB rather than binding it as an array.
+     *
+     * @param matchId the match identifier
+     * @param content the gzip compressed combat log
+     * @param length  the number of bytes of the content
+     * @param rawSize the length of the combat log before compression, in bytes
+     */
+    public void insert(long matchId, InputStream content, long length, long rawSize) {
+        jdbcTemplate.update(INSERT_ARCHIVE, statement -> {
+            statement.setLong(1, matchId);
+            statement.setBinaryStream(2, content, length);
+            statement.setLong(3, rawSize);
+        });
+    }
+}
@@ -6,4 +6,7 @@ import org.springframework.stereotype.Repository;
 
 @Repository
 public interface MatchRepository extends JpaRepository<MatchEntity, Long> {
+
+    boolean existsBySourceHash(String sourceHash);
+
 }
\ No newline at end of file
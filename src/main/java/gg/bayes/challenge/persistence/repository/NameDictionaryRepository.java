@@ -0,0 +1,180 @@
+package gg.bayes.challenge.persistence.repository;
+
+import gg.bayes.challenge.model.NameDictionary;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Hero, ability and item dictionaries shared by every match, backed by the {@code dota_hero}, {@code dota_ability}
+ * and {@code dota_item} tables. Ids are assigned in memory and written to the tables by the transaction of the first
+ * ingest that uses them; an id is only considered stored once that transaction commits.
+ */
+@Repository
+@DependsOn("entityManagerFactory")
+public class NameDictionaryRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Dictionary heroes = new Dictionary("dota_hero");
+    private final Dictionary abilities = new Dictionary("dota_ability");
+    private final Dictionary items = new Dictionary("dota_item");
+
+    public NameDictionaryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void load() {
+        heroes.load();
+        abilities.load();
+        items.load();
+    }
+
+    /**
+     * Assigns ids to the names used by the entries and writes the names that are not stored yet. Must be called within
+     * the transaction that inserts the entries.
+     *
+     * @param entries the entries about to be inserted
+     */
+    public void register(List<CombatLogEntryEntity> entries) {
+        Map<Integer, String> newHeroes = new TreeMap<>();
+        Map<Integer, String> newAbilities = new TreeMap<>();
+        Map<Integer, String> newItems = new TreeMap<>();
+        for (CombatLogEntryEntity entry : entries) {
+            heroes.register(entry.getActor(), newHeroes);
+            heroes.register(entry.getTarget(), newHeroes);
+            abilities.register(entry.getAbility(), newAbilities);
+            items.register(entry.getItem(), newItems);
+        }
+        heroes.store(newHeroes);
+        abilities.store(newAbilities);
+        items.store(newItems);
+    }
+
+    /**
+     * @return the id of a registered hero or unit name, -1 if the name is unknown, or null for a null name. -1 matches
+     * no stored entry, which makes it usable as a query parameter, and the schema rejects it as a column value.
+     */
+    public Integer heroId(String name) {
+        return heroes.find(name);
+    }
+
+    public Integer abilityId(String name) {
+        return abilities.find(name);
+    }
+
+    public Integer itemId(String name) {
+        return items.find(name);
+    }
+
+    /**
+     * @return the id of a registered hero or unit name, or null for a null name
+     * @throws IllegalStateException if the name was not registered with {@link #register(List)}
+     */
+    public Integer requireHeroId(String name) {
+        return heroes.require(name);
+    }
+
+    public Integer requireAbilityId(String name) {
+        return abilities.require(name);
+    }
+
+    public Integer requireItemId(String name) {
+        return items.require(name);
+    }
+
+    public String heroName(Integer id) {
+        return heroes.name(id);
+    }
+
+    public String abilityName(Integer id) {
+        return abilities.name(id);
+    }
+
+    public String itemName(Integer id) {
+        return items.name(id);
+    }
+
+    private class Dictionary {
+        private final String table;
+        private final NameDictionary names = new NameDictionary();
+        private final BitSet stored = new BitSet();
+
+        Dictionary(String table) {
+            this.table = table;
+        }
+
+        void load() {
+            jdbcTemplate.query("SELECT id, name FROM " + table + " ORDER BY id", rs -> {
+                int id = names.id(rs.getString("name"));
+                if (id != rs.getInt("id")) {
+                    throw new IllegalStateException("Ids of " + table + " are not dense");
+                }
+                stored.set(id);
+            });
+        }
+
+        void register(String name, Map<Integer, String> unstored) {
+            if (name == null) {
+                return;
+            }
+            int id = names.id(name);
+            synchronized (stored) {
+                if (stored.get(id)) {
+                    return;
+                }
+            }
+            unstored.put(id, names.name(id));
+        }
+
+        void store(Map<Integer, String> unstored) {
+            if (unstored.isEmpty()) {
+                return;
+            }
+            List<Object[]> rows = new ArrayList<>();
+            unstored.forEach((id, name) -> rows.add(new Object[]{id, name}));
+            jdbcTemplate.batchUpdate("MERGE INTO " + table + " (id, name) KEY (id) VALUES (?, ?)", rows);
+            Runnable markStored = () -> {
+                synchronized (stored) {
+                    rows.forEach(row -> stored.set((Integer) row[0]));
+                }
+            };
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        markStored.run();
+                    }
+                });
+            } else {
+                markStored.run();
+            }
+        }
+
+        Integer find(String name) {
+            return name == null ? null : names.find(name);
+        }
+
+        Integer require(String name) {
+            Integer id = find(name);
+            if (id != null && id < 0) {
+                throw new IllegalStateException("Name not registered in " + table + ": " + name);
+            }
+            return id;
+        }
+
+        String name(Integer id) {
+            return id == null || id < 0 ? null : names.name(id);
+        }
+    }
+}
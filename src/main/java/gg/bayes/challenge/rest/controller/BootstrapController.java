@@ -0,0 +1,32 @@
+package gg.bayes.challenge.rest.controller;
+
+import gg.bayes.challenge.rest.model.BootstrapProgress;
+import gg.bayes.challenge.service.BootstrapService;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/bootstrap")
+public class BootstrapController {
+
+    private final BootstrapService bootstrapService;
+
+    public BootstrapController(BootstrapService bootstrapService) {
+        this.bootstrapService = bootstrapService;
+    }
+
+    /**
+     * Reports the progress of the startup ingest of the combat logs under the bootstrap directory.
+     *
+     * @return the state and the number of files found, ingested, skipped and failed so far
+     */
+    @ApiOperation(value = "Return the progress of the startup ingest")
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BootstrapProgress> getProgress() {
+        return ResponseEntity.ok(bootstrapService.getProgress());
+    }
+}
@@ -0,0 +1,74 @@
+package gg.bayes.challenge.rest.controller;
+
+import gg.bayes.challenge.model.exception.CombatLogTooLargeException;
+import gg.bayes.challenge.model.exception.InputIsNotParsableException;
+import gg.bayes.challenge.model.exception.InternalServerErrorException;
+import gg.bayes.challenge.rest.model.BulkIngestResult;
+import gg.bayes.challenge.service.BulkIngestService;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/match/bulk")
+public class BulkIngestController {
+
+    private static final String APPLICATION_ZIP_VALUE = "application/zip";
+
+    private final BulkIngestService bulkIngestService;
+
+    public BulkIngestController(BulkIngestService bulkIngestService) {
+        this.bulkIngestService = bulkIngestService;
+    }
+
+    /**
+     * Ingests the combat logs uploaded as the {@code files} parts of a multipart request. Each part may be gzipped.
+     *
+     * @param files the combat log files
+     * @return per file, its status and the id of the match stored from it
+     */
+    @ApiOperation(value = "Return the status and match id of every uploaded combat log")
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BulkIngestResult>> ingestFiles(@RequestParam("files") List<MultipartFile> files)
+            throws InputIsNotParsableException, CombatLogTooLargeException, InternalServerErrorException {
+
+        List<BulkIngestService.CombatLogSource> sources = files.stream()
+                .map(file -> new BulkIngestService.CombatLogSource() {
+                    @Override
+                    public String getName() {
+                        return file.getOriginalFilename();
+                    }
+
+                    @Override
+                    public InputStream open() throws IOException {
+                        return file.getInputStream();
+                    }
+                })
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(bulkIngestService.ingest(sources.iterator()));
+    }
+
+    /**
+     * Ingests the combat logs of a zip archive sent as the request body. Each file may be gzipped.
+     *
+     * @param archive the zip archive
+     * @return per file of the archive, its status and the id of the match stored from it
+     */
+    @ApiOperation(value = "Return the status and match id of every combat log of the archive")
+    @PostMapping(consumes = APPLICATION_ZIP_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BulkIngestResult>> ingestArchive(InputStream archive)
+            throws InputIsNotParsableException, CombatLogTooLargeException, InternalServerErrorException {
+
+        return ResponseEntity.ok(bulkIngestService.ingestZip(archive));
+    }
+}
@@ -0,0 +1,35 @@
+package gg.bayes.challenge.rest.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import gg.bayes.challenge.rest.model.CacheStatistics;
+import gg.bayes.challenge.service.MatchQueryCache;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    private final MatchQueryCache matchQueryCache;
+
+    public CacheController(MatchQueryCache matchQueryCache) {
+        this.matchQueryCache = matchQueryCache;
+    }
+
+    /**
+     * Reports the statistics of the query result cache since startup.
+     *
+     * @return the number of cached results, hits, misses and evictions
+     */
+    @ApiOperation(value = "Return the statistics of the query result cache")
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<CacheStatistics> getStatistics() {
+        CacheStats stats = matchQueryCache.stats();
+        return ResponseEntity.ok(new CacheStatistics(matchQueryCache.size(), stats.hitCount(), stats.missCount(),
+                stats.evictionCount(), stats.hitRate()));
+    }
+}
@@ -0,0 +1,101 @@
+package gg.bayes.challenge.rest.controller;
+
+import gg.bayes.challenge.model.HeroRollup;
+import gg.bayes.challenge.model.exception.InternalServerErrorException;
+import gg.bayes.challenge.model.exception.NoResultException;
+import gg.bayes.challenge.rest.model.HeroItemUsage;
+import gg.bayes.challenge.rest.model.HeroSpellUsage;
+import gg.bayes.challenge.rest.model.HeroSummary;
+import gg.bayes.challenge.service.HeroService;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Answers from the per hero rollups, which cover every match ingested eagerly. Matches ingested with
+ * {@code dota.lazy.enabled} are left out, whether they were queried since or not.
+ */
+@RestController
+@RequestMapping("/api/heroes")
+public class HeroController {
+
+    private final HeroService heroService;
+
+    public HeroController(HeroService heroService) {
+        this.heroService = heroService;
+    }
+
+    /**
+     * Fetches the totals and per match averages of the named hero over every stored match.
+     *
+     * @param heroName the hero name
+     * @return matches played, kills and damage of the hero
+     */
+    @ApiOperation(value = "Return the matches played, kills and damage of the hero over all eagerly ingested matches")
+    @GetMapping(path = "{heroName}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<HeroSummary> getHero(@PathVariable("heroName") String heroName) throws NoResultException,
+            InternalServerErrorException {
+
+        HeroRollup rollup = heroService.getHero(heroName);
+        double matches = rollup.getMatches();
+        return ResponseEntity.ok(new HeroSummary(rollup.getHero(), rollup.getMatches(), rollup.getKills(),
+                rollup.getKills() / matches, rollup.getDamageInstances(), rollup.getTotalDamage(),
+                rollup.getTotalDamage() / matches));
+    }
+
+    /**
+     * Fetches the items bought by the named hero over every stored match, most purchased first.
+     *
+     * @param heroName the hero name
+     * @return a collection of items with their number of purchases and of matches they were bought in
+     */
+    @ApiOperation(value = "Return the items bought by the hero over all eagerly ingested matches, most purchased first")
+    @GetMapping(path = "{heroName}/items", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<HeroItemUsage>> getHeroItems(@PathVariable("heroName") String heroName)
+            throws NoResultException, InternalServerErrorException {
+
+        List<HeroItemUsage> items = mostUsedFirst(heroService.getHero(heroName).getItems()).stream()
+                .map(entry -> new HeroItemUsage(entry.getKey(), entry.getValue().getCount(),
+                        entry.getValue().getMatches()))
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(items);
+    }
+
+    /**
+     * Fetches how the spells cast by the named hero over every stored match are distributed.
+     *
+     * @param heroName the hero name
+     * @return a collection of spells with their casts, matches they were cast in and share of all casts
+     */
+    @ApiOperation(value = "Return the spells cast by the hero over all eagerly ingested matches and their share of all "
+            + "casts")
+    @GetMapping(path = "{heroName}/spells", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<HeroSpellUsage>> getHeroSpells(@PathVariable("heroName") String heroName)
+            throws NoResultException, InternalServerErrorException {
+
+        Map<String, HeroRollup.Usage> spells = heroService.getHero(heroName).getSpells();
+        double totalCasts = spells.values().stream().mapToLong(HeroRollup.Usage::getCount).sum();
+        List<HeroSpellUsage> usages = mostUsedFirst(spells).stream()
+                .map(entry -> new HeroSpellUsage(entry.getKey(), entry.getValue().getCount(),
+                        entry.getValue().getMatches(), entry.getValue().getCount() / totalCasts))
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(usages);
+    }
+
+    private static List<Map.Entry<String, HeroRollup.Usage>> mostUsedFirst(Map<String, HeroRollup.Usage> usages) {
+        return usages.entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<String, HeroRollup.Usage> entry) -> entry.getValue().getCount())
+                        .reversed()
+                        .thenComparing(Map.Entry::getKey))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,61 @@
+package gg.bayes.challenge.rest.controller;
+
+import gg.bayes.challenge.model.IngestJob;
+import gg.bayes.challenge.model.exception.CombatLogTooLargeException;
+import gg.bayes.challenge.model.exception.IngestQueueFullException;
+import gg.bayes.challenge.model.exception.InternalServerErrorException;
+import gg.bayes.challenge.model.exception.JobNotFoundException;
+import gg.bayes.challenge.rest.model.IngestJobStatus;
+import gg.bayes.challenge.service.IngestJobService;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class IngestJobController {
+
+    private final IngestJobService ingestJobService;
+
+    public IngestJobController(IngestJobService ingestJobService) {
+        this.ingestJobService = ingestJobService;
+    }
+
+    /**
+     * Queues a DOTA combat log for ingest and returns without waiting for it. The status of the job is available at the
+     * returned location.
+     *
+     * @param combatLog the content of the combat log file
+     * @return the queued job
+     */
+    @ApiOperation(value = "Queue a combat log for ingest and return the job id")
+    @PostMapping(consumes = MediaType.TEXT_PLAIN_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<IngestJobStatus> submit(InputStream combatLog) throws IngestQueueFullException,
+            CombatLogTooLargeException, InternalServerErrorException {
+
+        IngestJob job = ingestJobService.submit(combatLog);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{jobId}").build(job.getId()))
+                .body(toStatus(job));
+    }
+
+    /**
+     * Reports the state of an ingest job and, once done, the id of the ingested match.
+     *
+     * @param jobId the job identifier
+     * @return the state of the job
+     */
+    @ApiOperation(value = "Return the state of an ingest job")
+    @GetMapping(path = "{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<IngestJobStatus> getJob(@PathVariable("jobId") String jobId) throws JobNotFoundException {
+        return ResponseEntity.ok(toStatus(ingestJobService.getJob(jobId)));
+    }
+
+    private static IngestJobStatus toStatus(IngestJob job) {
+        return new IngestJobStatus(job.getId(), job.getState().name(), job.getMatchId(), job.getError());
+    }
+}
@@ -0,0 +1,62 @@
+package gg.bayes.challenge.rest.controller;
+
+import gg.bayes.challenge.model.exception.InternalServerErrorException;
+import gg.bayes.challenge.model.exception.MatchNotFoundException;
+import gg.bayes.challenge.service.LiveMatchService;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/live")
+public class LiveMatchController {
+
+    private final LiveMatchService liveMatchService;
+
+    public LiveMatchController(LiveMatchService liveMatchService) {
+        this.liveMatchService = liveMatchService;
+    }
+
+    /**
+     * Opens a match whose combat log is appended while it is being played. The match endpoints answer with the
+     * numbers of the lines appended so far.
+     *
+     * @return the match id to append combat log lines to
+     */
+    @ApiOperation(value = "Open a live match and return its match id")
+    @PostMapping
+    public ResponseEntity<Long> open() throws InternalServerErrorException {
+        return ResponseEntity.ok(liveMatchService.open());
+    }
+
+    /**
+     * Appends the next lines of the combat log of a live match. A trailing line without a line terminator is completed
+     * by the next append.
+     *
+     * @param matchId the live match identifier
+     * @param lines   the next part of the combat log
+     * @return the number of entries parsed from the lines
+     */
+    @ApiOperation(value = "Append combat log lines to a live match and return the number of parsed entries")
+    @PostMapping(path = "{matchId}", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<Integer> append(@PathVariable("matchId") Long matchId, @RequestBody String lines)
+            throws MatchNotFoundException, InternalServerErrorException {
+
+        return ResponseEntity.ok(liveMatchService.append(matchId, lines));
+    }
+
+    /**
+     * Closes a live match once its combat log is complete.
+     *
+     * @param matchId the live match identifier
+     * @return the number of entries of the match
+     */
+    @ApiOperation(value = "Close a live match and return its number of entries")
+    @PostMapping(path = "{matchId}/close")
+    public ResponseEntity<Long> close(@PathVariable("matchId") Long matchId) throws MatchNotFoundException,
+            InternalServerErrorException {
+
+        return ResponseEntity.ok(liveMatchService.close(matchId));
+    }
+}
@@ -1,22 +1,34 @@
 package gg.bayes.challenge.rest.controller;
 
+import gg.bayes.challenge.model.HeroMatrix;
+import gg.bayes.challenge.model.MatchAggregates;
+import gg.bayes.challenge.model.exception.CombatLogTooLargeException;
 import gg.bayes.challenge.model.exception.InputIsNotParsableException;
 import gg.bayes.challenge.model.exception.InternalServerErrorException;
+import gg.bayes.challenge.model.exception.InvalidTimeWindowException;
 import gg.bayes.challenge.model.exception.MatchNotFoundException;
 import gg.bayes.challenge.model.exception.NoResultException;
+import gg.bayes.challenge.rest.model.FightParticipant;
+import gg.bayes.challenge.rest.model.HeroActivity;
 import gg.bayes.challenge.rest.model.HeroDamage;
 import gg.bayes.challenge.rest.model.HeroItem;
 import gg.bayes.challenge.rest.model.HeroKills;
+import gg.bayes.challenge.rest.model.HeroMatchMatrix;
+import gg.bayes.challenge.rest.model.HeroMatchSummary;
 import gg.bayes.challenge.rest.model.HeroSpells;
+import gg.bayes.challenge.rest.model.MatchFight;
 import gg.bayes.challenge.service.MatchService;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-import javax.validation.constraints.NotBlank;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -35,19 +47,55 @@ public class MatchController {
 
     /**
      * Ingests a DOTA combat log file, parses and persists relevant events data. All events are associated with the same
-     * match id.
+     * match id. The request body is streamed line by line and never held in memory as a whole. Bodies larger than
+     * {@code dota.ingest.max-log-size} are rejected with 413.
      *
      * @param combatLog the content of the combat log file
      * @return the match id associated with the parsed events
      */
     @ApiOperation(value = "Return the match id associated with the parsed events")
     @PostMapping(consumes = MediaType.TEXT_PLAIN_VALUE)
-    public ResponseEntity<Long> ingestCombatLog(@RequestBody @NotBlank String combatLog) throws InputIsNotParsableException,
-            InternalServerErrorException {
+    public ResponseEntity<Long> ingestCombatLog(InputStream combatLog) throws InputIsNotParsableException,
+            CombatLogTooLargeException, InternalServerErrorException {
 
         return ResponseEntity.ok(matchService.ingestCombatLog(combatLog));
     }
 
+    /**
+     * Ingests a match exported by {@link #exportMatch(Long)}. The entries are decoded as they are stored, without
+     * parsing any text.
+     *
+     * @param encodedMatch the exported match
+     * @return the id of the new match
+     */
+    @ApiOperation(value = "Return the id of the match imported from its compact binary export")
+    @PostMapping(path = "import", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Long> importMatch(InputStream encodedMatch) throws InputIsNotParsableException,
+            InternalServerErrorException {
+
+        return ResponseEntity.ok(matchService.importMatch(encodedMatch));
+    }
+
+    /**
+     * Exports the parsed entries of the given match in a compact binary format, with delta encoded timestamps and
+     * dictionary coded names. The match is written to the response as it is encoded.
+     *
+     * @param matchId  the match identifier
+     * @param response receives the encoded match
+     */
+    @ApiOperation(value = "Return the match in a compact binary format, to be imported elsewhere")
+    @GetMapping(
+            path = "{matchId}/export",
+            produces = MediaType.APPLICATION_OCTET_STREAM_VALUE
+    )
+    public void exportMatch(@PathVariable("matchId") Long matchId, HttpServletResponse response)
+            throws MatchNotFoundException, InternalServerErrorException, IOException {
+
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"match-" + matchId + ".dotam\"");
+        matchService.exportMatch(matchId, response.getOutputStream());
+    }
+
     /**
      * Fetches the heroes and their kill counts for the given match.
      *
@@ -62,18 +110,97 @@ public class MatchController {
     public ResponseEntity<List<HeroKills>> getMatch(@PathVariable("matchId") Long matchId) throws MatchNotFoundException,
             InternalServerErrorException {
 
-        List<HeroKills> heroKillsList = matchService.getMatch(matchId).entrySet()
-                .stream()
-                .map(entry -> new HeroKills(entry.getKey(), entry.getValue().intValue()))
+        return ResponseEntity.ok(matchService.getMatch(matchId));
+    }
+
+    /**
+     * Fetches the kills, items, spells and damage of every hero of the given match in one response, computed from the
+     * stored aggregates or in one scan of the match.
+     *
+     * @param matchId the match identifier
+     * @return per hero, sorted by name, what the kills, items, spells and damage endpoints return for it
+     */
+    @ApiOperation(value = "Return the kills, items, spells and damage of every hero of the match")
+    @GetMapping(
+            path = "{matchId}/summary",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<List<HeroMatchSummary>> getMatchSummary(@PathVariable("matchId") Long matchId)
+            throws MatchNotFoundException, InternalServerErrorException {
+
+        MatchAggregates aggregates = matchService.getSummary(matchId);
+        List<HeroMatchSummary> summary = aggregates.heroes().stream()
+                .map(hero -> new HeroMatchSummary(hero,
+                        aggregates.getKills().getOrDefault(hero, 0L).intValue(),
+                        aggregates.itemsOf(hero).stream()
+                                .map(entry -> new HeroItem(entry.getKey(), entry.getValue()))
+                                .collect(Collectors.toList()),
+                        aggregates.spellsOf(hero).entrySet().stream()
+                                .map(entry -> new HeroSpells(entry.getKey(), entry.getValue().intValue()))
+                                .collect(Collectors.toList()),
+                        aggregates.damagesOf(hero).entrySet().stream()
+                                .map(entry -> new HeroDamage(entry.getKey(), entry.getValue().getKey(),
+                                        entry.getValue().getValue()))
+                                .collect(Collectors.toList())))
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(summary);
+    }
+
+    /**
+     * Fetches the damage instances, total damage and kills of every hero of the given match on every other hero.
+     *
+     * @param matchId the match identifier
+     * @return the heroes sorted by name, and per attacker row and victim column, the damage instances, total damage and
+     * kills
+     */
+    @ApiOperation(value = "Return the damage and kills of every hero of the match on every other hero")
+    @GetMapping(
+            path = "{matchId}/matrix",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<HeroMatchMatrix> getMatchMatrix(@PathVariable("matchId") Long matchId)
+            throws MatchNotFoundException, InternalServerErrorException {
+
+        HeroMatrix matrix = matchService.getMatrix(matchId);
+        return ResponseEntity.ok(new HeroMatchMatrix(matrix.getHeroes(), matrix.getHits(), matrix.getDamage(),
+                matrix.getKills()));
+    }
+
+    /**
+     * Fetches the fights of the given match: periods in which at least three heroes were killed within 15 seconds,
+     * detected when the match was ingested.
+     *
+     * @param matchId the match identifier
+     * @return the fights, earliest first, with the kills, deaths, damage, longest kill streak and most damage within
+     * 5 seconds of every hero that took part
+     */
+    @ApiOperation(value = "Return the fights of the match with the kills, deaths, streaks and damage of their heroes")
+    @GetMapping(
+            path = "{matchId}/fights",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<List<MatchFight>> getMatchFights(@PathVariable("matchId") Long matchId)
+            throws MatchNotFoundException, InternalServerErrorException {
+
+        List<MatchFight> fights = matchService.getFights(matchId).stream()
+                .map(fight -> new MatchFight(fight.getStart(), fight.getEnd(), fight.getKills(),
+                        fight.getTotalDamage(),
+                        fight.getParticipants().entrySet().stream()
+                                .map(entry -> new FightParticipant(entry.getKey(), entry.getValue().getKills(),
+                                        entry.getValue().getDeaths(), entry.getValue().getDamage(),
+                                        entry.getValue().getStreak(), entry.getValue().getBurstDamage()))
+                                .collect(Collectors.toList())))
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(heroKillsList);
+        return ResponseEntity.ok(fights);
     }
 
     /**
-     * For the given match, fetches the items bought by the named hero.
+     * For the given match, fetches the items bought by the named hero, optionally within a time window.
      *
      * @param matchId  the match identifier
      * @param heroName the hero name
+     * @param from     the start of the window in milliseconds, inclusive
+     * @param to       the end of the window in milliseconds, exclusive
      * @return a collection of items bought by the hero during the match
      */
     @ApiOperation(value = "Return a collection of items bought by the hero during the match")
@@ -83,21 +210,21 @@ public class MatchController {
     )
     public ResponseEntity<List<HeroItem>> getHeroItems(
             @PathVariable("matchId") Long matchId,
-            @PathVariable("heroName") String heroName) throws MatchNotFoundException, NoResultException,
-            InternalServerErrorException {
+            @PathVariable("heroName") String heroName,
+            @RequestParam(value = "from", required = false) Long from,
+            @RequestParam(value = "to", required = false) Long to) throws MatchNotFoundException, NoResultException,
+            InvalidTimeWindowException, InternalServerErrorException {
 
-        List<HeroItem> heroItemList = matchService.getHeroItems(matchId, heroName)
-                .stream()
-                .map(entry -> new HeroItem(entry.getKey(), entry.getValue()))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(heroItemList);
+        return ResponseEntity.ok(matchService.getHeroItems(matchId, heroName, from, to));
     }
 
     /**
-     * For the given match, fetches the spells cast by the named hero.
+     * For the given match, fetches the spells cast by the named hero, optionally within a time window.
      *
      * @param matchId  the match identifier
      * @param heroName the hero name
+     * @param from     the start of the window in milliseconds, inclusive
+     * @param to       the end of the window in milliseconds, exclusive
      * @return a collection of spells cast by the hero and how many times they were cast
      */
     @ApiOperation(value = "Return a collection of spells cast by the hero and how many times they were cast")
@@ -107,21 +234,21 @@ public class MatchController {
     )
     public ResponseEntity<List<HeroSpells>> getHeroSpells(
             @PathVariable("matchId") Long matchId,
-            @PathVariable("heroName") String heroName) throws MatchNotFoundException, NoResultException,
-            InternalServerErrorException {
+            @PathVariable("heroName") String heroName,
+            @RequestParam(value = "from", required = false) Long from,
+            @RequestParam(value = "to", required = false) Long to) throws MatchNotFoundException, NoResultException,
+            InvalidTimeWindowException, InternalServerErrorException {
 
-        List<HeroSpells> heroSpellsList = matchService.getHeroSpells(matchId, heroName).entrySet()
-                .stream()
-                .map(entry -> new HeroSpells(entry.getKey(), entry.getValue().intValue()))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(heroSpellsList);
+        return ResponseEntity.ok(matchService.getHeroSpells(matchId, heroName, from, to));
     }
 
     /**
-     * For a given match, fetches damage done data for the named hero.
+     * For a given match, fetches damage done data for the named hero, optionally within a time window.
      *
      * @param matchId  the match identifier
      * @param heroName the hero name
+     * @param from     the start of the window in milliseconds, inclusive
+     * @param to       the end of the window in milliseconds, exclusive
      * @return a collection of "damage done" (target, number of times and total damage) elements
      */
     @ApiOperation(value = "Return a collection of damage done (target, number of times and total damage) elements")
@@ -131,13 +258,43 @@ public class MatchController {
     )
     public ResponseEntity<List<HeroDamage>> getHeroDamages(
             @PathVariable("matchId") Long matchId,
-            @PathVariable("heroName") String heroName) throws MatchNotFoundException, NoResultException,
-            InternalServerErrorException {
+            @PathVariable("heroName") String heroName,
+            @RequestParam(value = "from", required = false) Long from,
+            @RequestParam(value = "to", required = false) Long to) throws MatchNotFoundException, NoResultException,
+            InvalidTimeWindowException, InternalServerErrorException {
+
+        return ResponseEntity.ok(matchService.getHeroDamages(matchId, heroName, from, to));
+    }
+
+    /**
+     * For a given match, counts the kills, purchases, spell casts and damage of the named hero per time bucket.
+     *
+     * @param matchId  the match identifier
+     * @param heroName the hero name
+     * @param from     the start of the window in milliseconds, inclusive
+     * @param to       the end of the window in milliseconds, exclusive
+     * @param bucket   the size of the buckets in milliseconds, the first one starting at the start of the window
+     * @return a collection of the non-empty buckets, earliest first
+     */
+    @ApiOperation(value = "Return the kills, purchases, spell casts and damage of the hero per time bucket")
+    @GetMapping(
+            path = "{matchId}/{heroName}/timeline",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<List<HeroActivity>> getHeroTimeline(
+            @PathVariable("matchId") Long matchId,
+            @PathVariable("heroName") String heroName,
+            @RequestParam(value = "from", required = false) Long from,
+            @RequestParam(value = "to", required = false) Long to,
+            @RequestParam(value = "bucket", defaultValue = "60000") long bucket) throws MatchNotFoundException,
+            NoResultException, InvalidTimeWindowException, InternalServerErrorException {
 
-        List<HeroDamage> heroDamageList = matchService.getHeroDamages(matchId, heroName).entrySet()
+        List<HeroActivity> heroActivityList = matchService.getHeroTimeline(matchId, heroName, from, to, bucket)
                 .stream()
-                .map(entry -> new HeroDamage(entry.getKey(), entry.getValue().getKey(), entry.getValue().getValue()))
+                .map(entry -> new HeroActivity(entry.getStart(), entry.getEnd(), entry.getKills(),
+                        entry.getItemPurchases(), entry.getSpellCasts(), entry.getDamageInstances(),
+                        entry.getTotalDamage()))
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(heroDamageList);
+        return ResponseEntity.ok(heroActivityList);
     }
 }
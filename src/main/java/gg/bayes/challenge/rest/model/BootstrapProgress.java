@@ -0,0 +1,13 @@
+package gg.bayes.challenge.rest.model;
+
+import lombok.Value;
+
+@Value
+public class BootstrapProgress {
+    String state;
+    Integer files;
+    Integer ingested;
+    Integer skipped;
+    Integer failed;
+    Long elapsedMillis;
+}
@@ -0,0 +1,12 @@
+package gg.bayes.challenge.rest.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+
+@Value
+public class BulkIngestResult {
+    String file;
+    String status;
+    @JsonProperty("match_id")
+    Long matchId;
+}
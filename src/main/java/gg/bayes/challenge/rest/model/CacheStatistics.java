@@ -0,0 +1,12 @@
+package gg.bayes.challenge.rest.model;
+
+import lombok.Value;
+
+@Value
+public class CacheStatistics {
+    Long size;
+    Long hits;
+    Long misses;
+    Long evictions;
+    Double hitRate;
+}
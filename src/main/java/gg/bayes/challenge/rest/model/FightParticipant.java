@@ -0,0 +1,15 @@
+package gg.bayes.challenge.rest.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+
+@Value
+public class FightParticipant {
+    String hero;
+    Integer kills;
+    Integer deaths;
+    Long damage;
+    Integer streak;
+    @JsonProperty("burst_damage")
+    Long burstDamage;
+}
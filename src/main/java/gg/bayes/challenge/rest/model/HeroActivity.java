@@ -0,0 +1,19 @@
+package gg.bayes.challenge.rest.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+
+@Value
+public class HeroActivity {
+    Long from;
+    Long to;
+    Long kills;
+    @JsonProperty("items_bought")
+    Long itemsBought;
+    @JsonProperty("spells_cast")
+    Long spellsCast;
+    @JsonProperty("damage_instances")
+    Long damageInstances;
+    @JsonProperty("total_damage")
+    Long totalDamage;
+}
@@ -0,0 +1,10 @@
+package gg.bayes.challenge.rest.model;
+
+import lombok.Value;
+
+@Value
+public class HeroItemUsage {
+    String item;
+    Long purchases;
+    Long matches;
+}
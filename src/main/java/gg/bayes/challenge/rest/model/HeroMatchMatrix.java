@@ -0,0 +1,16 @@
+package gg.bayes.challenge.rest.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class HeroMatchMatrix {
+    List<String> heroes;
+    @JsonProperty("damage_instances")
+    int[][] damageInstances;
+    @JsonProperty("total_damage")
+    long[][] totalDamage;
+    int[][] kills;
+}
@@ -0,0 +1,14 @@
+package gg.bayes.challenge.rest.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class HeroMatchSummary {
+    String hero;
+    Integer kills;
+    List<HeroItem> items;
+    List<HeroSpells> spells;
+    List<HeroDamage> damage;
+}
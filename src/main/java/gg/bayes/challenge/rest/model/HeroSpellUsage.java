@@ -0,0 +1,11 @@
+package gg.bayes.challenge.rest.model;
+
+import lombok.Value;
+
+@Value
+public class HeroSpellUsage {
+    String spell;
+    Long casts;
+    Long matches;
+    Double share;
+}
@@ -0,0 +1,19 @@
+package gg.bayes.challenge.rest.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+
+@Value
+public class HeroSummary {
+    String hero;
+    Long matches;
+    Long kills;
+    @JsonProperty("average_kills")
+    Double averageKills;
+    @JsonProperty("damage_instances")
+    Long damageInstances;
+    @JsonProperty("total_damage")
+    Long totalDamage;
+    @JsonProperty("average_damage")
+    Double averageDamage;
+}
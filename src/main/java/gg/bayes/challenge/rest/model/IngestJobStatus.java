@@ -0,0 +1,11 @@
+package gg.bayes.challenge.rest.model;
+
+import lombok.Value;
+
+@Value
+public class IngestJobStatus {
+    String jobId;
+    String state;
+    Long matchId;
+    String error;
+}
@@ -0,0 +1,16 @@
+package gg.bayes.challenge.rest.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class MatchFight {
+    Long from;
+    Long to;
+    Integer kills;
+    @JsonProperty("total_damage")
+    Long totalDamage;
+    List<FightParticipant> heroes;
+}
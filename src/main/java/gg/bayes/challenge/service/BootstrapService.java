@@ -0,0 +1,274 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.config.DotaProperties;
+import gg.bayes.challenge.model.exception.InputIsNotParsableException;
+import gg.bayes.challenge.model.exception.InternalServerErrorException;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.persistence.model.SourceFileEntity;
+import gg.bayes.challenge.rest.model.BootstrapProgress;
+import gg.bayes.challenge.utils.MappedCombatLog;
+import gg.bayes.challenge.utils.Utils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Ingests the combat logs found under {@code dota.bootstrap.directory} at startup. Files are hashed and parsed in
+ * parallel on a bounded pool, scanning them in place with {@link MappedCombatLog}, and a single writer persists them one
+ * match at a time. Entries are handed to the writer in chunks of {@code dota.ingest.chunk-size} through an
+ * {@link EntryChunkQueue}, so a file is never held in memory as a whole. Files whose content hash is already stored
+ * are skipped. Matches exported in the {@link MatchCodec} format are decoded instead of parsed, which
+ * makes the directory a way to restore exported matches after a restart.
+ * <p>
+ * The path, size and modification time of every file read are recorded in the store. With a durable store, a file
+ * found with the same size and modification time at the next startup is skipped without being read, so a restart
+ * only costs a lookup per file, whatever the size of the archive.
+ */
+@Service
+public class BootstrapService implements ApplicationRunner {
+
+    private static final Logger LOGGER = LogManager.getLogger(BootstrapService.class.getName());
+    private static final int CHUNKS_AHEAD = 2;
+
+    public enum State {
+        IDLE,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    private final MatchService matchService;
+    private final IngestMetrics ingestMetrics;
+    private final DotaProperties.Bootstrap properties;
+    private final int chunkSize;
+
+    private final AtomicInteger files = new AtomicInteger();
+    private final AtomicInteger ingested = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile State state = State.IDLE;
+    private volatile long startNanos;
+    private volatile long endNanos;
+    private ExecutorService background;
+
+    public BootstrapService(MatchService matchService, IngestMetrics ingestMetrics, DotaProperties dotaProperties) {
+        this.matchService = matchService;
+        this.ingestMetrics = ingestMetrics;
+        this.properties = dotaProperties.getBootstrap();
+        this.chunkSize = dotaProperties.getIngest().getChunkSize();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (properties.isAsync()) {
+            background = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("bootstrap-"));
+            background.submit(this::load);
+        } else {
+            load();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (background != null) {
+            background.shutdownNow();
+        }
+    }
+
+    /**
+     * Reports how far the startup ingest has come.
+     *
+     * @return the bootstrap progress
+     */
+    public BootstrapProgress getProgress() {
+        long end = state == State.RUNNING ? System.nanoTime() : endNanos;
+        long elapsedMillis = state == State.IDLE ? 0 : TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+        return new BootstrapProgress(state.name(), files.get(), ingested.get(), skipped.get(), failed.get(),
+                elapsedMillis);
+    }
+
+    private void load() {
+        startNanos = System.nanoTime();
+        state = State.RUNNING;
+        int threads = Math.max(1, properties.getThreads());
+        ExecutorService parsers = Executors.newFixedThreadPool(threads,
+                new CustomizableThreadFactory("bootstrap-parser-"));
+        Deque<ParsedLog> inFlight = new ArrayDeque<>();
+        try (Stream<Path> walk = Files.walk(Paths.get(properties.getDirectory()))) {
+            List<Path> paths = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+            files.set(paths.size());
+
+            // Every file in flight has a parser thread, and a parser runs at most a few chunks of entries ahead of the
+            // writer, which bounds the memory held whatever the size of the files.
+            Iterator<Path> pending = paths.iterator();
+            while (pending.hasNext() || !inFlight.isEmpty()) {
+                while (pending.hasNext() && inFlight.size() < threads) {
+                    ParsedLog log = new ParsedLog(pending.next(), new EntryChunkQueue(chunkSize, CHUNKS_AHEAD));
+                    log.task = parsers.submit(() -> parse(log));
+                    inFlight.add(log);
+                }
+                persist(inFlight.poll());
+            }
+            state = State.DONE;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            state = State.FAILED;
+        } catch (Exception ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            state = State.FAILED;
+        } finally {
+            parsers.shutdownNow();
+            endNanos = System.nanoTime();
+        }
+        LOGGER.info("Bootstrap {}: {} files, {} ingested, {} skipped, {} failed in {} ms", state, files.get(),
+                ingested.get(), skipped.get(), failed.get(), TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos));
+    }
+
+    /**
+     * Decides whether the file has to be ingested, then streams its entries to the writer.
+     */
+    private void parse(ParsedLog log) {
+        Path path = log.path;
+        try {
+            // Taken before the file is read: a file modified while it is read is read again at the next startup.
+            SourceFileEntity sourceFile = new SourceFileEntity(path.toAbsolutePath().normalize().toString(),
+                    Files.size(path), Files.getLastModifiedTime(path).toMillis(), null);
+            Optional<SourceFileEntity> recorded = matchService.findSourceFile(sourceFile.getPath());
+            if (recorded.isPresent() && recorded.get().getSize() == sourceFile.getSize()
+                    && recorded.get().getLastModified() == sourceFile.getLastModified()) {
+                log.inspected(null, null, false);
+                return;
+            }
+            String hash = Utils.sha256(path);
+            sourceFile.setSourceHash(hash);
+            boolean known = matchService.isIngested(hash);
+            log.inspected(sourceFile, hash, !known);
+            if (known) {
+                return;
+            }
+            if (isEncodedMatch(path)) {
+                try (InputStream in = Files.newInputStream(path)) {
+                    MatchCodec.decode(in).forEachRemaining(log.entries::add);
+                }
+            } else {
+                IngestMetrics.ParseRecorder recorder = ingestMetrics.parseRecorder();
+                try {
+                    MappedCombatLog.forEachLine(path, line -> {
+                        CombatLogEntryEntity entry = recorder.parse(line);
+                        if (entry != null) {
+                            log.entries.add(entry);
+                        }
+                    });
+                } finally {
+                    recorder.publish();
+                }
+            }
+            log.entries.finish();
+        } catch (CancellationException ex) {
+            LOGGER.debug("Stopped reading {}", path);
+        } catch (Exception ex) {
+            if (log.isInspected()) {
+                log.entries.fail(new IllegalStateException("Could not read " + path, ex));
+            } else {
+                log.failed(ex);
+            }
+        }
+    }
+
+    private static boolean isEncodedMatch(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return MatchCodec.isEncoded(in.readNBytes(8));
+        }
+    }
+
+    private void persist(ParsedLog log) throws InterruptedException {
+        try {
+            log.awaitInspected();
+            if (log.failure != null) {
+                LOGGER.error("Could not read " + log.path, log.failure);
+                failed.incrementAndGet();
+            } else if (log.sourceFile == null) {
+                LOGGER.debug("Skipping {}, unchanged since it was read", log.path);
+                skipped.incrementAndGet();
+            } else if (!log.streaming || matchService.isIngested(log.hash)) {
+                LOGGER.debug("Skipping {}, already ingested", log.path);
+                matchService.saveSourceFile(log.sourceFile);
+                skipped.incrementAndGet();
+            } else {
+                try {
+                    matchService.ingestEntries(log.entries, log.hash);
+                    matchService.saveSourceFile(log.sourceFile);
+                    ingested.incrementAndGet();
+                } catch (InputIsNotParsableException | InternalServerErrorException ex) {
+                    failed.incrementAndGet();
+                }
+            }
+        } finally {
+            // Unblocks a parser whose entries were not all read
+            log.task.cancel(true);
+        }
+    }
+
+    private static final class ParsedLog {
+        private final Path path;
+        private final EntryChunkQueue entries;
+        private final CountDownLatch inspection = new CountDownLatch(1);
+        private Future<?> task;
+        // Written by the parser before the latch is released, read by the writer after
+        private SourceFileEntity sourceFile;
+        private String hash;
+        private boolean streaming;
+        private Exception failure;
+
+        private ParsedLog(Path path, EntryChunkQueue entries) {
+            this.path = path;
+            this.entries = entries;
+        }
+
+        /**
+         * @param sourceFile the file as it was read, or null if it was skipped unchanged
+         * @param streaming  whether the entries of the file follow in {@link #entries}
+         */
+        private void inspected(SourceFileEntity sourceFile, String hash, boolean streaming) {
+            this.sourceFile = sourceFile;
+            this.hash = hash;
+            this.streaming = streaming;
+            inspection.countDown();
+        }
+
+        private void failed(Exception failure) {
+            this.failure = failure;
+            inspection.countDown();
+        }
+
+        private boolean isInspected() {
+            return inspection.getCount() == 0;
+        }
+
+        private void awaitInspected() throws InterruptedException {
+            inspection.await();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.config.DotaProperties;
+import gg.bayes.challenge.model.exception.CombatLogTooLargeException;
+import gg.bayes.challenge.model.exception.InputIsNotParsableException;
+import gg.bayes.challenge.model.exception.InternalServerErrorException;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.rest.model.BulkIngestResult;
+import gg.bayes.challenge.utils.BoundedInputStream;
+import gg.bayes.challenge.utils.Utils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Ingests many combat logs sent in one request. Logs are parsed concurrently on a shared pool and stored
+ * {@code dota.ingest.bulk-batch-size} matches at a time with {@link MatchService#ingestEntries(List)}, so a batch shares
+ * one transaction and full write batches. Logs whose content hash is already stored, or that appear twice in the
+ * request, are skipped.
+ */
+@Service
+public class BulkIngestService {
+
+    private static final Logger LOGGER = LogManager.getLogger(BulkIngestService.class.getName());
+
+    public enum Status {
+        INGESTED,
+        SKIPPED,
+        FAILED
+    }
+
+    /**
+     * A combat log of a bulk request, plain or gzipped.
+     */
+    public interface CombatLogSource {
+
+        String getName();
+
+        /**
+         * Opens the content. Called once, on a parser thread.
+         */
+        InputStream open() throws IOException;
+    }
+
+    private final MatchService matchService;
+    private final IngestMetrics ingestMetrics;
+    private final int threads;
+    private final int batchSize;
+    private final long maxLogSize;
+    private final long maxBulkSize;
+    private final ExecutorService parsers;
+
+    public BulkIngestService(MatchService matchService, IngestMetrics ingestMetrics, DotaProperties dotaProperties) {
+        this.matchService = matchService;
+        this.ingestMetrics = ingestMetrics;
+        this.threads = Math.max(1, dotaProperties.getIngest().getParseThreads());
+        this.batchSize = Math.max(1, dotaProperties.getIngest().getBulkBatchSize());
+        this.maxLogSize = dotaProperties.getIngest().getMaxLogSize().toBytes();
+        this.maxBulkSize = dotaProperties.getIngest().getMaxBulkSize().toBytes();
+        this.parsers = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("bulk-parser-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        parsers.shutdownNow();
+    }
+
+    /**
+     * Parses and stores every combat log of the request. A log that cannot be read, is larger than
+     * {@code dota.ingest.max-log-size} or has no entry of interest fails on its own; a batch that cannot be stored
+     * fails as a whole. Past {@code dota.ingest.max-bulk-size} read, the whole request fails.
+     *
+     * @param sources the combat logs, pulled one at a time as parser threads free up
+     * @return per log and in request order, its status and the id of the match stored from it
+     */
+    public List<BulkIngestResult> ingest(Iterator<CombatLogSource> sources) throws InputIsNotParsableException,
+            CombatLogTooLargeException, InternalServerErrorException {
+        List<String> names = new ArrayList<>();
+        List<BulkIngestResult> results = new ArrayList<>();
+        Set<String> hashes = new HashSet<>();
+        List<ParsedLog> batch = new ArrayList<>(batchSize);
+        List<Future<ParsedLog>> futures = new ArrayList<>();
+        AtomicLong remaining = new AtomicLong(maxBulkSize);
+        try {
+            // At most two logs per thread are parsed or waiting to be stored, besides the batch being filled.
+            CompletionService<ParsedLog> completion = new ExecutorCompletionService<>(parsers);
+            int capacity = threads * 2;
+            int submitted = 0;
+            for (int completed = 0; sources.hasNext() || completed < submitted; completed++) {
+                while (sources.hasNext() && submitted - completed < capacity) {
+                    CombatLogSource source = sources.next();
+                    int index = submitted++;
+                    names.add(source.getName());
+                    results.add(null);
+                    futures.add(completion.submit(() -> parse(index, source, remaining)));
+                }
+                ParsedLog log = completion.take().get();
+                if (log.entries == null) {
+                    results.set(log.index, result(names, log.index, Status.FAILED, null));
+                } else if (!hashes.add(log.hash) || matchService.isIngested(log.hash)) {
+                    results.set(log.index, result(names, log.index, Status.SKIPPED, null));
+                } else {
+                    batch.add(log);
+                    if (batch.size() == batchSize) {
+                        store(batch, names, results);
+                    }
+                }
+            }
+            store(batch, names, results);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InternalServerErrorException();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof CombatLogTooLargeException) {
+                throw (CombatLogTooLargeException) ex.getCause();
+            }
+            LOGGER.error(ex.getMessage(), ex);
+            throw new InternalServerErrorException();
+        } catch (InputIsNotParsableException | InternalServerErrorException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            throw new InternalServerErrorException();
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        if (results.isEmpty()) {
+            throw new InputIsNotParsableException();
+        }
+        return results;
+    }
+
+    /**
+     * Ingests the files of a zip archive as combat logs. The archive is spooled to a temporary file, from which every
+     * parser thread inflates its own file while parsing it, so no file is held in memory as a whole.
+     *
+     * @param archive the zip content
+     * @return per file of the archive, directories excluded, its status and the id of the match stored from it
+     */
+    public List<BulkIngestResult> ingestZip(InputStream archive) throws InputIsNotParsableException,
+            CombatLogTooLargeException, InternalServerErrorException {
+        Path spool = null;
+        try {
+            spool = Files.createTempFile("bulk-", ".zip");
+            Files.copy(new BoundedInputStream(archive, maxBulkSize), spool, StandardCopyOption.REPLACE_EXISTING);
+            try (ZipFile zip = new ZipFile(spool.toFile())) {
+                return ingest(zip.stream()
+                        .filter(entry -> !entry.isDirectory())
+                        .map(entry -> (CombatLogSource) new CombatLogSource() {
+                            @Override
+                            public String getName() {
+                                return entry.getName();
+                            }
+
+                            @Override
+                            public InputStream open() throws IOException {
+                                return zip.getInputStream(entry);
+                            }
+                        })
+                        .iterator());
+            }
+        } catch (ZipException ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            throw new InputIsNotParsableException();
+        } catch (IOException ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            throw new InternalServerErrorException();
+        } finally {
+            delete(spool);
+        }
+    }
+
+    private static void delete(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            LOGGER.warn("Could not delete " + file, ex);
+        }
+    }
+
+    /**
+     * Parses a log while hashing it. The hash covers the bytes of the file as sent, before any gunzip, which is what
+     * the bootstrap hashes for a file of its directory. The file counts against the size left to the request, and its
+     * decompressed content against {@code dota.ingest.max-log-size}.
+     */
+    private ParsedLog parse(int index, CombatLogSource source, AtomicLong remaining) {
+        IngestMetrics.ParseRecorder recorder = ingestMetrics.parseRecorder();
+        MessageDigest digest = Utils.newSha256();
+        List<CombatLogEntryEntity> entries = new ArrayList<>();
+        try (InputStream file = new DigestInputStream(new BoundedInputStream(source.open(), remaining), digest);
+             BufferedReader reader = Utils.newReader(
+                     new BoundedInputStream(Utils.gunzipIfCompressed(file), maxLogSize))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                CombatLogEntryEntity entry = recorder.parse(line);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+            // Hashes whatever follows the content the gunzip stopped at
+            file.transferTo(OutputStream.nullOutputStream());
+        } catch (Exception ex) {
+            if (remaining.get() < 0) {
+                throw new CombatLogTooLargeException();
+            }
+            LOGGER.error("Could not read " + source.getName(), ex);
+            return new ParsedLog(index, null, null);
+        } finally {
+            recorder.publish();
+        }
+        return new ParsedLog(index, Utils.toHex(digest.digest()), entries.isEmpty() ? null : entries);
+    }
+
+    private void store(List<ParsedLog> batch, List<String> names, List<BulkIngestResult> results) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Pair<Iterator<CombatLogEntryEntity>, String>> logs = new ArrayList<>(batch.size());
+        batch.forEach(log -> logs.add(Pair.of(log.entries.iterator(), log.hash)));
+        try {
+            List<Long> matchIds = matchService.ingestEntries(logs);
+            for (int i = 0; i < batch.size(); i++) {
+                int index = batch.get(i).index;
+                results.set(index, result(names, index, Status.INGESTED, matchIds.get(i)));
+            }
+        } catch (InputIsNotParsableException | InternalServerErrorException ex) {
+            batch.forEach(log -> results.set(log.index, result(names, log.index, Status.FAILED, null)));
+        }
+        batch.clear();
+    }
+
+    private static BulkIngestResult result(List<String> names, int index, Status status, Long matchId) {
+        return new BulkIngestResult(names.get(index), status.name(), matchId);
+    }
+
+    private static final class ParsedLog {
+        private final int index;
+        private final String hash;
+        /**
+         * The parsed entries, or null if the log could not be read or has no entry of interest.
+         */
+        private final List<CombatLogEntryEntity> entries;
+
+        private ParsedLog(int index, String hash, List<CombatLogEntryEntity> entries) {
+            this.index = index;
+            this.hash = hash;
+            this.entries = entries;
+        }
+    }
+}
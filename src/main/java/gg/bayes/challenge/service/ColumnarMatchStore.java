@@ -0,0 +1,586 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.model.ColumnarMatch;
+import gg.bayes.challenge.model.Fight;
+import gg.bayes.challenge.model.HeroMatrix;
+import gg.bayes.challenge.model.HeroRollup;
+import gg.bayes.challenge.model.MatchAggregates;
+import gg.bayes.challenge.model.NameDictionary;
+import gg.bayes.challenge.model.Timeline;
+import gg.bayes.challenge.model.exception.CombatLogTooLargeException;
+import gg.bayes.challenge.model.exception.InputIsNotParsableException;
+import gg.bayes.challenge.model.exception.MatchNotFoundException;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.persistence.model.SourceFileEntity;
+import gg.bayes.challenge.rest.model.HeroDamage;
+import gg.bayes.challenge.rest.model.HeroItem;
+import gg.bayes.challenge.rest.model.HeroKills;
+import gg.bayes.challenge.rest.model.HeroSpells;
+import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps matches in memory as {@link ColumnarMatch} columns, with hero, ability and item names encoded through shared
+ * dictionaries. Queries scan the columns of one match and count into arrays indexed by dictionary id. Nothing is
+ * persisted, so matches are lost on restart.
+ */
+@Service
+@ConditionalOnProperty(prefix = "dota.storage", name = "engine", havingValue = "columnar")
+public class ColumnarMatchStore implements MatchStore {
+
+    private static final byte HERO_KILLED = ColumnarMatch.code(CombatLogEntryEntity.Type.HERO_KILLED);
+    private static final byte ITEM_PURCHASED = ColumnarMatch.code(CombatLogEntryEntity.Type.ITEM_PURCHASED);
+    private static final byte SPELL_CAST = ColumnarMatch.code(CombatLogEntryEntity.Type.SPELL_CAST);
+    private static final byte DAMAGE_DONE = ColumnarMatch.code(CombatLogEntryEntity.Type.DAMAGE_DONE);
+
+    private final Map<Long, ColumnarMatch> matches = new ConcurrentHashMap<>();
+    private final Map<Long, ColumnarMatch.Builder> openMatches = new ConcurrentHashMap<>();
+    private final Set<String> sourceHashes = ConcurrentHashMap.newKeySet();
+    private final Map<String, SourceFileEntity> sourceFiles = new ConcurrentHashMap<>();
+    private final Map<Long, List<Fight>> fights = new ConcurrentHashMap<>();
+    private final Map<Long, byte[]> archives = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final NameDictionary heroes = new NameDictionary();
+    private final NameDictionary abilities = new NameDictionary();
+    private final NameDictionary items = new NameDictionary();
+    private final Map<String, HeroRollup> rollups = new HashMap<>();
+
+    @Override
+    public Long save(Iterator<CombatLogEntryEntity> entries, String sourceHash) throws InputIsNotParsableException {
+        return saveAll(List.of(Pair.of(entries, sourceHash))).get(0);
+    }
+
+    /**
+     * Builds every match before publishing any, so a log without entries leaves the store unchanged.
+     */
+    @Override
+    public List<Long> saveAll(List<Pair<Iterator<CombatLogEntryEntity>, String>> logs)
+            throws InputIsNotParsableException {
+        List<ColumnarMatch> built = new ArrayList<>(logs.size());
+        List<MatchAggregates> aggregates = new ArrayList<>(logs.size());
+        for (Pair<Iterator<CombatLogEntryEntity>, String> log : logs) {
+            MatchAggregates matchAggregates = new MatchAggregates();
+            built.add(build(log.getLeft(), matchAggregates));
+            aggregates.add(matchAggregates);
+        }
+        List<Long> matchIds = new ArrayList<>(logs.size());
+        for (int i = 0; i < logs.size(); i++) {
+            Long matchId = nextId.getAndIncrement();
+            fights.put(matchId, aggregates.get(i).getFightDetector().fights());
+            matches.put(matchId, built.get(i));
+            addRollups(aggregates.get(i));
+            if (logs.get(i).getRight() != null) {
+                sourceHashes.add(logs.get(i).getRight());
+            }
+            matchIds.add(matchId);
+        }
+        return matchIds;
+    }
+
+    private ColumnarMatch build(Iterator<CombatLogEntryEntity> entries, MatchAggregates aggregates) {
+        ColumnarMatch.Builder builder = new ColumnarMatch.Builder();
+        while (entries.hasNext()) {
+            CombatLogEntryEntity entry = entries.next();
+            add(builder, entry);
+            aggregates.add(entry);
+        }
+        if (builder.size() == 0) {
+            throw new InputIsNotParsableException();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Reserves an id and collects the appended entries in a builder. The match becomes queryable once closed.
+     */
+    @Override
+    public Long open() {
+        Long matchId = nextId.getAndIncrement();
+        openMatches.put(matchId, new ColumnarMatch.Builder());
+        return matchId;
+    }
+
+    @Override
+    public void append(Long matchId, List<CombatLogEntryEntity> entries) throws MatchNotFoundException {
+        ColumnarMatch.Builder builder = findOpenMatch(matchId);
+        synchronized (builder) {
+            entries.forEach(entry -> add(builder, entry));
+        }
+    }
+
+    @Override
+    public void close(Long matchId, MatchAggregates aggregates) throws MatchNotFoundException {
+        ColumnarMatch.Builder builder = findOpenMatch(matchId);
+        fights.put(matchId, aggregates.getFightDetector().fights());
+        synchronized (builder) {
+            matches.put(matchId, builder.build());
+        }
+        openMatches.remove(matchId);
+        addRollups(aggregates);
+    }
+
+    /**
+     * Reserves an id and keeps the compressed log, which is all an evicted match costs. The log is read into an
+     * array of its exact length.
+     */
+    @Override
+    public Long archive(InputStream content, long length, long rawSize, Consumer<Long> reserved)
+            throws IOException {
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new CombatLogTooLargeException();
+        }
+        byte[] bytes = content.readNBytes((int) length);
+        Long matchId = nextId.getAndIncrement();
+        reserved.accept(matchId);
+        archives.put(matchId, bytes);
+        return matchId;
+    }
+
+    @Override
+    public byte[] getArchive(Long matchId) throws MatchNotFoundException {
+        return findArchive(matchId);
+    }
+
+    @Override
+    public Map<Long, Boolean> findArchives() {
+        Map<Long, Boolean> result = new HashMap<>();
+        archives.keySet().forEach(matchId -> result.put(matchId, matches.containsKey(matchId)));
+        return result;
+    }
+
+    /**
+     * Builds the columns and fights of the archived match, leaving the rollups as they are. Loads of one match are
+     * not expected to run concurrently.
+     */
+    @Override
+    public void load(Long matchId, Iterator<CombatLogEntryEntity> entries)
+            throws MatchNotFoundException, InputIsNotParsableException {
+        findArchive(matchId);
+        MatchAggregates aggregates = new MatchAggregates();
+        ColumnarMatch match = build(entries, aggregates);
+        fights.put(matchId, aggregates.getFightDetector().fights());
+        matches.put(matchId, match);
+    }
+
+    @Override
+    public void evict(Long matchId) throws MatchNotFoundException {
+        findArchive(matchId);
+        matches.remove(matchId);
+        fights.remove(matchId);
+    }
+
+    private byte[] findArchive(Long matchId) throws MatchNotFoundException {
+        byte[] archive = archives.get(matchId);
+        if (archive == null) {
+            throw new MatchNotFoundException();
+        }
+        return archive;
+    }
+
+    private void addRollups(MatchAggregates aggregates) {
+        Map<String, HeroRollup> match = HeroRollup.of(aggregates);
+        synchronized (rollups) {
+            match.forEach((hero, rollup) -> rollups.computeIfAbsent(hero, HeroRollup::new).add(rollup));
+        }
+    }
+
+    private ColumnarMatch.Builder findOpenMatch(Long matchId) throws MatchNotFoundException {
+        ColumnarMatch.Builder builder = openMatches.get(matchId);
+        if (builder == null) {
+            throw new MatchNotFoundException();
+        }
+        return builder;
+    }
+
+    private void add(ColumnarMatch.Builder builder, CombatLogEntryEntity entry) {
+        builder.add(entry.getTimestamp(), entry.getType(), heroes.id(entry.getActor()), encode(heroes, entry.getTarget()),
+                entry.getType() == CombatLogEntryEntity.Type.ITEM_PURCHASED
+                        ? encode(items, entry.getItem()) : encode(abilities, entry.getAbility()),
+                entry.getType() == CombatLogEntryEntity.Type.DAMAGE_DONE
+                        ? entry.getDamage() : Objects.requireNonNullElse(entry.getAbilityLevel(), -1));
+    }
+
+    private static int encode(NameDictionary dictionary, String name) {
+        return name == null ? -1 : dictionary.id(name);
+    }
+
+    @Override
+    public boolean isIngested(String sourceHash) {
+        return sourceHashes.contains(sourceHash);
+    }
+
+    @Override
+    public Optional<SourceFileEntity> findSourceFile(String path) {
+        return Optional.ofNullable(sourceFiles.get(path));
+    }
+
+    @Override
+    public void saveSourceFile(SourceFileEntity sourceFile) {
+        sourceFiles.put(sourceFile.getPath(), sourceFile);
+    }
+
+    private ColumnarMatch findMatch(Long matchId) throws MatchNotFoundException {
+        ColumnarMatch match = matches.get(matchId);
+        if (match == null) {
+            throw new MatchNotFoundException();
+        }
+        return match;
+    }
+
+    /**
+     * @return the match, or the rows appended so far if the match is still open
+     */
+    private ColumnarMatch findWindowMatch(Long matchId) throws MatchNotFoundException {
+        ColumnarMatch.Builder builder = openMatches.get(matchId);
+        if (builder == null) {
+            return findMatch(matchId);
+        }
+        synchronized (builder) {
+            return builder.build();
+        }
+    }
+
+    /**
+     * Rebuilds entries from the columns. Rows are in timestamp order, which is the log order unless the log was not.
+     */
+    @Override
+    public void forEachEntry(Long matchId, Consumer<CombatLogEntryEntity> consumer) throws MatchNotFoundException {
+        ColumnarMatch match = findMatch(matchId);
+        long[] timestamps = match.getTimestamps();
+        int[] actors = match.getActors();
+        int[] targets = match.getTargets();
+        int[] names = match.getNames();
+        int[] values = match.getValues();
+        for (int row = 0; row < match.getSize(); row++) {
+            CombatLogEntryEntity.Type type = match.type(row);
+            CombatLogEntryEntity.CombatLogEntryEntityBuilder entry = CombatLogEntryEntity.builder()
+                    .type(type)
+                    .timestamp(timestamps[row])
+                    .actor(heroes.name(actors[row]))
+                    .target(decode(heroes, targets[row]));
+            if (type == CombatLogEntryEntity.Type.ITEM_PURCHASED) {
+                entry.item(decode(items, names[row]));
+            } else {
+                entry.ability(decode(abilities, names[row]));
+            }
+            if (type == CombatLogEntryEntity.Type.DAMAGE_DONE) {
+                entry.damage(values[row]);
+            } else if (values[row] >= 0) {
+                entry.abilityLevel(values[row]);
+            }
+            consumer.accept(entry.build());
+        }
+    }
+
+    private static String decode(NameDictionary dictionary, int id) {
+        return id < 0 ? null : dictionary.name(id);
+    }
+
+    @Override
+    public Set<String> getHeroes(Long matchId) throws MatchNotFoundException {
+        ColumnarMatch match = findMatch(matchId);
+        int[] actors = match.getActors();
+        boolean[] seen = new boolean[heroes.size()];
+        Set<String> result = new HashSet<>();
+        for (int row = 0; row < match.getSize(); row++) {
+            if (!seen[actors[row]]) {
+                seen[actors[row]] = true;
+                result.add(heroes.name(actors[row]));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<HeroKills> getKills(Long matchId) throws MatchNotFoundException {
+        ColumnarMatch match = findMatch(matchId);
+        byte[] types = match.getTypes();
+        int[] actors = match.getActors();
+        int[] counts = new int[heroes.size()];
+        for (int row = 0; row < match.getSize(); row++) {
+            if (types[row] == HERO_KILLED) {
+                counts[actors[row]]++;
+            }
+        }
+        List<HeroKills> result = new ArrayList<>();
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) {
+                result.add(new HeroKills(heroes.name(id), counts[id]));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<HeroItem> getItems(Long matchId, String hero) throws MatchNotFoundException {
+        ColumnarMatch match = findMatch(matchId);
+        return getItems(match, hero, 0, match.getSize());
+    }
+
+    @Override
+    public List<HeroSpells> getSpells(Long matchId, String hero) throws MatchNotFoundException {
+        ColumnarMatch match = findMatch(matchId);
+        return getSpells(match, hero, 0, match.getSize());
+    }
+
+    @Override
+    public List<HeroDamage> getDamages(Long matchId, String hero) throws MatchNotFoundException {
+        ColumnarMatch match = findMatch(matchId);
+        return getDamages(match, hero, 0, match.getSize());
+    }
+
+    /**
+     * Windowed queries binary search the window in the timestamp column and scan its rows only. Unlike the other
+     * queries, they are not answered from the running aggregates of a live match, so they read the rows appended so
+     * far to an open match.
+     */
+    @Override
+    public List<HeroItem> getItems(Long matchId, String hero, long from, long to) throws MatchNotFoundException {
+        ColumnarMatch match = findWindowMatch(matchId);
+        return getItems(match, hero, match.firstRowAt(from), match.firstRowAt(to));
+    }
+
+    @Override
+    public List<HeroSpells> getSpells(Long matchId, String hero, long from, long to) throws MatchNotFoundException {
+        ColumnarMatch match = findWindowMatch(matchId);
+        return getSpells(match, hero, match.firstRowAt(from), match.firstRowAt(to));
+    }
+
+    @Override
+    public List<HeroDamage> getDamages(Long matchId, String hero, long from, long to) throws MatchNotFoundException {
+        ColumnarMatch match = findWindowMatch(matchId);
+        return getDamages(match, hero, match.firstRowAt(from), match.firstRowAt(to));
+    }
+
+    @Override
+    public Timeline getTimeline(Long matchId, String hero, long from, long to, long bucketSize)
+            throws MatchNotFoundException {
+        ColumnarMatch match = findWindowMatch(matchId);
+        Timeline timeline = new Timeline(from, bucketSize);
+        int actor = heroes.find(hero);
+        if (actor < 0) {
+            return timeline;
+        }
+        int[] actors = match.getActors();
+        long[] timestamps = match.getTimestamps();
+        int[] values = match.getValues();
+        for (int row = match.firstRowAt(from), end = match.firstRowAt(to); row < end; row++) {
+            if (actors[row] == actor) {
+                CombatLogEntryEntity.Type type = match.type(row);
+                timeline.add(timestamps[row], type, type == CombatLogEntryEntity.Type.DAMAGE_DONE ? values[row] : 0);
+            }
+        }
+        return timeline;
+    }
+
+    private List<HeroItem> getItems(ColumnarMatch match, String hero, int fromRow, int toRow) {
+        List<HeroItem> result = new ArrayList<>();
+        int actor = heroes.find(hero);
+        if (actor < 0) {
+            return result;
+        }
+        byte[] types = match.getTypes();
+        int[] actors = match.getActors();
+        int[] names = match.getNames();
+        long[] timestamps = match.getTimestamps();
+        for (int row = fromRow; row < toRow; row++) {
+            if (types[row] == ITEM_PURCHASED && actors[row] == actor) {
+                result.add(new HeroItem(items.name(names[row]), timestamps[row]));
+            }
+        }
+        return result;
+    }
+
+    private List<HeroSpells> getSpells(ColumnarMatch match, String hero, int fromRow, int toRow) {
+        List<HeroSpells> result = new ArrayList<>();
+        int actor = heroes.find(hero);
+        if (actor < 0) {
+            return result;
+        }
+        byte[] types = match.getTypes();
+        int[] actors = match.getActors();
+        int[] names = match.getNames();
+        int[] counts = new int[abilities.size()];
+        for (int row = fromRow; row < toRow; row++) {
+            if (types[row] == SPELL_CAST && actors[row] == actor) {
+                counts[names[row]]++;
+            }
+        }
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) {
+                result.add(new HeroSpells(abilities.name(id), counts[id]));
+            }
+        }
+        return result;
+    }
+
+    private List<HeroDamage> getDamages(ColumnarMatch match, String hero, int fromRow, int toRow) {
+        List<HeroDamage> result = new ArrayList<>();
+        int actor = heroes.find(hero);
+        if (actor < 0) {
+            return result;
+        }
+        byte[] types = match.getTypes();
+        int[] actors = match.getActors();
+        int[] targets = match.getTargets();
+        int[] values = match.getValues();
+        int[] instances = new int[heroes.size()];
+        int[] totals = new int[heroes.size()];
+        for (int row = fromRow; row < toRow; row++) {
+            if (types[row] == DAMAGE_DONE && actors[row] == actor) {
+                instances[targets[row]]++;
+                totals[targets[row]] += values[row];
+            }
+        }
+        for (int id = 0; id < instances.length; id++) {
+            if (instances[id] > 0) {
+                result.add(new HeroDamage(heroes.name(id), instances[id], totals[id]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Folds every row of the match in one scan. Counts go to arrays indexed by dictionary id, allocated only for the
+     * heroes acting in the match.
+     */
+    @Override
+    public MatchAggregates getAggregates(Long matchId) throws MatchNotFoundException {
+        ColumnarMatch match = findMatch(matchId);
+        byte[] types = match.getTypes();
+        int[] actors = match.getActors();
+        int[] targets = match.getTargets();
+        int[] names = match.getNames();
+        int[] values = match.getValues();
+        long[] timestamps = match.getTimestamps();
+        int heroCount = heroes.size();
+        long[] kills = new long[heroCount];
+        long[][] victims = new long[heroCount][];
+        long[][] casts = new long[heroCount][];
+        int[][] instances = new int[heroCount][];
+        int[][] totals = new int[heroCount][];
+        MatchAggregates aggregates = new MatchAggregates();
+        for (int row = 0; row < match.getSize(); row++) {
+            int actor = actors[row];
+            byte type = types[row];
+            if (type == HERO_KILLED) {
+                kills[actor]++;
+                if (victims[actor] == null) {
+                    victims[actor] = new long[heroCount];
+                }
+                victims[actor][targets[row]]++;
+            } else if (type == SPELL_CAST) {
+                if (casts[actor] == null) {
+                    casts[actor] = new long[abilities.size()];
+                }
+                casts[actor][names[row]]++;
+            } else if (type == DAMAGE_DONE) {
+                if (instances[actor] == null) {
+                    instances[actor] = new int[heroCount];
+                    totals[actor] = new int[heroCount];
+                }
+                instances[actor][targets[row]]++;
+                totals[actor][targets[row]] += values[row];
+            } else if (type == ITEM_PURCHASED) {
+                aggregates.addItem(heroes.name(actor), items.name(names[row]), timestamps[row]);
+            }
+        }
+        for (int actor = 0; actor < heroCount; actor++) {
+            String hero = heroes.name(actor);
+            if (kills[actor] > 0) {
+                aggregates.addKills(hero, kills[actor]);
+                for (int victim = 0; victim < heroCount; victim++) {
+                    if (victims[actor][victim] > 0) {
+                        aggregates.addVictim(hero, heroes.name(victim), victims[actor][victim]);
+                    }
+                }
+            }
+            if (casts[actor] != null) {
+                for (int ability = 0; ability < casts[actor].length; ability++) {
+                    if (casts[actor][ability] > 0) {
+                        aggregates.addCasts(hero, abilities.name(ability), casts[actor][ability]);
+                    }
+                }
+            }
+            if (instances[actor] != null) {
+                for (int target = 0; target < heroCount; target++) {
+                    if (instances[actor][target] > 0) {
+                        aggregates.addDamage(hero, heroes.name(target), instances[actor][target],
+                                totals[actor][target]);
+                    }
+                }
+            }
+        }
+        return aggregates;
+    }
+
+    /**
+     * Scans the type, actor, target and value columns once, mapping hero ids to matrix indexes through an array so
+     * only the first appearance of a hero looks its name up.
+     */
+    @Override
+    public HeroMatrix getMatrix(Long matchId) throws MatchNotFoundException {
+        ColumnarMatch match = findMatch(matchId);
+        byte[] types = match.getTypes();
+        int[] actors = match.getActors();
+        int[] targets = match.getTargets();
+        int[] values = match.getValues();
+        int[] indexes = new int[heroes.size()];
+        Arrays.fill(indexes, -1);
+        HeroMatrix.Builder builder = new HeroMatrix.Builder();
+        for (int row = 0; row < match.getSize(); row++) {
+            byte type = types[row];
+            if (type != DAMAGE_DONE && type != HERO_KILLED) {
+                continue;
+            }
+            int attacker = matrixIndex(builder, indexes, actors[row]);
+            int victim = matrixIndex(builder, indexes, targets[row]);
+            if (type == DAMAGE_DONE) {
+                builder.addDamage(attacker, victim, 1, values[row]);
+            } else {
+                builder.addKills(attacker, victim, 1);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Fights are detected with the running aggregates while the match is ingested, and kept next to its columns.
+     */
+    @Override
+    public List<Fight> getFights(Long matchId) throws MatchNotFoundException {
+        findMatch(matchId);
+        return new ArrayList<>(fights.get(matchId));
+    }
+
+    private int matrixIndex(HeroMatrix.Builder builder, int[] indexes, int hero) {
+        if (indexes[hero] < 0) {
+            indexes[hero] = builder.index(heroes.name(hero));
+        }
+        return indexes[hero];
+    }
+
+    /**
+     * Answered from rollups kept in memory and updated by every stored match, so no match is scanned.
+     */
+    @Override
+    public Optional<HeroRollup> getHeroRollup(String hero) {
+        synchronized (rollups) {
+            HeroRollup rollup = rollups.get(hero);
+            if (rollup == null) {
+                return Optional.empty();
+            }
+            HeroRollup copy = new HeroRollup(hero);
+            copy.add(rollup);
+            return Optional.of(copy);
+        }
+    }
+}
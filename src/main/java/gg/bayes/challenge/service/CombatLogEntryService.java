@@ -1,27 +1,130 @@
 package gg.bayes.challenge.service;
 
+import gg.bayes.challenge.config.DotaProperties;
 import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
-import gg.bayes.challenge.persistence.model.MatchEntity;
+import gg.bayes.challenge.persistence.projection.DamageTotal;
+import gg.bayes.challenge.persistence.projection.HeroPairTotal;
+import gg.bayes.challenge.persistence.projection.ItemPurchase;
+import gg.bayes.challenge.persistence.projection.NameCount;
+import gg.bayes.challenge.persistence.projection.TimedEvent;
+import gg.bayes.challenge.persistence.repository.CombatLogEntryBatchWriter;
 import gg.bayes.challenge.persistence.repository.CombatLogEntryRepository;
+import gg.bayes.challenge.persistence.repository.NameDictionaryRepository;
 import org.springframework.stereotype.Service;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 
 @Service
 public class CombatLogEntryService {
 
     private final CombatLogEntryRepository combatLogEntryRepository;
+    private final CombatLogEntryBatchWriter combatLogEntryBatchWriter;
+    private final NameDictionaryRepository nameDictionaryRepository;
+    private final DotaProperties dotaProperties;
 
-    public CombatLogEntryService(CombatLogEntryRepository combatLogEntryRepository) {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CombatLogEntryService(CombatLogEntryRepository combatLogEntryRepository,
+                                 CombatLogEntryBatchWriter combatLogEntryBatchWriter,
+                                 NameDictionaryRepository nameDictionaryRepository,
+                                 DotaProperties dotaProperties) {
         this.combatLogEntryRepository = combatLogEntryRepository;
+        this.combatLogEntryBatchWriter = combatLogEntryBatchWriter;
+        this.nameDictionaryRepository = nameDictionaryRepository;
+        this.dotaProperties = dotaProperties;
+    }
+
+    /**
+     * Streams the entries of a match in insertion order, detaching each one once consumed so the persistence context
+     * does not grow with the match. Must be called within a transaction.
+     *
+     * @param matchId  the match identifier
+     * @param consumer receives every entry
+     */
+    public void forEachEntry(Long matchId, Consumer<CombatLogEntryEntity> consumer) {
+        try (Stream<CombatLogEntryEntity> entries = combatLogEntryRepository.streamByMatchId(matchId)) {
+            entries.forEach(entry -> {
+                consumer.accept(entry);
+                entityManager.detach(entry);
+            });
+        }
+    }
+
+    public List<String> fetchActors(Long matchId) {
+        return combatLogEntryRepository.findActors(matchId);
+    }
+
+    public List<NameCount> fetchKills(Long matchId) {
+        return combatLogEntryRepository.countByActor(matchId, CombatLogEntryEntity.Type.HERO_KILLED);
+    }
+
+    public List<ItemPurchase> fetchItems(Long matchId, String actor) {
+        return combatLogEntryRepository.findItemPurchases(matchId, actor, CombatLogEntryEntity.Type.ITEM_PURCHASED);
+    }
+
+    public List<NameCount> fetchSpells(Long matchId, String actor) {
+        return combatLogEntryRepository.countByAbility(matchId, actor, CombatLogEntryEntity.Type.SPELL_CAST);
+    }
+
+    public List<DamageTotal> fetchDamages(Long matchId, String actor) {
+        return combatLogEntryRepository.sumDamageByTarget(matchId, actor, CombatLogEntryEntity.Type.DAMAGE_DONE);
+    }
+
+    public List<HeroPairTotal> fetchHeroPairs(Long matchId) {
+        return combatLogEntryRepository.sumByActorAndTarget(matchId,
+                EnumSet.of(CombatLogEntryEntity.Type.DAMAGE_DONE, CombatLogEntryEntity.Type.HERO_KILLED));
+    }
+
+    public List<ItemPurchase> fetchItems(Long matchId, String actor, long from, long to) {
+        return combatLogEntryRepository.findItemPurchasesBetween(matchId, actor, from, to,
+                CombatLogEntryEntity.Type.ITEM_PURCHASED);
+    }
+
+    public List<NameCount> fetchSpells(Long matchId, String actor, long from, long to) {
+        return combatLogEntryRepository.countByAbilityBetween(matchId, actor, from, to,
+                CombatLogEntryEntity.Type.SPELL_CAST);
+    }
+
+    public List<DamageTotal> fetchDamages(Long matchId, String actor, long from, long to) {
+        return combatLogEntryRepository.sumDamageByTargetBetween(matchId, actor, from, to,
+                CombatLogEntryEntity.Type.DAMAGE_DONE);
+    }
+
+    public List<TimedEvent> fetchEvents(Long matchId, String actor, long from, long to) {
+        return combatLogEntryRepository.findEventsBetween(matchId, actor, from, to);
     }
 
-    public List<CombatLogEntryEntity> fetchEntries(MatchEntity matchEntity, CombatLogEntryEntity.Type type) {
-        return combatLogEntryRepository.findCombatLogEntryEntitiesByMatchAndType(matchEntity, type);
+    /**
+     * Persists a chunk of entries with the configured {@code dota.ingest.writer}, after registering their names in the
+     * name dictionaries. With the JPA writer the entries are detached from the persistence context afterwards, so that
+     * the memory held by an ingest is bounded by the chunk size. Must be called within a transaction, after the match has been flushed.
+     *
+     * @param entries the entries to persist, already associated with their match
+     */
+    public void persistChunk(List<CombatLogEntryEntity> entries) {
+        nameDictionaryRepository.register(entries);
+        if (dotaProperties.getIngest().getWriter() == DotaProperties.Writer.JDBC) {
+            combatLogEntryBatchWriter.insert(entries);
+        } else {
+            combatLogEntryRepository.saveAll(entries);
+            entityManager.flush();
+            entityManager.clear();
+        }
     }
 
-    public List<CombatLogEntryEntity> fetchEntries(MatchEntity matchEntity, String actor, CombatLogEntryEntity.Type type) {
-        return combatLogEntryRepository.findCombatLogEntryEntitiesByMatchAndActorAndType(matchEntity, actor, type);
+    /**
+     * Deletes every entry of a match. Must be called within a transaction.
+     *
+     * @param matchId the match identifier
+     */
+    public void deleteEntries(Long matchId) {
+        combatLogEntryBatchWriter.delete(matchId);
     }
 }
@@ -76,6 +76,17 @@ public enum CombatLogParser {
 
     protected abstract CombatLogEntryEntity buildCombatLogEntry(Matcher matcher);
 
+    /**
+     * Parses a combat log line in a single scan. The result is the same entry the first matching constant would
+     * build with {@link #parseCombatLog(String)}, without trying each regular expression in turn.
+     *
+     * @param line the combat log line
+     * @return the parsed entry, or null if the line is not one of the events of interest
+     */
+    public static CombatLogEntryEntity parse(CharSequence line) {
+        return CombatLogTokenizer.parse(line);
+    }
+
     public CombatLogEntryEntity parseCombatLog(String s) {
         Matcher matcher = pattern.matcher(s);
         return matcher.matches() ? buildCombatLogEntry(matcher) : null;
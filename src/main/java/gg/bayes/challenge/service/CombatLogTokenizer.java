@@ -0,0 +1,235 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.model.NameDictionary;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+
+import java.time.Duration;
+import java.time.LocalTime;
+
+/**
+ * Single pass scanner for combat log lines. It reads the timestamp with integer arithmetic, dispatches on the verb
+ * following the actor and produces the same entries as the {@link CombatLogParser} regular expressions. Hero, ability
+ * and item names are resolved against process wide dictionaries, so a name seen before is returned as its canonical
+ * string without allocating.
+ */
+public final class CombatLogTokenizer {
+
+    private static final String HERO_PREFIX = "npc_dota_hero_";
+    private static final String NPC_PREFIX = "npc_dota_";
+    private static final String ACTOR_PREFIX = " " + HERO_PREFIX;
+
+    private static final String BUYS = "buys item item_";
+    private static final String IS_KILLED_BY = "is killed by " + HERO_PREFIX;
+    private static final String CASTS = "casts ability ";
+    private static final String HITS = "hits " + HERO_PREFIX;
+
+    /**
+     * Bound on the names kept per dictionary, so that logs full of junk names cannot grow them without limit. Past it,
+     * unknown names are allocated per line.
+     */
+    private static final int MAX_NAMES = 8192;
+    private static final NameDictionary UNITS = new NameDictionary();
+    private static final NameDictionary ABILITIES = new NameDictionary();
+    private static final NameDictionary ITEMS = new NameDictionary();
+
+    private CombatLogTokenizer() {
+    }
+
+    /**
+     * Parses a single combat log line.
+     *
+     * @param line the combat log line without its line terminator
+     * @return the parsed entry, or null if the line is not one of the events of interest
+     */
+    public static CombatLogEntryEntity parse(CharSequence line) {
+        int length = line.length();
+        if (length == 0 || line.charAt(0) != '[') {
+            return null;
+        }
+        int close = indexOf(line, ']', 1, length);
+        if (close < 0 || !regionMatches(line, close + 1, ACTOR_PREFIX)) {
+            return null;
+        }
+        int actorStart = close + 1 + ACTOR_PREFIX.length();
+        int actorEnd = indexOf(line, ' ', actorStart, length);
+        if (actorEnd <= actorStart) {
+            return null;
+        }
+        int verb = actorEnd + 1;
+        if (verb >= length) {
+            return null;
+        }
+
+        switch (line.charAt(verb)) {
+            case 'b':
+                return parsePurchase(line, close, actorStart, actorEnd, verb);
+            case 'i':
+                return parseKill(line, close, actorStart, actorEnd, verb);
+            case 'c':
+                return parseCast(line, close, actorStart, actorEnd, verb);
+            case 'h':
+                return parseDamage(line, close, actorStart, actorEnd, verb);
+            default:
+                return null;
+        }
+    }
+
+    private static CombatLogEntryEntity parsePurchase(CharSequence line, int close, int actorStart, int actorEnd,
+                                                      int verb) {
+        if (!regionMatches(line, verb, BUYS)) {
+            return null;
+        }
+        return CombatLogEntryEntity.builder()
+                .timestamp(parseTimestamp(line, close))
+                .actor(name(UNITS, line, actorStart, actorEnd))
+                .item(name(ITEMS, line, verb + BUYS.length(), line.length()))
+                .type(CombatLogEntryEntity.Type.ITEM_PURCHASED)
+                .build();
+    }
+
+    private static CombatLogEntryEntity parseKill(CharSequence line, int close, int actorStart, int actorEnd,
+                                                  int verb) {
+        if (!regionMatches(line, verb, IS_KILLED_BY)) {
+            return null;
+        }
+        return CombatLogEntryEntity.builder()
+                .timestamp(parseTimestamp(line, close))
+                .actor(name(UNITS, line, verb + IS_KILLED_BY.length(), line.length()))
+                .target(name(UNITS, line, actorStart, actorEnd))
+                .type(CombatLogEntryEntity.Type.HERO_KILLED)
+                .build();
+    }
+
+    private static CombatLogEntryEntity parseCast(CharSequence line, int close, int actorStart, int actorEnd,
+                                                  int verb) {
+        int length = line.length();
+        if (!regionMatches(line, verb, CASTS)) {
+            return null;
+        }
+        int abilityStart = verb + CASTS.length();
+        int abilityEnd = indexOf(line, ' ', abilityStart, length);
+        if (abilityEnd < 0 || !regionMatches(line, abilityEnd, " (lvl ")) {
+            return null;
+        }
+        int levelStart = abilityEnd + 6;
+        int levelEnd = skipDigits(line, levelStart, length);
+        if (levelEnd == levelStart || !regionMatches(line, levelEnd, ") on ")) {
+            return null;
+        }
+
+        int targetStart = levelEnd + 5;
+        if (regionMatches(line, targetStart, HERO_PREFIX)) {
+            targetStart += HERO_PREFIX.length();
+        } else if (regionMatches(line, targetStart, NPC_PREFIX)) {
+            targetStart += NPC_PREFIX.length();
+        }
+
+        return CombatLogEntryEntity.builder()
+                .timestamp(parseTimestamp(line, close))
+                .actor(name(UNITS, line, actorStart, actorEnd))
+                .target(name(UNITS, line, targetStart, length))
+                .ability(name(ABILITIES, line, abilityStart, abilityEnd))
+                .abilityLevel(Integer.parseInt(line, levelStart, levelEnd, 10))
+                .type(CombatLogEntryEntity.Type.SPELL_CAST)
+                .build();
+    }
+
+    private static CombatLogEntryEntity parseDamage(CharSequence line, int close, int actorStart, int actorEnd,
+                                                    int verb) {
+        int length = line.length();
+        if (!regionMatches(line, verb, HITS)) {
+            return null;
+        }
+        int targetStart = verb + HITS.length();
+        int targetEnd = indexOf(line, ' ', targetStart, length);
+        if (targetEnd < 0 || !regionMatches(line, targetEnd, " with ")) {
+            return null;
+        }
+        int sourceEnd = indexOf(line, ' ', targetEnd + 6, length);
+        if (sourceEnd < 0 || !regionMatches(line, sourceEnd, " for ")) {
+            return null;
+        }
+        int damageStart = sourceEnd + 5;
+        int damageEnd = skipDigits(line, damageStart, length);
+        if (damageEnd == damageStart || !regionMatches(line, damageEnd, " damage")) {
+            return null;
+        }
+
+        return CombatLogEntryEntity.builder()
+                .timestamp(parseTimestamp(line, close))
+                .actor(name(UNITS, line, actorStart, actorEnd))
+                .target(name(UNITS, line, targetStart, targetEnd))
+                .damage(Integer.parseInt(line, damageStart, damageEnd, 10))
+                .type(CombatLogEntryEntity.Type.DAMAGE_DONE)
+                .build();
+    }
+
+    /**
+     * Reads a {@code [HH:MM:SS.mmm]} timestamp as milliseconds since match start. Any other shape is handed to
+     * {@link LocalTime#parse} so that malformed timestamps fail exactly as they do with the regex parser.
+     */
+    private static long parseTimestamp(CharSequence line, int close) {
+        if (close == 13
+                && line.charAt(3) == ':' && line.charAt(6) == ':' && line.charAt(9) == '.'
+                && isDigits(line, 1, 3) && isDigits(line, 4, 6) && isDigits(line, 7, 9) && isDigits(line, 10, 13)) {
+            int hours = digit(line, 1) * 10 + digit(line, 2);
+            int minutes = digit(line, 4) * 10 + digit(line, 5);
+            int seconds = digit(line, 7) * 10 + digit(line, 8);
+            int millis = digit(line, 10) * 100 + digit(line, 11) * 10 + digit(line, 12);
+            if (hours < 24 && minutes < 60 && seconds < 60) {
+                return ((hours * 60L + minutes) * 60L + seconds) * 1000L + millis;
+            }
+        }
+        LocalTime time = LocalTime.parse(line.subSequence(1, close));
+        return Duration.between(LocalTime.MIDNIGHT, time).toMillis();
+    }
+
+    private static String name(NameDictionary dictionary, CharSequence line, int start, int end) {
+        int id = dictionary.find(line, start, end);
+        if (id < 0) {
+            if (dictionary.size() >= MAX_NAMES) {
+                return line.subSequence(start, end).toString();
+            }
+            id = dictionary.id(line, start, end);
+        }
+        return dictionary.name(id);
+    }
+
+    private static int digit(CharSequence s, int index) {
+        return s.charAt(index) - '0';
+    }
+
+    private static boolean isDigits(CharSequence s, int start, int end) {
+        return skipDigits(s, start, end) == end;
+    }
+
+    private static int skipDigits(CharSequence s, int from, int end) {
+        int i = from;
+        while (i < end && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int indexOf(CharSequence s, char c, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(CharSequence s, int offset, String expected) {
+        int length = expected.length();
+        if (offset < 0 || offset + length > s.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(offset + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
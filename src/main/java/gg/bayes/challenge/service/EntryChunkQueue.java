@@ -0,0 +1,114 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Hands the entries of one combat log from the thread parsing it to the thread storing it, in chunks. At most
+ * {@code capacity} full chunks wait for the consumer, after which the producer blocks, so the entries held do not
+ * grow with the size of the log. The producer calls {@link #add(CombatLogEntryEntity)} then {@link #finish()} or
+ * {@link #fail(Exception)}; the consumer iterates.
+ */
+final class EntryChunkQueue implements Iterator<CombatLogEntryEntity> {
+
+    private static final List<CombatLogEntryEntity> END = new ArrayList<>(0);
+
+    private final int chunkSize;
+    private final BlockingQueue<List<CombatLogEntryEntity>> chunks;
+    private List<CombatLogEntryEntity> filling;
+    private volatile Exception failure;
+    private Iterator<CombatLogEntryEntity> current = Collections.emptyIterator();
+    private boolean done;
+
+    EntryChunkQueue(int chunkSize, int capacity) {
+        this.chunkSize = chunkSize;
+        this.chunks = new ArrayBlockingQueue<>(capacity);
+        this.filling = new ArrayList<>(chunkSize);
+    }
+
+    /**
+     * Adds an entry, blocking while {@code capacity} chunks are waiting for the consumer.
+     *
+     * @throws CancellationException if the producer is interrupted while waiting
+     */
+    void add(CombatLogEntryEntity entry) {
+        filling.add(entry);
+        if (filling.size() == chunkSize) {
+            put(filling);
+            filling = new ArrayList<>(chunkSize);
+        }
+    }
+
+    /**
+     * Hands out the last, partial chunk and marks the end of the entries.
+     */
+    void finish() {
+        if (filling != null && !filling.isEmpty()) {
+            put(filling);
+        }
+        filling = null;
+        put(END);
+    }
+
+    /**
+     * Ends the entries with a failure, thrown to the consumer once it has read the entries added before.
+     */
+    void fail(Exception ex) {
+        failure = ex;
+        finish();
+    }
+
+    private void put(List<CombatLogEntryEntity> chunk) {
+        try {
+            chunks.put(chunk);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for the consumer");
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (done) {
+                return false;
+            }
+            List<CombatLogEntryEntity> chunk = take();
+            if (chunk == END) {
+                done = true;
+                current = Collections.emptyIterator();
+                if (failure != null) {
+                    throw new IllegalStateException(failure.getMessage(), failure);
+                }
+                return false;
+            }
+            current = chunk.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public CombatLogEntryEntity next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    private List<CombatLogEntryEntity> take() {
+        try {
+            return chunks.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for entries");
+        }
+    }
+}
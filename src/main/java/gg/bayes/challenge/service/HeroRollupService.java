@@ -0,0 +1,70 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.model.HeroRollup;
+import gg.bayes.challenge.model.MatchAggregates;
+import gg.bayes.challenge.persistence.repository.HeroItemStatsRepository;
+import gg.bayes.challenge.persistence.repository.HeroRollupWriter;
+import gg.bayes.challenge.persistence.repository.HeroSpellStatsRepository;
+import gg.bayes.challenge.persistence.repository.HeroStatsRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the per hero rollups over every match in {@code dota_hero_stats}, {@code dota_hero_item_stats} and
+ * {@code dota_hero_spell_stats}.
+ */
+@Service
+public class HeroRollupService {
+
+    private final HeroStatsRepository heroStatsRepository;
+    private final HeroItemStatsRepository heroItemStatsRepository;
+    private final HeroSpellStatsRepository heroSpellStatsRepository;
+    private final HeroRollupWriter heroRollupWriter;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public HeroRollupService(HeroStatsRepository heroStatsRepository, HeroItemStatsRepository heroItemStatsRepository,
+                             HeroSpellStatsRepository heroSpellStatsRepository, HeroRollupWriter heroRollupWriter) {
+        this.heroStatsRepository = heroStatsRepository;
+        this.heroItemStatsRepository = heroItemStatsRepository;
+        this.heroSpellStatsRepository = heroSpellStatsRepository;
+        this.heroRollupWriter = heroRollupWriter;
+    }
+
+    /**
+     * Adds a match to the rollups. Must be called at the end of the ingest transaction: concurrent ingests would race
+     * to insert the rows of a hero seen for the first time, so the rollups are written by one transaction at a time,
+     * holding a lock until it completes.
+     *
+     * @param aggregates the aggregates of the match
+     */
+    public void add(MatchAggregates aggregates) {
+        writeLock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                writeLock.unlock();
+            }
+        });
+        heroRollupWriter.add(HeroRollup.of(aggregates).values());
+    }
+
+    /**
+     * @param hero the hero name
+     * @return the rollup of the hero, or empty if no stored match has it
+     */
+    public Optional<HeroRollup> fetch(String hero) {
+        return heroStatsRepository.findById(hero).map(stats -> {
+            HeroRollup rollup = new HeroRollup(hero, stats.getMatches(), stats.getKills(), stats.getDamageInstances(),
+                    stats.getTotalDamage());
+            heroItemStatsRepository.findByHero(hero).forEach(row -> rollup.getItems()
+                    .put(row.getItem(), new HeroRollup.Usage(row.getPurchases(), row.getMatches())));
+            heroSpellStatsRepository.findByHero(hero).forEach(row -> rollup.getSpells()
+                    .put(row.getAbility(), new HeroRollup.Usage(row.getCasts(), row.getMatches())));
+            return rollup;
+        });
+    }
+}
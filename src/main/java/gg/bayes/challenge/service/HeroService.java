@@ -0,0 +1,38 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.model.HeroRollup;
+import gg.bayes.challenge.model.exception.InternalServerErrorException;
+import gg.bayes.challenge.model.exception.NoResultException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Service;
+
+@Service
+public class HeroService {
+
+    private static final Logger LOGGER = LogManager.getLogger(HeroService.class.getName());
+    private final MatchStore matchStore;
+
+    public HeroService(MatchStore matchStore) {
+        this.matchStore = matchStore;
+    }
+
+    /**
+     * Fetches the totals of the named hero over every stored match. They are kept up to date by each ingest, so the
+     * lookup does not depend on the number of matches.
+     *
+     * @param hero the hero name
+     * @return the rollup of the hero
+     */
+    public HeroRollup getHero(String hero) throws NoResultException, InternalServerErrorException {
+        try {
+            return matchStore.getHeroRollup(hero).orElseThrow(NoResultException::new);
+        } catch (NoResultException ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            throw ex;
+        } catch (Exception ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            throw new InternalServerErrorException();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.config.DotaProperties;
+import gg.bayes.challenge.model.IngestJob;
+import gg.bayes.challenge.model.exception.CombatLogTooLargeException;
+import gg.bayes.challenge.model.exception.IngestQueueFullException;
+import gg.bayes.challenge.model.exception.InputIsNotParsableException;
+import gg.bayes.challenge.model.exception.InternalServerErrorException;
+import gg.bayes.challenge.model.exception.JobNotFoundException;
+import gg.bayes.challenge.utils.BoundedInputStream;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Ingests combat logs in the background. Uploads are spooled to a temporary file and queued for a fixed pool of
+ * {@code dota.jobs.workers} threads; at most {@code dota.jobs.queue-capacity} logs wait, further submissions are
+ * rejected. A submission reserves its place before its upload is read, so no more than that many uploads are spooled at
+ * once, each of at most {@code dota.jobs.max-log-size}. Finished jobs are kept for {@code dota.jobs.retention}.
+ */
+@Service
+public class IngestJobService {
+
+    private static final Logger LOGGER = LogManager.getLogger(IngestJobService.class.getName());
+
+    private final MatchService matchService;
+    private final DotaProperties.Jobs properties;
+    private final ThreadPoolExecutor workers;
+    // One permit per job being spooled, queued or running
+    private final Semaphore slots;
+    private final Map<String, IngestJob> jobs = new ConcurrentHashMap<>();
+
+    public IngestJobService(MatchService matchService, DotaProperties dotaProperties, MeterRegistry meterRegistry) {
+        this.matchService = matchService;
+        this.properties = dotaProperties.getJobs();
+        // The queue is bounded by the slots
+        this.workers = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(), 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("ingest-worker-"));
+        this.slots = new Semaphore(properties.getWorkers() + properties.getQueueCapacity());
+        Gauge.builder("dota.ingest.jobs.queued", workers.getQueue(), Collection::size)
+                .description("Combat logs waiting for an ingest worker")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Spools a combat log to a temporary file and queues it for ingest.
+     *
+     * @param combatLog the content of the combat log file
+     * @return the queued job
+     */
+    public IngestJob submit(InputStream combatLog) throws IngestQueueFullException, CombatLogTooLargeException,
+            InternalServerErrorException {
+        evictFinishedJobs();
+        // Reject before reading the upload when every worker is busy and the queue is full.
+        if (!slots.tryAcquire()) {
+            throw new IngestQueueFullException();
+        }
+        boolean queued = false;
+        Path spool = null;
+        try {
+            spool = Files.createTempFile("combatlog-", ".log");
+            Files.copy(new BoundedInputStream(combatLog, properties.getMaxLogSize().toBytes()), spool,
+                    StandardCopyOption.REPLACE_EXISTING);
+
+            IngestJob job = new IngestJob(UUID.randomUUID().toString());
+            jobs.put(job.getId(), job);
+            Path file = spool;
+            try {
+                workers.execute(() -> run(job, file));
+            } catch (RejectedExecutionException ex) {
+                jobs.remove(job.getId());
+                throw new IngestQueueFullException();
+            }
+            queued = true;
+            return job;
+        } catch (IOException ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            throw new InternalServerErrorException();
+        } finally {
+            if (!queued) {
+                delete(spool);
+                slots.release();
+            }
+        }
+    }
+
+    /**
+     * @param jobId the job identifier
+     * @return the job with the given id
+     */
+    public IngestJob getJob(String jobId) throws JobNotFoundException {
+        IngestJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new JobNotFoundException();
+        }
+        return job;
+    }
+
+    private void run(IngestJob job, Path spool) {
+        job.setState(IngestJob.State.PARSING);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(spool), StandardCharsets.UTF_8), 1 << 16) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read < 0) {
+                    // The whole log is read, what remains is parsing the last chunks, writing and committing.
+                    job.setState(IngestJob.State.PERSISTING);
+                }
+                return read;
+            }
+        }) {
+            job.done(matchService.ingestCombatLog(reader));
+        } catch (InputIsNotParsableException ex) {
+            job.failed("Could not parse any entry.");
+        } catch (Exception ex) {
+            LOGGER.error("Ingest job " + job.getId() + " failed", ex);
+            job.failed("Internal server error.");
+        } finally {
+            delete(spool);
+            slots.release();
+        }
+    }
+
+    private void evictFinishedJobs() {
+        Instant threshold = Instant.now().minus(properties.getRetention());
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(threshold));
+    }
+
+    private static void delete(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            LOGGER.warn("Could not delete " + file, ex);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the ingest pipeline. Per line work is accumulated in plain fields of a {@link ParseRecorder} and published
+ * to the registry once per combat log, so the hot loop never touches a shared meter. Parse time is sampled on one line
+ * in {@link #PARSE_SAMPLE_INTERVAL}: reading the clock twice per line would cost a noticeable share of a parse that
+ * takes a few hundred nanoseconds.
+ */
+@Service
+public class IngestMetrics {
+
+    private static final CombatLogEntryEntity.Type[] TYPES = CombatLogEntryEntity.Type.values();
+    static final int PARSE_SAMPLE_INTERVAL = 64;
+
+    private final Timer ingest;
+    private final Timer parse;
+    private final Timer persist;
+    private final Timer commit;
+    private final Counter lines;
+    private final Counter unmatched;
+    private final Counter[] matched = new Counter[TYPES.length];
+    private final DistributionSummary entriesPerMatch;
+
+    public IngestMetrics(MeterRegistry registry) {
+        this.ingest = Timer.builder("dota.ingest")
+                .description("Time to ingest a combat log")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.parse = stage(registry, "parse", "Time spent parsing the lines of a combat log");
+        this.persist = stage(registry, "persist", "Time spent writing the entries of a combat log");
+        this.commit = stage(registry, "commit", "Time spent committing the ingest transaction");
+        this.lines = Counter.builder("dota.ingest.lines")
+                .description("Combat log lines read")
+                .register(registry);
+        this.unmatched = Counter.builder("dota.ingest.lines.unmatched")
+                .description("Combat log lines that are not an event of interest")
+                .register(registry);
+        for (CombatLogEntryEntity.Type type : TYPES) {
+            matched[type.ordinal()] = Counter.builder("dota.ingest.lines.matched")
+                    .description("Combat log lines parsed into an entry")
+                    .tag("type", type.name())
+                    .register(registry);
+        }
+        this.entriesPerMatch = DistributionSummary.builder("dota.ingest.match.entries")
+                .description("Entries stored per match")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Timer stage(MeterRegistry registry, String stage, String description) {
+        return Timer.builder("dota.ingest.stage")
+                .description(description)
+                .tag("stage", stage)
+                .register(registry);
+    }
+
+    /**
+     * @return a recorder for the lines of one combat log, to be used by a single thread
+     */
+    public ParseRecorder parseRecorder() {
+        return new ParseRecorder();
+    }
+
+    public void recordIngest(long nanos, long entries) {
+        ingest.record(nanos, TimeUnit.NANOSECONDS);
+        entriesPerMatch.record(entries);
+    }
+
+    public void recordPersist(long nanos) {
+        persist.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordCommit(long nanos) {
+        commit.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public class ParseRecorder {
+        private long sampledNanos;
+        private long sampledCount;
+        private long lineCount;
+        private long unmatchedCount;
+        private final long[] matchedCounts = new long[TYPES.length];
+
+        /**
+         * Parses a line with {@link CombatLogParser#parse(CharSequence)}, counting it and timing a sample of the lines.
+         */
+        public CombatLogEntryEntity parse(CharSequence line) {
+            CombatLogEntryEntity entry;
+            if (lineCount % PARSE_SAMPLE_INTERVAL == 0) {
+                long start = System.nanoTime();
+                entry = CombatLogParser.parse(line);
+                sampledNanos += System.nanoTime() - start;
+                sampledCount++;
+            } else {
+                entry = CombatLogParser.parse(line);
+            }
+            lineCount++;
+            if (entry == null) {
+                unmatchedCount++;
+            } else {
+                matchedCounts[entry.getType().ordinal()]++;
+            }
+            return entry;
+        }
+
+        /**
+         * Adds the lines recorded so far to the meters.
+         */
+        public void publish() {
+            if (sampledCount > 0) {
+                parse.record(sampledNanos * lineCount / sampledCount, TimeUnit.NANOSECONDS);
+            }
+            lines.increment(lineCount);
+            unmatched.increment(unmatchedCount);
+            for (int i = 0; i < matchedCounts.length; i++) {
+                matched[i].increment(matchedCounts[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.config.DotaProperties;
+import gg.bayes.challenge.model.Fight;
+import gg.bayes.challenge.model.FightDetector;
+import gg.bayes.challenge.model.HeroMatrix;
+import gg.bayes.challenge.model.HeroRollup;
+import gg.bayes.challenge.model.MatchAggregates;
+import gg.bayes.challenge.model.Timeline;
+import gg.bayes.challenge.model.exception.InputIsNotParsableException;
+import gg.bayes.challenge.model.exception.MatchNotFoundException;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.persistence.model.MatchEntity;
+import gg.bayes.challenge.persistence.model.SourceFileEntity;
+import gg.bayes.challenge.persistence.projection.HeroPairTotal;
+import gg.bayes.challenge.persistence.projection.TimedEvent;
+import gg.bayes.challenge.persistence.repository.MatchArchiveRepository;
+import gg.bayes.challenge.persistence.repository.MatchArchiveWriter;
+import gg.bayes.challenge.persistence.repository.MatchRepository;
+import gg.bayes.challenge.persistence.repository.SourceFileRepository;
+import gg.bayes.challenge.rest.model.HeroDamage;
+import gg.bayes.challenge.rest.model.HeroItem;
+import gg.bayes.challenge.rest.model.HeroKills;
+import gg.bayes.challenge.rest.model.HeroSpells;
+import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.InputStream;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Stores matches in the relational database: entries in {@code dota_combat_log} and, unless disabled, per-hero
+ * aggregates that answer the queries with one indexed lookup.
+ */
+@Service
+@ConditionalOnProperty(prefix = "dota.storage", name = "engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaMatchStore implements MatchStore {
+
+    private final MatchRepository matchRepository;
+    private final SourceFileRepository sourceFileRepository;
+    private final MatchArchiveRepository matchArchiveRepository;
+    private final MatchArchiveWriter matchArchiveWriter;
+    private final CombatLogEntryService combatLogEntryService;
+    private final MatchAggregateService matchAggregateService;
+    private final HeroRollupService heroRollupService;
+    private final TransactionTemplate transactionTemplate;
+    private final IngestMetrics ingestMetrics;
+    private final DotaProperties dotaProperties;
+
+    public JpaMatchStore(MatchRepository matchRepository, SourceFileRepository sourceFileRepository,
+                         MatchArchiveRepository matchArchiveRepository, MatchArchiveWriter matchArchiveWriter,
+                         CombatLogEntryService combatLogEntryService,
+                         MatchAggregateService matchAggregateService, HeroRollupService heroRollupService,
+                         TransactionTemplate transactionTemplate, IngestMetrics ingestMetrics,
+                         DotaProperties dotaProperties) {
+        this.matchRepository = matchRepository;
+        this.sourceFileRepository = sourceFileRepository;
+        this.matchArchiveRepository = matchArchiveRepository;
+        this.matchArchiveWriter = matchArchiveWriter;
+        this.combatLogEntryService = combatLogEntryService;
+        this.matchAggregateService = matchAggregateService;
+        this.heroRollupService = heroRollupService;
+        this.transactionTemplate = transactionTemplate;
+        this.ingestMetrics = ingestMetrics;
+        this.dotaProperties = dotaProperties;
+    }
+
+    /**
+     * Persists the entries in chunks of {@code dota.ingest.chunk-size} entries, so memory use does not grow with the
+     * size of the log. The per-hero aggregates are computed along the way and stored unless disabled with
+     * {@code dota.ingest.aggregates}; they are always added to the cross-match hero rollups. Everything is persisted in
+     * a single transaction. The time spent writing and
+     * committing is recorded in {@link IngestMetrics}.
+     */
+    @Override
+    public Long save(Iterator<CombatLogEntryEntity> entries, String sourceHash) throws InputIsNotParsableException {
+        return saveAll(List.of(Pair.of(entries, sourceHash))).get(0);
+    }
+
+    /**
+     * Persists the matches like {@link #save(Iterator, String)}, in one transaction. Chunks are filled across matches,
+     * so short logs still reach the full JDBC batch size.
+     */
+    @Override
+    public List<Long> saveAll(List<Pair<Iterator<CombatLogEntryEntity>, String>> logs)
+            throws InputIsNotParsableException {
+        int chunkSize = dotaProperties.getIngest().getChunkSize();
+        long[] persistNanos = new long[1];
+        long[] callbackEnd = new long[1];
+        List<Long> matchIds = transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>(logs.size());
+            List<CombatLogEntryEntity> chunk = new ArrayList<>(chunkSize);
+            for (Pair<Iterator<CombatLogEntryEntity>, String> log : logs) {
+                ids.add(store(log.getLeft(), log.getRight(), chunk, chunkSize, persistNanos));
+            }
+            flush(chunk, persistNanos);
+            callbackEnd[0] = System.nanoTime();
+            return ids;
+        });
+        ingestMetrics.recordCommit(System.nanoTime() - callbackEnd[0]);
+        ingestMetrics.recordPersist(persistNanos[0]);
+        return matchIds;
+    }
+
+    private Long store(Iterator<CombatLogEntryEntity> entries, String sourceHash, List<CombatLogEntryEntity> chunk,
+                       int chunkSize, long[] persistNanos) {
+        boolean aggregatesEnabled = dotaProperties.getIngest().isAggregates();
+        MatchEntity newMatch = new MatchEntity();
+        newMatch.setAggregated(aggregatesEnabled);
+        newMatch.setFightsDetected(aggregatesEnabled);
+        newMatch.setSourceHash(sourceHash);
+        MatchEntity matchEntity = matchRepository.saveAndFlush(newMatch);
+        store(matchEntity, entries, chunk, chunkSize, persistNanos, true);
+        return matchEntity.getId();
+    }
+
+    private void store(MatchEntity matchEntity, Iterator<CombatLogEntryEntity> entries,
+                       List<CombatLogEntryEntity> chunk, int chunkSize, long[] persistNanos, boolean rollup) {
+        MatchAggregates aggregates = new MatchAggregates();
+        long count = 0;
+        while (entries.hasNext()) {
+            CombatLogEntryEntity entry = entries.next();
+            entry.setMatch(matchEntity);
+            aggregates.add(entry);
+            chunk.add(entry);
+            count++;
+            if (chunk.size() == chunkSize) {
+                flush(chunk, persistNanos);
+            }
+        }
+        if (count == 0) {
+            throw new InputIsNotParsableException();
+        }
+        long start = System.nanoTime();
+        if (dotaProperties.getIngest().isAggregates()) {
+            matchAggregateService.save(matchEntity.getId(), aggregates);
+        }
+        if (rollup) {
+            heroRollupService.add(aggregates);
+        }
+        persistNanos[0] += System.nanoTime() - start;
+    }
+
+    private int flush(List<CombatLogEntryEntity> chunk, long[] persistNanos) {
+        int size = chunk.size();
+        if (size > 0) {
+            long start = System.nanoTime();
+            combatLogEntryService.persistChunk(chunk);
+            persistNanos[0] += System.nanoTime() - start;
+            chunk.clear();
+        }
+        return size;
+    }
+
+    /**
+     * Creates the match row right away. It is marked as aggregated only when closed, so a match left open by a
+     * restart is still answered from its entries.
+     */
+    @Override
+    public Long open() {
+        return transactionTemplate.execute(status -> matchRepository.saveAndFlush(new MatchEntity()).getId());
+    }
+
+    /**
+     * Persists the batch in its own transaction, in chunks of {@code dota.ingest.chunk-size} entries.
+     */
+    @Override
+    public void append(Long matchId, List<CombatLogEntryEntity> entries) throws MatchNotFoundException {
+        int chunkSize = dotaProperties.getIngest().getChunkSize();
+        long[] persistNanos = new long[1];
+        transactionTemplate.executeWithoutResult(status -> {
+            MatchEntity matchEntity = findMatch(matchId);
+            for (int from = 0; from < entries.size(); from += chunkSize) {
+                List<CombatLogEntryEntity> chunk = new ArrayList<>(
+                        entries.subList(from, Math.min(entries.size(), from + chunkSize)));
+                chunk.forEach(entry -> entry.setMatch(matchEntity));
+                flush(chunk, persistNanos);
+            }
+        });
+        ingestMetrics.recordPersist(persistNanos[0]);
+    }
+
+    @Override
+    public void close(Long matchId, MatchAggregates aggregates) throws MatchNotFoundException {
+        transactionTemplate.executeWithoutResult(status -> {
+            MatchEntity matchEntity = findMatch(matchId);
+            if (dotaProperties.getIngest().isAggregates()) {
+                matchAggregateService.save(matchId, aggregates);
+                matchEntity.setAggregated(true);
+                matchEntity.setFightsDetected(true);
+            }
+            heroRollupService.add(aggregates);
+        });
+    }
+
+    /**
+     * Creates the match row, not aggregated, and streams the compressed log into {@code dota_match_archive}. The id
+     * is handed out within the transaction, so before the rows are committed.
+     */
+    @Override
+    public Long archive(InputStream content, long length, long rawSize, Consumer<Long> reserved) {
+        return transactionTemplate.execute(status -> {
+            Long matchId = matchRepository.saveAndFlush(new MatchEntity()).getId();
+            reserved.accept(matchId);
+            matchArchiveWriter.insert(matchId, content, length, rawSize);
+            return matchId;
+        });
+    }
+
+    @Override
+    public byte[] getArchive(Long matchId) throws MatchNotFoundException {
+        return matchArchiveRepository.findContent(matchId).orElseThrow(MatchNotFoundException::new);
+    }
+
+    @Override
+    public Map<Long, Boolean> findArchives() {
+        Map<Long, Boolean> archives = new HashMap<>();
+        matchArchiveRepository.findStates().forEach(state -> archives.put(state.getMatchId(), state.getResident()));
+        return archives;
+    }
+
+    /**
+     * Persists the entries and aggregates like {@link #save(Iterator, String)}, in one transaction, without adding
+     * them to the hero rollups. The match flags are set before the first chunk is flushed, as the JPA writer clears
+     * the persistence context after each one.
+     */
+    @Override
+    public void load(Long matchId, Iterator<CombatLogEntryEntity> entries)
+            throws MatchNotFoundException, InputIsNotParsableException {
+        int chunkSize = dotaProperties.getIngest().getChunkSize();
+        long[] persistNanos = new long[1];
+        long[] callbackEnd = new long[1];
+        transactionTemplate.executeWithoutResult(status -> {
+            MatchEntity matchEntity = findMatch(matchId);
+            matchEntity.setAggregated(dotaProperties.getIngest().isAggregates());
+            matchEntity.setFightsDetected(dotaProperties.getIngest().isAggregates());
+            List<CombatLogEntryEntity> chunk = new ArrayList<>(chunkSize);
+            store(matchEntity, entries, chunk, chunkSize, persistNanos, false);
+            flush(chunk, persistNanos);
+            matchArchiveRepository.markLoaded(matchId);
+            callbackEnd[0] = System.nanoTime();
+        });
+        ingestMetrics.recordCommit(System.nanoTime() - callbackEnd[0]);
+        ingestMetrics.recordPersist(persistNanos[0]);
+    }
+
+    /**
+     * Deletes the entries and aggregate rows of the match and marks it as neither aggregated nor resident.
+     */
+    @Override
+    public void evict(Long matchId) throws MatchNotFoundException {
+        transactionTemplate.executeWithoutResult(status -> {
+            MatchEntity matchEntity = findMatch(matchId);
+            combatLogEntryService.deleteEntries(matchId);
+            matchAggregateService.delete(matchId);
+            matchEntity.setAggregated(false);
+            matchEntity.setFightsDetected(false);
+            matchArchiveRepository.markEvicted(matchId);
+        });
+    }
+
+    @Override
+    public boolean isIngested(String sourceHash) {
+        return matchRepository.existsBySourceHash(sourceHash);
+    }
+
+    @Override
+    public Optional<SourceFileEntity> findSourceFile(String path) {
+        return sourceFileRepository.findById(path);
+    }
+
+    @Override
+    public void saveSourceFile(SourceFileEntity sourceFile) {
+        sourceFileRepository.save(sourceFile);
+    }
+
+    /**
+     * Fetches the mach entity. Only needed when an aggregate lookup found no rows, to tell an unknown match apart from
+     * an empty result or from a match stored without aggregates.
+     *
+     * @param matchId the match identifier
+     * @return the match entity associated with match id
+     */
+    private MatchEntity findMatch(Long matchId) throws MatchNotFoundException {
+        Optional<MatchEntity> match = matchRepository.findById(matchId);
+        if (match.isPresent()) {
+            return match.get();
+        } else {
+            throw new MatchNotFoundException();
+        }
+    }
+
+    /**
+     * Reads the four aggregate tables of the match, or, if it was stored without aggregates, folds its entries in one
+     * scan of {@code dota_combat_log}.
+     */
+    @Override
+    public MatchAggregates getAggregates(Long matchId) throws MatchNotFoundException {
+        return transactionTemplate.execute(status -> {
+            if (findMatch(matchId).isAggregated()) {
+                return matchAggregateService.fetch(matchId);
+            }
+            MatchAggregates aggregates = new MatchAggregates();
+            combatLogEntryService.forEachEntry(matchId, aggregates::add);
+            return aggregates;
+        });
+    }
+
+    /**
+     * Reads the damage and victims tables of the match, or, if it was stored without aggregates, groups its damage and
+     * kill entries by attacker and victim in one scan of {@code dota_combat_log}.
+     */
+    @Override
+    public HeroMatrix getMatrix(Long matchId) throws MatchNotFoundException {
+        HeroMatrix matrix = matchAggregateService.fetchMatrix(matchId);
+        if (!matrix.getHeroes().isEmpty() || findMatch(matchId).isAggregated()) {
+            return matrix;
+        }
+        HeroMatrix.Builder builder = new HeroMatrix.Builder();
+        for (HeroPairTotal pair : combatLogEntryService.fetchHeroPairs(matchId)) {
+            int attacker = builder.index(pair.getActor());
+            int victim = builder.index(pair.getTarget());
+            if (pair.getType() == CombatLogEntryEntity.Type.HERO_KILLED) {
+                builder.addKills(attacker, victim, pair.getCount().intValue());
+            } else {
+                builder.addDamage(attacker, victim, pair.getCount().intValue(), pair.getTotal());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Reads the fights detected at ingest, or, for a match stored without them, streams its entries through a
+     * {@link FightDetector}.
+     */
+    @Override
+    public List<Fight> getFights(Long matchId) throws MatchNotFoundException {
+        List<Fight> fights = matchAggregateService.fetchFights(matchId);
+        if (!fights.isEmpty()) {
+            return fights;
+        }
+        return transactionTemplate.execute(status -> {
+            if (findMatch(matchId).isFightsDetected()) {
+                return fights;
+            }
+            FightDetector fightDetector = new FightDetector();
+            combatLogEntryService.forEachEntry(matchId, fightDetector::add);
+            return fightDetector.fights();
+        });
+    }
+
+    @Override
+    public void forEachEntry(Long matchId, Consumer<CombatLogEntryEntity> consumer) throws MatchNotFoundException {
+        transactionTemplate.executeWithoutResult(status -> {
+            findMatch(matchId);
+            combatLogEntryService.forEachEntry(matchId, consumer);
+        });
+    }
+
+    @Override
+    public Set<String> getHeroes(Long matchId) throws MatchNotFoundException {
+        Set<String> result = new HashSet<>(combatLogEntryService.fetchActors(matchId));
+        if (result.isEmpty()) {
+            findMatch(matchId);
+        }
+        return result;
+    }
+
+    @Override
+    public List<HeroKills> getKills(Long matchId) throws MatchNotFoundException {
+        List<HeroKills> result = matchAggregateService.fetchKills(matchId);
+        if (result.isEmpty() && !findMatch(matchId).isAggregated()) {
+            combatLogEntryService.fetchKills(matchId)
+                    .forEach(row -> result.add(new HeroKills(row.getName(), row.getCount().intValue())));
+        }
+        return result;
+    }
+
+    @Override
+    public List<HeroItem> getItems(Long matchId, String hero) throws MatchNotFoundException {
+        List<HeroItem> result = matchAggregateService.fetchItems(matchId, hero);
+        if (result.isEmpty() && !findMatch(matchId).isAggregated()) {
+            combatLogEntryService.fetchItems(matchId, hero)
+                    .forEach(row -> result.add(new HeroItem(row.getItem(), row.getTimestamp())));
+        }
+        return result;
+    }
+
+    @Override
+    public List<HeroSpells> getSpells(Long matchId, String hero) throws MatchNotFoundException {
+        List<HeroSpells> result = matchAggregateService.fetchSpells(matchId, hero);
+        if (result.isEmpty() && !findMatch(matchId).isAggregated()) {
+            combatLogEntryService.fetchSpells(matchId, hero)
+                    .forEach(row -> result.add(new HeroSpells(row.getName(), row.getCount().intValue())));
+        }
+        return result;
+    }
+
+    @Override
+    public List<HeroDamage> getDamages(Long matchId, String hero) throws MatchNotFoundException {
+        List<HeroDamage> result = matchAggregateService.fetchDamages(matchId, hero);
+        if (result.isEmpty() && !findMatch(matchId).isAggregated()) {
+            combatLogEntryService.fetchDamages(matchId, hero).forEach(row -> result.add(new HeroDamage(row.getTarget(),
+                    row.getInstances().intValue(), row.getTotal().intValue())));
+        }
+        return result;
+    }
+
+    /**
+     * Windowed queries read {@code dota_combat_log} whether or not the match has aggregates, as those cover the whole
+     * match.
+     */
+    @Override
+    public List<HeroItem> getItems(Long matchId, String hero, long from, long to) throws MatchNotFoundException {
+        List<HeroItem> result = new ArrayList<>();
+        combatLogEntryService.fetchItems(matchId, hero, from, to)
+                .forEach(row -> result.add(new HeroItem(row.getItem(), row.getTimestamp())));
+        if (result.isEmpty()) {
+            findMatch(matchId);
+        }
+        return result;
+    }
+
+    @Override
+    public List<HeroSpells> getSpells(Long matchId, String hero, long from, long to) throws MatchNotFoundException {
+        List<HeroSpells> result = new ArrayList<>();
+        combatLogEntryService.fetchSpells(matchId, hero, from, to)
+                .forEach(row -> result.add(new HeroSpells(row.getName(), row.getCount().intValue())));
+        if (result.isEmpty()) {
+            findMatch(matchId);
+        }
+        return result;
+    }
+
+    @Override
+    public List<HeroDamage> getDamages(Long matchId, String hero, long from, long to) throws MatchNotFoundException {
+        List<HeroDamage> result = new ArrayList<>();
+        combatLogEntryService.fetchDamages(matchId, hero, from, to).forEach(row -> result.add(
+                new HeroDamage(row.getTarget(), row.getInstances().intValue(), row.getTotal().intValue())));
+        if (result.isEmpty()) {
+            findMatch(matchId);
+        }
+        return result;
+    }
+
+    @Override
+    public Timeline getTimeline(Long matchId, String hero, long from, long to, long bucketSize)
+            throws MatchNotFoundException {
+        Timeline timeline = new Timeline(from, bucketSize);
+        List<TimedEvent> events = combatLogEntryService.fetchEvents(matchId, hero, from, to);
+        events.forEach(event -> timeline.add(event.getTimestamp(), event.getType(),
+                Objects.requireNonNullElse(event.getDamage(), 0)));
+        if (events.isEmpty()) {
+            findMatch(matchId);
+        }
+        return timeline;
+    }
+
+    @Override
+    public Optional<HeroRollup> getHeroRollup(String hero) {
+        return heroRollupService.fetch(hero);
+    }
+}
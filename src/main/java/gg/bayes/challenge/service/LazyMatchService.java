@@ -0,0 +1,392 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.config.DotaProperties;
+import gg.bayes.challenge.model.exception.CombatLogTooLargeException;
+import gg.bayes.challenge.model.exception.InputIsNotParsableException;
+import gg.bayes.challenge.model.exception.InternalServerErrorException;
+import gg.bayes.challenge.utils.Utils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ingests combat logs lazily, when {@code dota.lazy.enabled} is set. Ingest only gzips the log into the match store
+ * with {@link MatchStore#archive(byte[], long, java.util.function.Consumer)} and returns its match id; the log is
+ * parsed and stored with {@link MatchStore#load(Long, java.util.Iterator)} when a query first touches the match.
+ * Archived matches stay out of the hero rollups, loaded or not.
+ * <p>
+ * Every archived match has a read write lock. Queries hold the read lock; the first one to find the match not resident
+ * takes the write lock and loads it, so concurrent first queries wait for, and share, a single parse. Loaded matches
+ * are kept in least recently queried order and evicted back to their compressed log with
+ * {@link MatchStore#evict(Long)} past {@code dota.lazy.max-resident}, or while the heap still used after the last
+ * garbage collection is above {@code dota.lazy.heap-threshold}. A match being queried is never evicted.
+ */
+@Service
+public class LazyMatchService {
+
+    private static final Logger LOGGER = LogManager.getLogger(LazyMatchService.class.getName());
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * Longest line checked for an entry, far above any real one, so a log without line breaks is not held in memory.
+     */
+    private static final int MAX_PROBED_LINE = 4 * 1024;
+
+    private final MatchStore matchStore;
+    private final MatchQueryCache matchQueryCache;
+    private final ParallelLogParser parallelLogParser;
+    private final DotaProperties.Lazy properties;
+    private final DotaProperties.Ingest ingestProperties;
+    private final Map<Long, ArchivedMatch> archivedMatches = new ConcurrentHashMap<>();
+    private final Map<Long, ArchivedMatch> residentMatches = new LinkedHashMap<>(16, 0.75f, true);
+    private final Timer archive;
+    private final Timer load;
+    private final DistributionSummary rawBytes;
+    private final DistributionSummary compressedBytes;
+    private final Counter evictions;
+
+    public LazyMatchService(MatchStore matchStore, MatchQueryCache matchQueryCache,
+                            ParallelLogParser parallelLogParser, MeterRegistry registry,
+                            DotaProperties dotaProperties) {
+        this.matchStore = matchStore;
+        this.matchQueryCache = matchQueryCache;
+        this.parallelLogParser = parallelLogParser;
+        this.properties = dotaProperties.getLazy();
+        this.ingestProperties = dotaProperties.getIngest();
+        this.archive = Timer.builder("dota.lazy.archive")
+                .description("Time to compress and store a combat log ingested lazily")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.load = Timer.builder("dota.lazy.load")
+                .description("Time to parse and store an archived match on the first query that touches it")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.rawBytes = DistributionSummary.builder("dota.lazy.archive.bytes")
+                .description("Size of an archived combat log")
+                .baseUnit("bytes")
+                .tag("form", "raw")
+                .register(registry);
+        this.compressedBytes = DistributionSummary.builder("dota.lazy.archive.bytes")
+                .description("Size of an archived combat log")
+                .baseUnit("bytes")
+                .tag("form", "compressed")
+                .register(registry);
+        this.evictions = Counter.builder("dota.lazy.evictions")
+                .description("Archived matches evicted back to their compressed log")
+                .register(registry);
+        Gauge.builder("dota.lazy.resident", residentMatches, Map::size)
+                .description("Archived matches currently parsed")
+                .register(registry);
+    }
+
+    /**
+     * Picks up the matches archived before a restart, when the store is durable.
+     */
+    @PostConstruct
+    void init() {
+        matchStore.findArchives().forEach((matchId, resident) -> {
+            ArchivedMatch archivedMatch = new ArchivedMatch();
+            archivedMatch.resident = resident;
+            archivedMatches.put(matchId, archivedMatch);
+            if (resident) {
+                residentMatches.put(matchId, archivedMatch);
+            }
+        });
+    }
+
+    /**
+     * Compresses a combat log as it was received and stores it as a new match, without parsing it. Lines are only
+     * checked until one of them parses, so a log without any entry is still rejected at ingest. The compressed log is
+     * spooled to a temporary file and streamed from there into the store, so it is never held in memory here.
+     *
+     * @param combatLog a reader over the content of the combat log file
+     * @return the match id associated with the combat log
+     * @throws CombatLogTooLargeException if the log is longer than {@code dota.ingest.max-log-size} bytes as UTF-8
+     */
+    public Long archive(Reader combatLog) throws InputIsNotParsableException, CombatLogTooLargeException,
+            InternalServerErrorException {
+        Path spool = null;
+        try {
+            long start = System.nanoTime();
+            spool = Files.createTempFile("archive-", ".log.gz");
+            long rawSize;
+            boolean parsable;
+            try (FastGzipOutputStream gzip = new FastGzipOutputStream(Files.newOutputStream(spool),
+                    ingestProperties.getMaxLogSize().toBytes());
+                 Writer out = new OutputStreamWriter(gzip, StandardCharsets.UTF_8)) {
+                parsable = copy(combatLog, out);
+                out.flush();
+                gzip.finish();
+                rawSize = gzip.rawSize();
+            }
+            if (!parsable) {
+                throw new InputIsNotParsableException();
+            }
+            long compressedSize = Files.size(spool);
+            // The id is registered before the archive is visible, so no query can run against the match unloaded.
+            Long[] reservedId = new Long[1];
+            Long matchId;
+            try (InputStream content = Files.newInputStream(spool)) {
+                matchId = matchStore.archive(content, compressedSize, rawSize, id -> {
+                    reservedId[0] = id;
+                    archivedMatches.put(id, new ArchivedMatch());
+                });
+            } catch (RuntimeException | IOException ex) {
+                if (reservedId[0] != null) {
+                    archivedMatches.remove(reservedId[0]);
+                }
+                throw ex;
+            }
+            // A lookup of the id before it existed may have cached a not found result.
+            matchQueryCache.invalidate(matchId);
+            long elapsedNanos = System.nanoTime() - start;
+            archive.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            rawBytes.record(rawSize);
+            compressedBytes.record(compressedSize);
+            LOGGER.info("Archived match {}: {} bytes compressed to {} in {} ms", matchId, rawSize, compressedSize,
+                    elapsedNanos / 1_000_000);
+            return matchId;
+        } catch (InputIsNotParsableException | CombatLogTooLargeException ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            throw ex;
+        } catch (Exception ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            throw new InternalServerErrorException();
+        } finally {
+            delete(spool);
+        }
+    }
+
+    private static void delete(Path spool) {
+        if (spool == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException ex) {
+            LOGGER.warn("Could not delete {}", spool, ex);
+        }
+    }
+
+    /**
+     * Copies the combat log in blocks, splitting lines only until one of them parses. Characters past
+     * {@link #MAX_PROBED_LINE} are not kept, and the line is taken as not parsable.
+     *
+     * @return whether a line parsed
+     */
+    private static boolean copy(Reader combatLog, Writer out) throws IOException {
+        char[] buffer = new char[BUFFER_SIZE];
+        StringBuilder line = new StringBuilder();
+        boolean parsable = false;
+        int read;
+        while ((read = combatLog.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+            for (int i = 0; i < read && !parsable; i++) {
+                if (buffer[i] == '\n') {
+                    parsable = isEntry(line);
+                    line.setLength(0);
+                } else if (buffer[i] != '\r' && line.length() <= MAX_PROBED_LINE) {
+                    line.append(buffer[i]);
+                }
+            }
+        }
+        return parsable || isEntry(line);
+    }
+
+    private static boolean isEntry(StringBuilder line) {
+        return line.length() <= MAX_PROBED_LINE && CombatLogParser.parse(line) != null;
+    }
+
+    /**
+     * Runs a query against the match store, after loading the match if it is archived and not resident. Queries about
+     * matches that were not ingested lazily run right away.
+     *
+     * @param matchId the match identifier
+     * @param query   reads the match from the match store
+     * @return the result of the query
+     */
+    public <T> T read(Long matchId, Supplier<T> query) {
+        ArchivedMatch archivedMatch = archivedMatches.get(matchId);
+        if (archivedMatch == null) {
+            return query.get();
+        }
+        ReentrantReadWriteLock lock = archivedMatch.lock;
+        lock.readLock().lock();
+        if (!archivedMatch.resident) {
+            lock.readLock().unlock();
+            lock.writeLock().lock();
+            try {
+                if (!archivedMatch.resident) {
+                    load(matchId, archivedMatch);
+                }
+                lock.readLock().lock();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        try {
+            synchronized (residentMatches) {
+                residentMatches.put(matchId, archivedMatch);
+            }
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+            evictColdMatches();
+        }
+    }
+
+    /**
+     * @return whether the match was ingested lazily and is currently parsed
+     */
+    public boolean isResident(Long matchId) {
+        ArchivedMatch archivedMatch = archivedMatches.get(matchId);
+        return archivedMatch != null && archivedMatch.resident;
+    }
+
+    private void load(Long matchId, ArchivedMatch archivedMatch) {
+        long start = System.nanoTime();
+        byte[] content = matchStore.getArchive(matchId);
+        try (Reader combatLog = Utils.newReader(new GZIPInputStream(new ByteArrayInputStream(content), BUFFER_SIZE))) {
+            parallelLogParser.parse(combatLog, entries -> {
+                matchStore.load(matchId, entries);
+                return matchId;
+            });
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        archivedMatch.resident = true;
+        long elapsedNanos = System.nanoTime() - start;
+        load.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        LOGGER.info("Loaded archived match {} in {} ms", matchId, elapsedNanos / 1_000_000);
+    }
+
+    /**
+     * Evicts resident matches, least recently queried first, until the limits hold again. Matches being queried are
+     * skipped rather than waited for.
+     */
+    private void evictColdMatches() {
+        List<Map.Entry<Long, ArchivedMatch>> candidates;
+        synchronized (residentMatches) {
+            if (!overLimit(residentMatches.size())) {
+                return;
+            }
+            candidates = new ArrayList<>(residentMatches.entrySet());
+        }
+        for (Map.Entry<Long, ArchivedMatch> candidate : candidates) {
+            evict(candidate.getKey(), candidate.getValue());
+            synchronized (residentMatches) {
+                if (!overLimit(residentMatches.size())) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean overLimit(int resident) {
+        return resident > properties.getMaxResident()
+                || (resident > 1 && heapUsedAfterGc() > properties.getHeapThreshold());
+    }
+
+    private void evict(Long matchId, ArchivedMatch archivedMatch) {
+        ReentrantReadWriteLock lock = archivedMatch.lock;
+        if (!lock.writeLock().tryLock()) {
+            return;
+        }
+        try {
+            if (archivedMatch.resident) {
+                matchStore.evict(matchId);
+                archivedMatch.resident = false;
+                evictions.increment();
+                LOGGER.info("Evicted archived match {}", matchId);
+            }
+            synchronized (residentMatches) {
+                residentMatches.remove(matchId);
+            }
+        } catch (Exception ex) {
+            LOGGER.warn("Could not evict archived match {}", matchId, ex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the fraction of the maximum heap in use right after the last garbage collection, zero before the first
+     */
+    private static double heapUsedAfterGc() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+            if (usage != null) {
+                used += usage.getUsed();
+            }
+        }
+        return (double) used / Runtime.getRuntime().maxMemory();
+    }
+
+    private static class ArchivedMatch {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private volatile boolean resident;
+    }
+
+    /**
+     * Gzip at the fastest level, as archiving is on the ingest path and the log is decompressed at most once per load.
+     * Fails with {@link CombatLogTooLargeException} once more than the given number of bytes is written to it.
+     */
+    private static class FastGzipOutputStream extends GZIPOutputStream {
+
+        private final long maxRawSize;
+
+        FastGzipOutputStream(OutputStream out, long maxRawSize) throws IOException {
+            super(out, BUFFER_SIZE);
+            this.maxRawSize = maxRawSize;
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+
+        @Override
+        public synchronized void write(byte[] buffer, int offset, int length) throws IOException {
+            if (def.getBytesRead() + length > maxRawSize) {
+                throw new CombatLogTooLargeException();
+            }
+            super.write(buffer, offset, length);
+        }
+
+        /**
+         * @return the number of bytes compressed so far; must be called before the stream is closed
+         */
+        long rawSize() {
+            return def.getBytesRead();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.config.DotaProperties;
+import gg.bayes.challenge.model.MatchAggregates;
+import gg.bayes.challenge.model.exception.InternalServerErrorException;
+import gg.bayes.challenge.model.exception.MatchNotFoundException;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Ingests matches that are still being played. A live match is opened, then receives its combat log in batches of
+ * lines; each batch is parsed once, stored with {@link MatchStore#append} and folded into running
+ * {@link MatchAggregates}, which answer the queries until the match is closed. Matches without an append for
+ * {@code dota.live.idle-timeout} are closed when the next live match is opened.
+ */
+@Service
+public class LiveMatchService {
+
+    private static final Logger LOGGER = LogManager.getLogger(LiveMatchService.class.getName());
+
+    private final MatchStore matchStore;
+    private final MatchQueryCache matchQueryCache;
+    private final IngestMetrics ingestMetrics;
+    private final DotaProperties.Live properties;
+    private final Map<Long, LiveMatch> liveMatches = new ConcurrentHashMap<>();
+
+    public LiveMatchService(MatchStore matchStore, MatchQueryCache matchQueryCache, IngestMetrics ingestMetrics,
+                            DotaProperties dotaProperties) {
+        this.matchStore = matchStore;
+        this.matchQueryCache = matchQueryCache;
+        this.ingestMetrics = ingestMetrics;
+        this.properties = dotaProperties.getLive();
+    }
+
+    /**
+     * Opens a live match.
+     *
+     * @return the match id to append combat log lines to
+     */
+    public Long open() throws InternalServerErrorException {
+        closeIdleMatches();
+        try {
+            Long matchId = matchStore.open();
+            liveMatches.put(matchId, new LiveMatch());
+            // A lookup of the id before it existed may have cached a not found result.
+            matchQueryCache.invalidate(matchId);
+            LOGGER.info("Opened live match {}", matchId);
+            return matchId;
+        } catch (Exception ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            throw new InternalServerErrorException();
+        }
+    }
+
+    /**
+     * Parses and stores the next lines of a live match. A trailing line without a line terminator is kept until the
+     * next batch completes it, so a growing file can be forwarded in arbitrary slices.
+     *
+     * @param matchId the live match identifier
+     * @param lines   the next part of the combat log
+     * @return the number of entries parsed from the batch
+     */
+    public int append(Long matchId, String lines) throws MatchNotFoundException, InternalServerErrorException {
+        LiveMatch liveMatch = findLiveMatch(matchId);
+        try {
+            synchronized (liveMatch) {
+                if (liveMatch.closed) {
+                    throw new MatchNotFoundException();
+                }
+                String text = liveMatch.pending.concat(lines);
+                int end = text.lastIndexOf('\n') + 1;
+                liveMatch.pending = text.substring(end);
+                List<CombatLogEntryEntity> entries = parse(text.substring(0, end));
+                apply(matchId, liveMatch, entries);
+                return entries.size();
+            }
+        } catch (MatchNotFoundException ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            throw ex;
+        } catch (Exception ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            throw new InternalServerErrorException();
+        }
+    }
+
+    /**
+     * Parses a pending unterminated line, stores the aggregates and hands the match over to the match store.
+     *
+     * @param matchId the live match identifier
+     * @return the number of entries of the match
+     */
+    public long close(Long matchId) throws MatchNotFoundException, InternalServerErrorException {
+        LiveMatch liveMatch = findLiveMatch(matchId);
+        try {
+            synchronized (liveMatch) {
+                if (liveMatch.closed) {
+                    throw new MatchNotFoundException();
+                }
+                apply(matchId, liveMatch, parse(liveMatch.pending));
+                liveMatch.pending = "";
+                matchStore.close(matchId, liveMatch.aggregates);
+                liveMatch.closed = true;
+            }
+            liveMatches.remove(matchId);
+            matchQueryCache.invalidate(matchId);
+            LOGGER.info("Closed live match {}: {} entries", matchId, liveMatch.entries);
+            return liveMatch.entries;
+        } catch (MatchNotFoundException ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            throw ex;
+        } catch (Exception ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            throw new InternalServerErrorException();
+        }
+    }
+
+    /**
+     * Answers a query from the running aggregates of a live match.
+     *
+     * @param matchId the match identifier
+     * @param query   reads the aggregates; it must copy what it returns
+     * @return the result of the query, or empty if the match is not live
+     */
+    public <T> Optional<T> read(Long matchId, Function<MatchAggregates, T> query) {
+        LiveMatch liveMatch = liveMatches.get(matchId);
+        if (liveMatch == null) {
+            return Optional.empty();
+        }
+        synchronized (liveMatch.aggregates) {
+            return Optional.of(query.apply(liveMatch.aggregates));
+        }
+    }
+
+    private LiveMatch findLiveMatch(Long matchId) throws MatchNotFoundException {
+        LiveMatch liveMatch = liveMatches.get(matchId);
+        if (liveMatch == null) {
+            throw new MatchNotFoundException();
+        }
+        return liveMatch;
+    }
+
+    private List<CombatLogEntryEntity> parse(String lines) {
+        List<CombatLogEntryEntity> entries = new ArrayList<>();
+        IngestMetrics.ParseRecorder recorder = ingestMetrics.parseRecorder();
+        try {
+            lines.lines().map(recorder::parse).forEach(entry -> {
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            });
+        } finally {
+            recorder.publish();
+        }
+        return entries;
+    }
+
+    /**
+     * Stores the entries, then makes them visible to queries. Only the aggregate update holds the lock readers take,
+     * so queries never wait for the database.
+     */
+    private void apply(Long matchId, LiveMatch liveMatch, List<CombatLogEntryEntity> entries) {
+        liveMatch.lastAppend = Instant.now();
+        if (entries.isEmpty()) {
+            return;
+        }
+        matchStore.append(matchId, entries);
+        synchronized (liveMatch.aggregates) {
+            entries.forEach(liveMatch.aggregates::add);
+        }
+        liveMatch.entries += entries.size();
+    }
+
+    private void closeIdleMatches() {
+        Instant threshold = Instant.now().minus(properties.getIdleTimeout());
+        liveMatches.forEach((matchId, liveMatch) -> {
+            if (liveMatch.lastAppend.isBefore(threshold)) {
+                try {
+                    close(matchId);
+                } catch (Exception ex) {
+                    LOGGER.warn("Could not close idle live match {}", matchId, ex);
+                }
+            }
+        });
+    }
+
+    private static class LiveMatch {
+        private final MatchAggregates aggregates = new MatchAggregates();
+        private String pending = "";
+        private long entries;
+        private volatile Instant lastAppend = Instant.now();
+        private boolean closed;
+    }
+}
@@ -0,0 +1,79 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.model.Fight;
+import gg.bayes.challenge.model.HeroMatrix;
+import gg.bayes.challenge.model.MatchAggregates;
+import gg.bayes.challenge.persistence.repository.MatchAggregateReader;
+import gg.bayes.challenge.persistence.repository.MatchAggregateWriter;
+import gg.bayes.challenge.rest.model.HeroDamage;
+import gg.bayes.challenge.rest.model.HeroItem;
+import gg.bayes.challenge.rest.model.HeroKills;
+import gg.bayes.challenge.rest.model.HeroSpells;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class MatchAggregateService {
+
+    private final MatchAggregateReader matchAggregateReader;
+    private final MatchAggregateWriter matchAggregateWriter;
+
+    public MatchAggregateService(MatchAggregateReader matchAggregateReader, MatchAggregateWriter matchAggregateWriter) {
+        this.matchAggregateReader = matchAggregateReader;
+        this.matchAggregateWriter = matchAggregateWriter;
+    }
+
+    /**
+     * Persists the aggregates computed while ingesting a match. Must be called within the ingest transaction.
+     *
+     * @param matchId    the match identifier
+     * @param aggregates the aggregates of the match
+     */
+    public void save(Long matchId, MatchAggregates aggregates) {
+        matchAggregateWriter.insert(matchId, aggregates);
+    }
+
+    /**
+     * Deletes the stored aggregates of a match.
+     *
+     * @param matchId the match identifier
+     */
+    public void delete(Long matchId) {
+        matchAggregateWriter.delete(matchId);
+    }
+
+    /**
+     * Reads every stored aggregate of a match, one query per aggregate table.
+     *
+     * @param matchId the match identifier
+     * @return the aggregates of the match, empty if none were stored
+     */
+    public MatchAggregates fetch(Long matchId) {
+        return matchAggregateReader.readAll(matchId);
+    }
+
+    public List<Fight> fetchFights(Long matchId) {
+        return matchAggregateReader.readFights(matchId);
+    }
+
+    public HeroMatrix fetchMatrix(Long matchId) {
+        return matchAggregateReader.readMatrix(matchId);
+    }
+
+    public List<HeroKills> fetchKills(Long matchId) {
+        return matchAggregateReader.readKills(matchId);
+    }
+
+    public List<HeroItem> fetchItems(Long matchId, String hero) {
+        return matchAggregateReader.readItems(matchId, hero);
+    }
+
+    public List<HeroSpells> fetchSpells(Long matchId, String hero) {
+        return matchAggregateReader.readSpells(matchId, hero);
+    }
+
+    public List<HeroDamage> fetchDamages(Long matchId, String hero) {
+        return matchAggregateReader.readDamages(matchId, hero);
+    }
+}
@@ -0,0 +1,295 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.model.exception.InputIsNotParsableException;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Compact binary format of the parsed entries of one match, loaded without going through {@link CombatLogParser}.
+ * <p>
+ * After a magic number and a version byte, every entry is a record tagged with its type ordinal, followed by the
+ * zigzag varint delta of its timestamp from the previous entry and the fields of its type:
+ * <ul>
+ *     <li>{@code ITEM_PURCHASED}: actor, item</li>
+ *     <li>{@code HERO_KILLED}: actor, target</li>
+ *     <li>{@code SPELL_CAST}: actor, target, ability, varint ability level</li>
+ *     <li>{@code DAMAGE_DONE}: actor, target, varint damage</li>
+ * </ul>
+ * Names share one dictionary built as the records are written: a name is a varint {@code 0} for null, {@code id + 1}
+ * for a name already seen, or {@code size + 1} followed by the varint length and UTF-8 bytes of a new name, which then
+ * gets the next id. The tag {@code 0xFF} ends the match, followed by the varint number of entries written. The decoder
+ * rejects a match without that trailer, with another count or with bytes after it, so an export cut short, for
+ * instance by an error after the response was committed, never imports as a shorter match.
+ */
+public final class MatchCodec {
+
+    private static final byte[] MAGIC = {'D', 'O', 'T', 'A', 'M'};
+    private static final int VERSION = 2;
+    private static final int END = 0xFF;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Names are stored in VARCHAR(255) columns, of at most 4 UTF-8 bytes per character
+    private static final int MAX_NAME_LENGTH = 4 * 255;
+    private static final CombatLogEntryEntity.Type[] TYPES = CombatLogEntryEntity.Type.values();
+
+    private MatchCodec() {
+    }
+
+    /**
+     * @param head the first bytes of a file
+     * @return true if they start like a match written by an {@link Encoder}
+     */
+    public static boolean isEncoded(byte[] head) {
+        return head.length >= MAGIC.length && Arrays.equals(head, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
+
+    /**
+     * Reads the entries of a match lazily. The stream is closed once the last entry has been read.
+     *
+     * @param inputStream the encoded match
+     * @return the entries, in the order they were written
+     * @throws InputIsNotParsableException if the stream does not hold an encoded match, also thrown while iterating
+     *                                     if the stream is truncated, lacks its trailer or is corrupt
+     */
+    public static Iterator<CombatLogEntryEntity> decode(InputStream inputStream) throws IOException {
+        Decoder decoder = new Decoder(new BufferedInputStream(inputStream, BUFFER_SIZE));
+        byte[] magic = decoder.in.readNBytes(MAGIC.length);
+        if (!isEncoded(magic) || decoder.in.read() != VERSION) {
+            decoder.in.close();
+            throw new InputIsNotParsableException();
+        }
+        return decoder;
+    }
+
+    /**
+     * Writes the entries of one match. {@link #finish()} must be called after the last entry.
+     */
+    public static class Encoder {
+
+        private final OutputStream out;
+        private final Map<String, Integer> names = new HashMap<>();
+        private long previousTimestamp;
+        private long count;
+
+        public Encoder(OutputStream outputStream) throws IOException {
+            this.out = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+            out.write(MAGIC);
+            out.write(VERSION);
+        }
+
+        public void write(CombatLogEntryEntity entry) throws IOException {
+            out.write(entry.getType().ordinal());
+            long delta = entry.getTimestamp() - previousTimestamp;
+            writeVarLong((delta << 1) ^ (delta >> 63));
+            previousTimestamp = entry.getTimestamp();
+            writeName(entry.getActor());
+            switch (entry.getType()) {
+                case ITEM_PURCHASED:
+                    writeName(entry.getItem());
+                    break;
+                case HERO_KILLED:
+                    writeName(entry.getTarget());
+                    break;
+                case SPELL_CAST:
+                    writeName(entry.getTarget());
+                    writeName(entry.getAbility());
+                    writeVarLong(entry.getAbilityLevel());
+                    break;
+                case DAMAGE_DONE:
+                    writeName(entry.getTarget());
+                    writeVarLong(entry.getDamage());
+                    break;
+            }
+            count++;
+        }
+
+        /**
+         * Ends the match with the number of entries written and flushes it to the underlying stream, which is left open.
+         */
+        public void finish() throws IOException {
+            out.write(END);
+            writeVarLong(count);
+            out.flush();
+        }
+
+        private void writeName(String name) throws IOException {
+            if (name == null) {
+                writeVarLong(0);
+                return;
+            }
+            Integer id = names.get(name);
+            if (id != null) {
+                writeVarLong(id + 1);
+                return;
+            }
+            writeVarLong(names.size() + 1);
+            names.put(name, names.size());
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+
+    private static class Decoder implements Iterator<CombatLogEntryEntity> {
+
+        private final InputStream in;
+        private final List<String> names = new ArrayList<>();
+        private long previousTimestamp;
+        private long count;
+        private int nextTag = -1;
+
+        Decoder(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextTag < 0) {
+                nextTag = readByte();
+                if (nextTag == END) {
+                    readTrailer();
+                } else if (nextTag >= TYPES.length) {
+                    throw new InputIsNotParsableException();
+                }
+            }
+            return nextTag != END;
+        }
+
+        @Override
+        public CombatLogEntryEntity next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            CombatLogEntryEntity.Type type = TYPES[nextTag];
+            nextTag = -1;
+            count++;
+            long delta = readVarLong();
+            previousTimestamp += (delta >>> 1) ^ -(delta & 1);
+            CombatLogEntryEntity.CombatLogEntryEntityBuilder entry = CombatLogEntryEntity.builder()
+                    .type(type)
+                    .timestamp(previousTimestamp)
+                    .actor(readName());
+            switch (type) {
+                case ITEM_PURCHASED:
+                    entry.item(readName());
+                    break;
+                case HERO_KILLED:
+                    entry.target(readName());
+                    break;
+                case SPELL_CAST:
+                    entry.target(readName()).ability(readName()).abilityLevel(readVarInt());
+                    break;
+                case DAMAGE_DONE:
+                    entry.target(readName()).damage(readVarInt());
+                    break;
+            }
+            return entry.build();
+        }
+
+        /**
+         * Checks that the match ends with the number of entries read and nothing after it.
+         */
+        private void readTrailer() {
+            try {
+                if (readVarLong() != count || in.read() >= 0) {
+                    throw new InputIsNotParsableException();
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            close();
+        }
+
+        private String readName() {
+            long ref = readVarLong();
+            if (ref == 0) {
+                return null;
+            }
+            if (ref <= names.size()) {
+                return names.get((int) ref - 1);
+            }
+            if (ref != names.size() + 1) {
+                throw new InputIsNotParsableException();
+            }
+            try {
+                long length = readVarLong();
+                if (length < 0 || length > MAX_NAME_LENGTH) {
+                    throw new InputIsNotParsableException();
+                }
+                byte[] bytes = in.readNBytes((int) length);
+                if (bytes.length != length) {
+                    throw new InputIsNotParsableException();
+                }
+                String name = new String(bytes, StandardCharsets.UTF_8);
+                names.add(name);
+                return name;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        /**
+         * Reads a varint written from an int, which a negative int sign extends to 64 bits.
+         */
+        private int readVarInt() {
+            long value = readVarLong();
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw new InputIsNotParsableException();
+            }
+            return (int) value;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new InputIsNotParsableException();
+        }
+
+        private int readByte() {
+            try {
+                int b = in.read();
+                if (b < 0) {
+                    throw new InputIsNotParsableException();
+                }
+                return b;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private void close() {
+            try {
+                in.close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+}
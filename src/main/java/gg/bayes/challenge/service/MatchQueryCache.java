@@ -0,0 +1,154 @@
+package gg.bayes.challenge.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import gg.bayes.challenge.config.DotaProperties;
+import gg.bayes.challenge.model.exception.MatchNotFoundException;
+import gg.bayes.challenge.model.exception.NoResultException;
+import lombok.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Size bounded cache of query results keyed by match, hero and query. Eviction is Caffeine's W-TinyLFU. Results never
+ * expire since a match does not change once ingested; {@link MatchNotFoundException} and {@link NoResultException}
+ * are cached for {@code dota.cache.negative-ttl} only, as a marker from which a new exception without stack trace is
+ * thrown on every hit.
+ * <p>
+ * Keys carry a generation per match. Invalidating a match moves it to the next generation, which leaves its cached
+ * results unreachable until they are evicted, in constant time whatever the size of the cache. Generations are drawn
+ * from one sequence and kept for at most {@code dota.cache.maximum-size} matches. A match whose generation was evicted,
+ * or never set, is at the highest evicted generation, so none of its results from before can be reached again; the
+ * cost is that evicting a generation also drops the results of the other matches without one.
+ */
+@Service
+public class MatchQueryCache {
+
+    private final boolean enabled;
+    private final Cache<Key, Result> cache;
+    private final Cache<Long, Long> generations;
+    private final AtomicLong nextGeneration = new AtomicLong();
+    private final AtomicLong evictedGeneration = new AtomicLong();
+
+    public MatchQueryCache(DotaProperties dotaProperties) {
+        DotaProperties.Cache properties = dotaProperties.getCache();
+        long negativeTtlNanos = properties.getNegativeTtl().toNanos();
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new Expiry<Key, Result>() {
+                    @Override
+                    public long expireAfterCreate(Key key, Result result, long currentTime) {
+                        return result.getNegative() == null ? Long.MAX_VALUE : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, Result result, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, result, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, Result result, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        // The eviction listener runs within the eviction, so a lookup that misses the generation sees the floor raised.
+        this.generations = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .<Long, Long>evictionListener((matchId, generation, cause) ->
+                        evictedGeneration.accumulateAndGet(generation, Math::max))
+                .build();
+    }
+
+    /**
+     * Returns the cached result of a query, running the query on a miss.
+     *
+     * @param matchId the match identifier
+     * @param hero    the hero name, or null for match wide queries
+     * @param query   the kind of query
+     * @param loader  runs the query
+     * @return the result of the query
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Long matchId, String hero, Query query, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key cacheKey = new Key(matchId, generation(matchId), hero, query);
+        Result result = cache.get(cacheKey, key -> load(loader));
+        if (result.getNegative() == Negative.MATCH_NOT_FOUND) {
+            throw new MatchNotFoundException(false);
+        }
+        if (result.getNegative() == Negative.NO_RESULT) {
+            throw new NoResultException(false);
+        }
+        return (T) result.getValue();
+    }
+
+    private static Result load(Supplier<?> loader) {
+        try {
+            return new Result(loader.get(), null);
+        } catch (MatchNotFoundException ex) {
+            return new Result(null, Negative.MATCH_NOT_FOUND);
+        } catch (NoResultException ex) {
+            return new Result(null, Negative.NO_RESULT);
+        }
+    }
+
+    /**
+     * Drops every cached result of a match, e.g. a not found result cached before the match was ingested.
+     *
+     * @param matchId the match identifier
+     */
+    public void invalidate(Long matchId) {
+        generations.put(matchId, nextGeneration.incrementAndGet());
+    }
+
+    private long generation(Long matchId) {
+        Long generation = generations.getIfPresent(matchId);
+        return generation != null ? generation : evictedGeneration.get();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public enum Query {
+        KILLS,
+        ITEMS,
+        SPELLS,
+        DAMAGE,
+        SUMMARY,
+        MATRIX,
+        FIGHTS
+    }
+
+    private enum Negative {
+        MATCH_NOT_FOUND,
+        NO_RESULT
+    }
+
+    @Value
+    private static class Key {
+        Long matchId;
+        long generation;
+        String hero;
+        Query query;
+    }
+
+    @Value
+    private static class Result {
+        Object value;
+        Negative negative;
+    }
+}
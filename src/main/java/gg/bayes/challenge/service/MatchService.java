@@ -1,94 +1,313 @@
 package gg.bayes.challenge.service;
 
+import gg.bayes.challenge.config.DotaProperties;
+import gg.bayes.challenge.model.Fight;
+import gg.bayes.challenge.model.FightDetector;
+import gg.bayes.challenge.model.HeroMatrix;
+import gg.bayes.challenge.model.MatchAggregates;
+import gg.bayes.challenge.model.Timeline;
+import gg.bayes.challenge.model.exception.CombatLogTooLargeException;
 import gg.bayes.challenge.model.exception.InputIsNotParsableException;
 import gg.bayes.challenge.model.exception.InternalServerErrorException;
+import gg.bayes.challenge.model.exception.InvalidTimeWindowException;
 import gg.bayes.challenge.model.exception.MatchNotFoundException;
 import gg.bayes.challenge.model.exception.NoResultException;
 import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
-import gg.bayes.challenge.persistence.model.MatchEntity;
-import gg.bayes.challenge.persistence.repository.MatchRepository;
+import gg.bayes.challenge.persistence.model.SourceFileEntity;
+import gg.bayes.challenge.rest.model.HeroDamage;
+import gg.bayes.challenge.rest.model.HeroItem;
+import gg.bayes.challenge.rest.model.HeroKills;
+import gg.bayes.challenge.rest.model.HeroSpells;
+import gg.bayes.challenge.utils.BoundedInputStream;
 import gg.bayes.challenge.utils.Utils;
-import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.stereotype.Service;
 
-import javax.annotation.PostConstruct;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Service
 public class MatchService {
 
     private static final Logger LOGGER = LogManager.getLogger(MatchService.class.getName());
-    private final MatchRepository matchRepository;
-    private final CombatLogEntryService combatLogEntryService;
-
-    public MatchService(MatchRepository matchRepository, CombatLogEntryService combatLogEntryService) {
-        this.matchRepository = matchRepository;
-        this.combatLogEntryService = combatLogEntryService;
-    }
-
-    @PostConstruct
-    private void initial() {
-        try (Stream<Path> paths = Files.walk(Paths.get("data/"))) {
-            paths
-                    .filter(Files::isRegularFile)
-                    .forEach(path -> {
-                        try {
-                            ingestCombatLog(Utils.readFile(path.toString()));
-                        } catch (InputIsNotParsableException | InternalServerErrorException ex) {
-                            LOGGER.error(ex.getMessage(), ex);
+    private final MatchStore matchStore;
+    private final MatchQueryCache matchQueryCache;
+    private final LiveMatchService liveMatchService;
+    private final LazyMatchService lazyMatchService;
+    private final ParallelLogParser parallelLogParser;
+    private final IngestMetrics ingestMetrics;
+    private final DotaProperties dotaProperties;
+
+    public MatchService(MatchStore matchStore, MatchQueryCache matchQueryCache, LiveMatchService liveMatchService,
+                        LazyMatchService lazyMatchService, ParallelLogParser parallelLogParser,
+                        IngestMetrics ingestMetrics, DotaProperties dotaProperties) {
+        this.matchStore = matchStore;
+        this.matchQueryCache = matchQueryCache;
+        this.liveMatchService = liveMatchService;
+        this.lazyMatchService = lazyMatchService;
+        this.parallelLogParser = parallelLogParser;
+        this.ingestMetrics = ingestMetrics;
+        this.dotaProperties = dotaProperties;
+    }
+
+    /**
+     * Ingests a DOTA combat log file, parses and persists relevant events data. All events are associated with the same
+     * match id.
+     *
+     * @param combatLog the content of the combat log file
+     * @return the match id associated with the parsed events
+     */
+    public Long ingestCombatLog(String combatLog) throws InputIsNotParsableException, InternalServerErrorException {
+        return ingestCombatLog(new StringReader(combatLog));
+    }
+
+    /**
+     * Ingests an uploaded combat log like {@link #ingestCombatLog(Reader)}, reading at most
+     * {@code dota.ingest.max-log-size} bytes of it.
+     *
+     * @param combatLog the content of the combat log file, as UTF-8
+     * @return the match id associated with the parsed events
+     */
+    public Long ingestCombatLog(InputStream combatLog) throws InputIsNotParsableException,
+            CombatLogTooLargeException, InternalServerErrorException {
+        return ingestCombatLog(Utils.newReader(
+                new BoundedInputStream(combatLog, dotaProperties.getIngest().getMaxLogSize().toBytes())));
+    }
+
+    /**
+     * Ingests a DOTA combat log line by line, parses and persists relevant events data. The log is parsed as it is
+     * read, so memory use does not grow with the size of the log; long logs are parsed on several threads by
+     * {@link ParallelLogParser}. With {@code dota.lazy.enabled}, the log is only compressed and stored by
+     * {@link LazyMatchService}, and parsed when the match is first queried.
+     *
+     * @param combatLog a reader over the content of the combat log file
+     * @return the match id associated with the parsed events
+     */
+    public Long ingestCombatLog(Reader combatLog) throws InputIsNotParsableException, InternalServerErrorException {
+        if (dotaProperties.getLazy().isEnabled()) {
+            return lazyMatchService.archive(combatLog);
+        }
+        return parallelLogParser.parse(combatLog, entries -> ingestEntries(entries, null));
+    }
+
+    /**
+     * Stores parsed combat log entries as a new match in the configured {@link MatchStore}. All events are associated
+     * with the same match id. Unless disabled with {@code dota.cache.preload}, the answers of every query about the
+     * match are cached right away.
+     *
+     * @param entries    the parsed entries, consumed lazily
+     * @param sourceHash the content hash of the combat log, or null if the source is not tracked
+     * @return the match id associated with the parsed events
+     */
+    public Long ingestEntries(Iterator<CombatLogEntryEntity> entries, String sourceHash)
+            throws InputIsNotParsableException, InternalServerErrorException {
+        return ingestEntries(List.of(Pair.of(entries, sourceHash))).get(0);
+    }
+
+    /**
+     * Stores several parsed combat logs as new matches with {@link MatchStore#saveAll(List)}, which shares the
+     * transaction and the write batches among them.
+     *
+     * @param logs per match, the parsed entries, consumed lazily, and the content hash of the combat log or null
+     * @return the match ids, in the order of the logs
+     */
+    public List<Long> ingestEntries(List<Pair<Iterator<CombatLogEntryEntity>, String>> logs)
+            throws InputIsNotParsableException, InternalServerErrorException {
+        try {
+            long start = System.nanoTime();
+            long[] counts = new long[logs.size()];
+            long[] starts = new long[logs.size()];
+            boolean[] started = new boolean[logs.size()];
+            List<Pair<Iterator<CombatLogEntryEntity>, String>> counted = new ArrayList<>(logs.size());
+            for (int i = 0; i < logs.size(); i++) {
+                int index = i;
+                Iterator<CombatLogEntryEntity> entries = logs.get(i).getLeft();
+                counted.add(Pair.of(new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        if (!started[index]) {
+                            started[index] = true;
+                            starts[index] = System.nanoTime();
                         }
-                    });
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public CombatLogEntryEntity next() {
+                        counts[index]++;
+                        return entries.next();
+                    }
+                }, logs.get(i).getRight()));
+            }
+            List<Long> matchIds = matchStore.saveAll(counted);
+            long end = System.nanoTime();
+            long elapsedNanos = end - start;
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                // The store consumes the logs one after the other, so a log lasts until the next one is started. The
+                // first also carries the setup before it, the last the final flush and the commit.
+                long logStart = i == 0 ? start : starts[i];
+                long logEnd = i + 1 < counts.length ? starts[i + 1] : end;
+                ingestMetrics.recordIngest(logEnd - logStart, counts[i]);
+                total += counts[i];
+            }
+            long elapsedMillis = Math.max(1, elapsedNanos / 1_000_000);
+            LOGGER.info("Ingested match {}: {} entries in {} ms ({} rows/s)",
+                    matchIds.size() == 1 ? matchIds.get(0) : matchIds, total, elapsedMillis,
+                    total * 1000 / elapsedMillis);
+            for (Long matchId : matchIds) {
+                matchQueryCache.invalidate(matchId);
+                if (dotaProperties.getCache().isPreload()) {
+                    preload(matchId);
+                }
+            }
+            return matchIds;
+        } catch (InputIsNotParsableException | CombatLogTooLargeException ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            throw ex;
         } catch (Exception ex) {
             LOGGER.error(ex.getMessage(), ex);
+            throw new InternalServerErrorException();
         }
     }
 
     /**
-     * Fetches the mach entity.
+     * Stores a match exported with {@link #exportMatch(Long)}, without parsing any text.
      *
-     * @param matchId the match identifier
-     * @return the match entity associated with match id
+     * @param encodedMatch the match in the {@link MatchCodec} format
+     * @return the id of the new match
      */
-    private MatchEntity findMatch(Long matchId) throws MatchNotFoundException {
-        Optional<MatchEntity> match = matchRepository.findById(matchId);
-        if (match.isPresent()) {
-            return match.get();
-        } else {
-            throw new MatchNotFoundException();
+    public Long importMatch(InputStream encodedMatch) throws InputIsNotParsableException,
+            InternalServerErrorException {
+        Iterator<CombatLogEntryEntity> entries;
+        try {
+            entries = MatchCodec.decode(encodedMatch);
+        } catch (InputIsNotParsableException ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            throw ex;
+        } catch (Exception ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            throw new InternalServerErrorException();
         }
+        return ingestEntries(entries, null);
     }
 
     /**
-     * Ingests a DOTA combat log file, parses and persists relevant events data. All events are associated with the same
-     * match id.
+     * Encodes the entries of a match in the compact {@link MatchCodec} format, to be imported elsewhere with
+     * {@link #importMatch(InputStream)}. Entries are written as they are read from the store, so the match is never
+     * held in memory whole. The encoder buffers the first {@code 64 KB}, so a match that cannot be found fails before
+     * anything reaches the stream.
      *
-     * @param combatLog the content of the combat log file
-     * @return the match id associated with the parsed events
+     * @param matchId      the match identifier
+     * @param outputStream receives the encoded match, left open
      */
-    public Long ingestCombatLog(String combatLog) throws InputIsNotParsableException, InternalServerErrorException {
+    public void exportMatch(Long matchId, OutputStream outputStream) throws MatchNotFoundException,
+            InternalServerErrorException {
+        try {
+            MatchCodec.Encoder encoder = new MatchCodec.Encoder(outputStream);
+            lazyMatchService.read(matchId, () -> {
+                matchStore.forEachEntry(matchId, entry -> {
+                    try {
+                        encoder.write(entry);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                return matchId;
+            });
+            encoder.finish();
+        } catch (MatchNotFoundException ex) {
+            LOGGER.debug("Query on match {} answered {}", matchId, ex.getClass().getSimpleName());
+            throw ex;
+        } catch (Exception ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            throw new InternalServerErrorException();
+        }
+    }
+
+    private void preload(Long matchId) {
         try {
-            MatchEntity matchEntity = new MatchEntity();
-            combatLog
-                    .lines()
-                    .forEach(line -> Arrays.stream(CombatLogParser.values())
-                            .map(parser -> parser.parseCombatLog(line))
-                            .filter(Objects::nonNull)
-                            .findFirst()
-                            .ifPresent(matchEntity::addCombatLogEntry));
-            if (matchEntity.getCombatLogEntries().size() == 0) {
-                throw new InputIsNotParsableException();
+            getMatch(matchId);
+            for (String hero : matchStore.getHeroes(matchId)) {
+                matchQueryCache.get(matchId, hero, MatchQueryCache.Query.ITEMS, () -> fetchHeroItems(matchId, hero));
+                matchQueryCache.get(matchId, hero, MatchQueryCache.Query.SPELLS, () -> fetchHeroSpells(matchId, hero));
+                matchQueryCache.get(matchId, hero, MatchQueryCache.Query.DAMAGE, () -> fetchHeroDamages(matchId, hero));
             }
-            return matchRepository.save(matchEntity).getId();
-        } catch (InputIsNotParsableException ex) {
+        } catch (Exception ex) {
+            LOGGER.warn("Could not preload the queries of match {}", matchId, ex);
+        }
+    }
+
+    /**
+     * Checks whether a combat log with the given content hash has already been ingested.
+     *
+     * @param sourceHash the content hash of the combat log
+     * @return true if a match was stored from the same content
+     */
+    public boolean isIngested(String sourceHash) {
+        return matchStore.isIngested(sourceHash);
+    }
+
+    /**
+     * Fetches what the bootstrap recorded about a file it read.
+     *
+     * @param path the path of the file
+     * @return the size, modification time and content hash the file had, or empty if it was never read
+     */
+    public Optional<SourceFileEntity> findSourceFile(String path) {
+        return matchStore.findSourceFile(path);
+    }
+
+    /**
+     * Records a file read by the bootstrap, so that it is skipped at the next startup as long as it is unchanged.
+     *
+     * @param sourceFile the path, size, modification time and content hash of the file
+     */
+    public void saveSourceFile(SourceFileEntity sourceFile) {
+        matchStore.saveSourceFile(sourceFile);
+    }
+
+    /**
+     * Fetches the heroes and their kill counts for the given match.
+     *
+     * @param matchId the match identifier
+     * @return the heroes of the match and their kill counts
+     */
+    public List<HeroKills> getMatch(Long matchId) throws MatchNotFoundException, InternalServerErrorException {
+        try {
+            return query(matchId, null, MatchQueryCache.Query.KILLS, MatchService::killsOf,
+                    () -> matchStore.getKills(matchId));
+        } catch (MatchNotFoundException ex) {
+            LOGGER.debug("Query on match {} answered {}", matchId, ex.getClass().getSimpleName());
+            throw ex;
+        } catch (Exception ex) {
             LOGGER.error(ex.getMessage(), ex);
+            throw new InternalServerErrorException();
+        }
+    }
+
+    /**
+     * Fetches the kills, purchases, spell casts and damage of every hero of the given match at once, instead of one
+     * query per hero and kind.
+     *
+     * @param matchId the match identifier
+     * @return the aggregates of the whole match
+     */
+    public MatchAggregates getSummary(Long matchId) throws MatchNotFoundException, InternalServerErrorException {
+        try {
+            return query(matchId, null, MatchQueryCache.Query.SUMMARY, MatchAggregates::copy,
+                    () -> matchStore.getAggregates(matchId));
+        } catch (MatchNotFoundException ex) {
+            LOGGER.debug("Query on match {} answered {}", matchId, ex.getClass().getSimpleName());
             throw ex;
         } catch (Exception ex) {
             LOGGER.error(ex.getMessage(), ex);
@@ -97,18 +316,37 @@ public class MatchService {
     }
 
     /**
-     * Fetches the heroes and their kill counts for the given match.
+     * Fetches the damage and kills of every hero of the given match on every other hero, at once instead of one damage
+     * query per hero.
      *
      * @param matchId the match identifier
-     * @return a Map which its key refers to hero name and its value refers to his kill count
+     * @return the attacker by victim matrices of the match
      */
-    public Map<String, Long> getMatch(Long matchId) throws MatchNotFoundException, InternalServerErrorException {
+    public HeroMatrix getMatrix(Long matchId) throws MatchNotFoundException, InternalServerErrorException {
         try {
-            return combatLogEntryService.fetchEntries(findMatch(matchId), CombatLogEntryEntity.Type.HERO_KILLED)
-                    .stream()
-                    .collect(Collectors.groupingBy(CombatLogEntryEntity::getActor, Collectors.counting()));
+            return query(matchId, null, MatchQueryCache.Query.MATRIX, HeroMatrix::of,
+                    () -> matchStore.getMatrix(matchId));
         } catch (MatchNotFoundException ex) {
+            LOGGER.debug("Query on match {} answered {}", matchId, ex.getClass().getSimpleName());
+            throw ex;
+        } catch (Exception ex) {
             LOGGER.error(ex.getMessage(), ex);
+            throw new InternalServerErrorException();
+        }
+    }
+
+    /**
+     * Fetches the fights of the given match, detected at ingest by {@link FightDetector}.
+     *
+     * @param matchId the match identifier
+     * @return the fights, earliest first, empty if the match had none
+     */
+    public List<Fight> getFights(Long matchId) throws MatchNotFoundException, InternalServerErrorException {
+        try {
+            return query(matchId, null, MatchQueryCache.Query.FIGHTS,
+                    aggregates -> aggregates.getFightDetector().fights(), () -> matchStore.getFights(matchId));
+        } catch (MatchNotFoundException ex) {
+            LOGGER.debug("Query on match {} answered {}", matchId, ex.getClass().getSimpleName());
             throw ex;
         } catch (Exception ex) {
             LOGGER.error(ex.getMessage(), ex);
@@ -121,20 +359,15 @@ public class MatchService {
      *
      * @param matchId the match identifier
      * @param actor   the hero name
-     * @return a List of pairs containing items bought by the hero and the timestamp respectively
+     * @return the items bought by the hero and their timestamps, in purchase order
      */
-    public List<Pair<String, Long>> getHeroItems(Long matchId, String actor) throws MatchNotFoundException,
-            NoResultException, InternalServerErrorException {
+    public List<HeroItem> getHeroItems(Long matchId, String actor) throws MatchNotFoundException, NoResultException,
+            InternalServerErrorException {
         try {
-            List<Pair<String, Long>> result = new ArrayList<>();
-            combatLogEntryService.fetchEntries(findMatch(matchId), actor, CombatLogEntryEntity.Type.ITEM_PURCHASED)
-                    .forEach(entry -> result.add(new ImmutablePair<>(entry.getItem(), entry.getTimestamp())));
-            if (result.size() == 0) {
-                throw new NoResultException();
-            }
-            return result;
+            return query(matchId, actor, MatchQueryCache.Query.ITEMS,
+                    aggregates -> nonEmpty(itemsOf(aggregates, actor)), () -> fetchHeroItems(matchId, actor));
         } catch (MatchNotFoundException | NoResultException ex) {
-            LOGGER.error(ex.getMessage(), ex);
+            LOGGER.debug("Query on match {} answered {}", matchId, ex.getClass().getSimpleName());
             throw ex;
         } catch (Exception ex) {
             LOGGER.error(ex.getMessage(), ex);
@@ -147,20 +380,15 @@ public class MatchService {
      *
      * @param matchId the match identifier
      * @param actor   the hero name
-     * @return a Map which its key refers to spells cast by the hero and its value refers to how many times they were cast
+     * @return the spells cast by the hero and how many times they were cast
      */
-    public Map<String, Long> getHeroSpells(Long matchId, String actor) throws MatchNotFoundException, NoResultException,
+    public List<HeroSpells> getHeroSpells(Long matchId, String actor) throws MatchNotFoundException, NoResultException,
             InternalServerErrorException {
         try {
-            Map<String, Long> result = combatLogEntryService.fetchEntries(findMatch(matchId), actor, CombatLogEntryEntity.Type.SPELL_CAST)
-                    .stream()
-                    .collect(Collectors.groupingBy(CombatLogEntryEntity::getAbility, Collectors.counting()));
-            if (result.size() == 0) {
-                throw new NoResultException();
-            }
-            return result;
+            return query(matchId, actor, MatchQueryCache.Query.SPELLS,
+                    aggregates -> nonEmpty(spellsOf(aggregates, actor)), () -> fetchHeroSpells(matchId, actor));
         } catch (MatchNotFoundException | NoResultException ex) {
-            LOGGER.error(ex.getMessage(), ex);
+            LOGGER.debug("Query on match {} answered {}", matchId, ex.getClass().getSimpleName());
             throw ex;
         } catch (Exception ex) {
             LOGGER.error(ex.getMessage(), ex);
@@ -173,28 +401,177 @@ public class MatchService {
      *
      * @param matchId the match identifier
      * @param actor   the hero name
-     * @return a Map which its key refers to target and its value refers to a Pair containing number of times and total
-     * damage elements respectively
+     * @return per target, the number of damage instances and the total damage done by the hero
      */
-    public Map<String, Pair<Integer, Integer>> getHeroDamages(Long matchId, String actor) throws MatchNotFoundException,
+    public List<HeroDamage> getHeroDamages(Long matchId, String actor) throws MatchNotFoundException,
             NoResultException, InternalServerErrorException {
         try {
-            Map<String, List<CombatLogEntryEntity>> map =
-                    combatLogEntryService.fetchEntries(findMatch(matchId), actor, CombatLogEntryEntity.Type.DAMAGE_DONE)
-                            .stream()
-                            .collect(Collectors.groupingBy(CombatLogEntryEntity::getTarget));
-            Map<String, Pair<Integer, Integer>> result = new HashMap<>();
-            map.forEach((key, value) -> result.put(key, new ImmutablePair<>(value.size(), value.stream().mapToInt(CombatLogEntryEntity::getDamage).sum())));
-            if (result.size() == 0) {
-                throw new NoResultException();
-            }
-            return result;
+            return query(matchId, actor, MatchQueryCache.Query.DAMAGE,
+                    aggregates -> nonEmpty(damagesOf(aggregates, actor)), () -> fetchHeroDamages(matchId, actor));
         } catch (MatchNotFoundException | NoResultException ex) {
+            LOGGER.debug("Query on match {} answered {}", matchId, ex.getClass().getSimpleName());
+            throw ex;
+        } catch (Exception ex) {
             LOGGER.error(ex.getMessage(), ex);
+            throw new InternalServerErrorException();
+        }
+    }
+
+    /**
+     * For the given match, fetches the items bought by the named hero within a time window. Without bounds, the whole
+     * match is answered by {@link #getHeroItems(Long, String)}.
+     *
+     * @param matchId the match identifier
+     * @param actor   the hero name
+     * @param from    the start of the window in milliseconds, inclusive, or null for the start of the match
+     * @param to      the end of the window in milliseconds, exclusive, or null for the end of the match
+     * @return the items bought by the hero within the window and their timestamps, in purchase order
+     */
+    public List<HeroItem> getHeroItems(Long matchId, String actor, Long from, Long to)
+            throws MatchNotFoundException, NoResultException, InvalidTimeWindowException,
+            InternalServerErrorException {
+        if (from == null && to == null) {
+            return getHeroItems(matchId, actor);
+        }
+        return inWindow(matchId, from, to, (start, end) -> nonEmpty(matchStore.getItems(matchId, actor, start, end)));
+    }
+
+    /**
+     * For the given match, fetches the spells cast by the named hero within a time window.
+     *
+     * @param matchId the match identifier
+     * @param actor   the hero name
+     * @param from    the start of the window in milliseconds, inclusive, or null for the start of the match
+     * @param to      the end of the window in milliseconds, exclusive, or null for the end of the match
+     * @return the spells cast by the hero within the window and how many times they were cast
+     */
+    public List<HeroSpells> getHeroSpells(Long matchId, String actor, Long from, Long to)
+            throws MatchNotFoundException, NoResultException, InvalidTimeWindowException,
+            InternalServerErrorException {
+        if (from == null && to == null) {
+            return getHeroSpells(matchId, actor);
+        }
+        return inWindow(matchId, from, to, (start, end) -> nonEmpty(matchStore.getSpells(matchId, actor, start, end)));
+    }
+
+    /**
+     * For the given match, fetches damage done data for the named hero within a time window.
+     *
+     * @param matchId the match identifier
+     * @param actor   the hero name
+     * @param from    the start of the window in milliseconds, inclusive, or null for the start of the match
+     * @param to      the end of the window in milliseconds, exclusive, or null for the end of the match
+     * @return per target, the number of damage instances and the total damage done by the hero within the window
+     */
+    public List<HeroDamage> getHeroDamages(Long matchId, String actor, Long from, Long to)
+            throws MatchNotFoundException, NoResultException, InvalidTimeWindowException,
+            InternalServerErrorException {
+        if (from == null && to == null) {
+            return getHeroDamages(matchId, actor);
+        }
+        return inWindow(matchId, from, to, (start, end) -> nonEmpty(matchStore.getDamages(matchId, actor, start, end)));
+    }
+
+    /**
+     * For the given match, counts the kills, purchases, spell casts and damage of the named hero per time bucket.
+     *
+     * @param matchId    the match identifier
+     * @param actor      the hero name
+     * @param from       the start of the window in milliseconds, inclusive, or null for the start of the match
+     * @param to         the end of the window in milliseconds, exclusive, or null for the end of the match
+     * @param bucketSize the size of the buckets in milliseconds, the first one starting at the start of the window
+     * @return the non-empty buckets, earliest first
+     */
+    public List<Timeline.Bucket> getHeroTimeline(Long matchId, String actor, Long from, Long to, long bucketSize)
+            throws MatchNotFoundException, NoResultException, InvalidTimeWindowException,
+            InternalServerErrorException {
+        if (bucketSize <= 0) {
+            throw new InvalidTimeWindowException();
+        }
+        return inWindow(matchId, from, to, (start, end) ->
+                nonEmpty(matchStore.getTimeline(matchId, actor, start, end, bucketSize).getBuckets()));
+    }
+
+    /**
+     * Runs a windowed query against the match store. Windowed answers are not cached, as they only read the entries
+     * within the window.
+     */
+    private <T> T inWindow(Long matchId, Long from, Long to, WindowQuery<T> query) {
+        long start = from == null ? 0 : from;
+        long end = to == null ? Long.MAX_VALUE : to;
+        if (start >= end) {
+            throw new InvalidTimeWindowException();
+        }
+        try {
+            return lazyMatchService.read(matchId, () -> query.run(start, end));
+        } catch (MatchNotFoundException | NoResultException ex) {
+            LOGGER.debug("Query on match {} answered {}", matchId, ex.getClass().getSimpleName());
             throw ex;
         } catch (Exception ex) {
             LOGGER.error(ex.getMessage(), ex);
             throw new InternalServerErrorException();
         }
     }
+
+    private interface WindowQuery<T> {
+        T run(long from, long to);
+    }
+
+    /**
+     * Answers a query from the running aggregates while the match is live, and from the cache in front of the match
+     * store otherwise. Live answers are not cached, as the next append changes them. A cache miss on a match ingested
+     * lazily loads it first.
+     */
+    private <T> T query(Long matchId, String hero, MatchQueryCache.Query query, Function<MatchAggregates, T> live,
+                        Supplier<T> loader) {
+        Optional<T> result = liveMatchService.read(matchId, live);
+        return result.isPresent() ? result.get()
+                : matchQueryCache.get(matchId, hero, query, () -> lazyMatchService.read(matchId, loader));
+    }
+
+    private List<HeroItem> fetchHeroItems(Long matchId, String actor) {
+        return nonEmpty(matchStore.getItems(matchId, actor));
+    }
+
+    private List<HeroSpells> fetchHeroSpells(Long matchId, String actor) {
+        return nonEmpty(matchStore.getSpells(matchId, actor));
+    }
+
+    private List<HeroDamage> fetchHeroDamages(Long matchId, String actor) {
+        return nonEmpty(matchStore.getDamages(matchId, actor));
+    }
+
+    private static List<HeroKills> killsOf(MatchAggregates aggregates) {
+        List<HeroKills> result = new ArrayList<>();
+        aggregates.getKills().forEach((hero, kills) -> result.add(new HeroKills(hero, kills.intValue())));
+        return result;
+    }
+
+    private static List<HeroItem> itemsOf(MatchAggregates aggregates, String hero) {
+        List<HeroItem> result = new ArrayList<>();
+        aggregates.getItems().getOrDefault(hero, List.of())
+                .forEach(item -> result.add(new HeroItem(item.getKey(), item.getValue())));
+        return result;
+    }
+
+    private static List<HeroSpells> spellsOf(MatchAggregates aggregates, String hero) {
+        List<HeroSpells> result = new ArrayList<>();
+        aggregates.getSpells().getOrDefault(hero, Map.of())
+                .forEach((spell, casts) -> result.add(new HeroSpells(spell, casts.intValue())));
+        return result;
+    }
+
+    private static List<HeroDamage> damagesOf(MatchAggregates aggregates, String hero) {
+        List<HeroDamage> result = new ArrayList<>();
+        aggregates.getDamages().getOrDefault(hero, Map.of()).forEach((target, totals) ->
+                result.add(new HeroDamage(target, totals.getInstances(), totals.getTotal())));
+        return result;
+    }
+
+    private static <T extends List<?>> T nonEmpty(T result) {
+        if (result.isEmpty()) {
+            throw new NoResultException();
+        }
+        return result;
+    }
 }
@@ -0,0 +1,207 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.model.Fight;
+import gg.bayes.challenge.model.HeroMatrix;
+import gg.bayes.challenge.model.HeroRollup;
+import gg.bayes.challenge.model.MatchAggregates;
+import gg.bayes.challenge.model.Timeline;
+import gg.bayes.challenge.model.exception.InputIsNotParsableException;
+import gg.bayes.challenge.model.exception.MatchNotFoundException;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.persistence.model.SourceFileEntity;
+import gg.bayes.challenge.rest.model.HeroDamage;
+import gg.bayes.challenge.rest.model.HeroItem;
+import gg.bayes.challenge.rest.model.HeroKills;
+import gg.bayes.challenge.rest.model.HeroSpells;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Storage engine for parsed matches, selected with {@code dota.storage.engine}.
+ */
+public interface MatchStore {
+
+    /**
+     * Stores parsed combat log entries as a new match.
+     *
+     * @param entries    the parsed entries, consumed lazily
+     * @param sourceHash the content hash of the combat log, or null if the source is not tracked
+     * @return the match id associated with the entries
+     */
+    Long save(Iterator<CombatLogEntryEntity> entries, String sourceHash) throws InputIsNotParsableException;
+
+    /**
+     * Stores several parsed combat logs as new matches at once, so they share the write batches and, where the store
+     * has them, a single transaction. Either every match is stored or none is.
+     *
+     * @param logs per match, the parsed entries, consumed lazily, and the content hash of the combat log or null
+     * @return the match ids, in the order of the logs
+     */
+    List<Long> saveAll(List<Pair<Iterator<CombatLogEntryEntity>, String>> logs) throws InputIsNotParsableException;
+
+    /**
+     * Starts a match whose entries arrive in batches while it is being played. Until it is closed, the match is only
+     * guaranteed to be readable through the running aggregates kept by the caller.
+     *
+     * @return the id of the new, empty match
+     */
+    Long open();
+
+    /**
+     * Stores a batch of entries of an open match.
+     *
+     * @param matchId the id returned by {@link #open()}
+     * @param entries the parsed entries of the batch
+     */
+    void append(Long matchId, List<CombatLogEntryEntity> entries) throws MatchNotFoundException;
+
+    /**
+     * Completes an open match, after which it is queried like any other.
+     *
+     * @param matchId    the id returned by {@link #open()}
+     * @param aggregates the aggregates of every entry appended to the match
+     */
+    void close(Long matchId, MatchAggregates aggregates) throws MatchNotFoundException;
+
+    /**
+     * Stores the compressed combat log of a match ingested lazily, without parsing it. The match can only be queried
+     * once {@link #load(Long, Iterator)} has stored its entries.
+     *
+     * @param content  the gzip compressed combat log, read once
+     * @param length   the number of bytes of the content
+     * @param rawSize  the length of the combat log before compression, in bytes
+     * @param reserved called with the id of the match before any other caller can see the archive
+     * @return the id reserved for the match
+     */
+    Long archive(InputStream content, long length, long rawSize, Consumer<Long> reserved) throws IOException;
+
+    /**
+     * @return the compressed combat log stored by {@link #archive(InputStream, long, long, Consumer)}
+     */
+    byte[] getArchive(Long matchId) throws MatchNotFoundException;
+
+    /**
+     * @return per archived match, whether its entries are currently stored
+     */
+    Map<Long, Boolean> findArchives();
+
+    /**
+     * Stores the parsed entries of an archived match with its aggregates, after which it is queried like any other.
+     * Archived matches are never added to the hero rollups, so the rollups do not depend on which ones were queried.
+     *
+     * @param matchId the id returned by {@link #archive(InputStream, long, long, Consumer)}
+     * @param entries the entries parsed from the archived combat log, consumed lazily
+     */
+    void load(Long matchId, Iterator<CombatLogEntryEntity> entries)
+            throws MatchNotFoundException, InputIsNotParsableException;
+
+    /**
+     * Drops the entries and aggregates of a loaded archived match. Its compressed combat log is kept for the next
+     * {@link #load(Long, Iterator)}.
+     */
+    void evict(Long matchId) throws MatchNotFoundException;
+
+    /**
+     * @param sourceHash the content hash of a combat log
+     * @return true if a match was stored from the same content
+     */
+    boolean isIngested(String sourceHash);
+
+    /**
+     * @param path the path of a file read by the bootstrap
+     * @return the file as last recorded by {@link #saveSourceFile(SourceFileEntity)}, or empty if it never was
+     */
+    Optional<SourceFileEntity> findSourceFile(String path);
+
+    /**
+     * Records a file read by the bootstrap, replacing any earlier record of the same path.
+     */
+    void saveSourceFile(SourceFileEntity sourceFile);
+
+    /**
+     * Computes every per hero answer of a match at once: kills, purchases, spell casts and damage.
+     *
+     * @param matchId the match identifier
+     * @return the aggregates of the whole match
+     */
+    MatchAggregates getAggregates(Long matchId) throws MatchNotFoundException;
+
+    /**
+     * @return the damage and kills of every hero on every other hero, in one scan of the match
+     */
+    HeroMatrix getMatrix(Long matchId) throws MatchNotFoundException;
+
+    /**
+     * @return the fights of the match, earliest first, as detected by {@link gg.bayes.challenge.model.FightDetector}
+     */
+    List<Fight> getFights(Long matchId) throws MatchNotFoundException;
+
+    /**
+     * Passes every entry of the match to the consumer, in log order.
+     */
+    void forEachEntry(Long matchId, Consumer<CombatLogEntryEntity> consumer) throws MatchNotFoundException;
+
+    /**
+     * @return the heroes that appear as actors in the match
+     */
+    Set<String> getHeroes(Long matchId) throws MatchNotFoundException;
+
+    /**
+     * @return per hero, the number of heroes they killed
+     */
+    List<HeroKills> getKills(Long matchId) throws MatchNotFoundException;
+
+    /**
+     * @return the items bought by the hero and their timestamps, in purchase order
+     */
+    List<HeroItem> getItems(Long matchId, String hero) throws MatchNotFoundException;
+
+    /**
+     * @return per ability, the number of times the hero cast it
+     */
+    List<HeroSpells> getSpells(Long matchId, String hero) throws MatchNotFoundException;
+
+    /**
+     * @return per target, the number of damage instances and the total damage done by the hero
+     */
+    List<HeroDamage> getDamages(Long matchId, String hero) throws MatchNotFoundException;
+
+    /**
+     * Windowed variant of {@link #getItems(Long, String)}. Windows are half open, {@code [from, to)} in milliseconds
+     * since the start of the match, and cost about the number of entries of the hero within the window.
+     *
+     * @return the items bought by the hero within the window and their timestamps, in purchase order
+     */
+    List<HeroItem> getItems(Long matchId, String hero, long from, long to) throws MatchNotFoundException;
+
+    /**
+     * @return per ability, the number of times the hero cast it within the window
+     */
+    List<HeroSpells> getSpells(Long matchId, String hero, long from, long to) throws MatchNotFoundException;
+
+    /**
+     * @return per target, the number of damage instances and the total damage done by the hero within the window
+     */
+    List<HeroDamage> getDamages(Long matchId, String hero, long from, long to) throws MatchNotFoundException;
+
+    /**
+     * @param bucketSize the size of the buckets in milliseconds, the first one starting at {@code from}
+     * @return the activity of the hero within the window, per bucket
+     */
+    Timeline getTimeline(Long matchId, String hero, long from, long to, long bucketSize)
+            throws MatchNotFoundException;
+
+    /**
+     * @return the totals of the hero over every stored match, or empty if no stored match has it
+     */
+    Optional<HeroRollup> getHeroRollup(String hero);
+
+}
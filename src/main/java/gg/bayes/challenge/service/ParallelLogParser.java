@@ -0,0 +1,243 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.config.DotaProperties;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Parses a combat log on several threads. The log is read in chunks of {@code dota.ingest.parse-chunk-size}
+ * characters cut after a line terminator; the chunks are split into lines and parsed on a pool of
+ * {@code dota.ingest.parse-threads} threads while the next ones are read, and their entries are handed out in chunk
+ * order, so the result is the same as parsing line by line. Logs shorter than {@code dota.ingest.parallel-threshold}
+ * are parsed on the calling thread. A line longer than {@link #MAX_LINE_CHUNKS} chunks is skipped as unmatched
+ * without being held in memory.
+ */
+@Service
+public class ParallelLogParser {
+
+    /**
+     * Longest line read whole, in chunks. Entries are a few hundred characters long.
+     */
+    static final int MAX_LINE_CHUNKS = 4;
+
+    private final IngestMetrics ingestMetrics;
+    private final int chunkSize;
+    private final int maxLineLength;
+    private final long threshold;
+    private final int threads;
+    private final ExecutorService parsers;
+
+    public ParallelLogParser(IngestMetrics ingestMetrics, DotaProperties dotaProperties) {
+        this.ingestMetrics = ingestMetrics;
+        DotaProperties.Ingest properties = dotaProperties.getIngest();
+        this.chunkSize = (int) Math.min(Integer.MAX_VALUE - 8, properties.getParseChunkSize().toBytes());
+        this.maxLineLength = (int) Math.min(Integer.MAX_VALUE - 8, (long) MAX_LINE_CHUNKS * chunkSize);
+        this.threshold = properties.getParallelThreshold().toBytes();
+        this.threads = properties.getParseThreads();
+        this.parsers = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("log-parser-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        parsers.shutdownNow();
+    }
+
+    /**
+     * Parses a combat log and hands its entries, in log order, to the consumer.
+     *
+     * @param combatLog the content of the combat log
+     * @param consumer  consumes the parsed entries; the iterator is only valid during the call
+     * @return the result of the consumer
+     */
+    public <T> T parse(Reader combatLog, Function<Iterator<CombatLogEntryEntity>, T> consumer) {
+        ChunkReader chunks = new ChunkReader(combatLog);
+        List<String> head = new ArrayList<>();
+        long headSize = 0;
+        while (threads < 2 || headSize < threshold) {
+            String chunk = threads < 2 ? null : chunks.next();
+            if (chunk == null) {
+                return parseSequentially(head, chunks, consumer);
+            }
+            head.add(chunk);
+            headSize += chunk.length();
+        }
+
+        Deque<Future<List<CombatLogEntryEntity>>> pending = new ArrayDeque<>();
+        try {
+            head.forEach(chunk -> pending.add(parsers.submit(() -> parseChunk(chunk))));
+            return consumer.apply(new Iterator<>() {
+                private Iterator<CombatLogEntryEntity> current = Collections.emptyIterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!current.hasNext()) {
+                        if (pending.size() < 2 * threads) {
+                            String chunk = chunks.next();
+                            if (chunk != null) {
+                                pending.add(parsers.submit(() -> parseChunk(chunk)));
+                            }
+                        }
+                        if (pending.isEmpty()) {
+                            return false;
+                        }
+                        current = join(pending.poll()).iterator();
+                    }
+                    return true;
+                }
+
+                @Override
+                public CombatLogEntryEntity next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return current.next();
+                }
+            });
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Parses the chunks read so far, then the rest of the log, on the calling thread.
+     */
+    private <T> T parseSequentially(List<String> head, ChunkReader chunks,
+                                    Function<Iterator<CombatLogEntryEntity>, T> consumer) {
+        Stream<String> rest = Stream.generate(chunks::next).takeWhile(Objects::nonNull);
+        IngestMetrics.ParseRecorder recorder = ingestMetrics.parseRecorder();
+        try {
+            return consumer.apply(Stream.concat(head.stream(), rest)
+                    .flatMap(String::lines)
+                    .map(recorder::parse)
+                    .filter(Objects::nonNull)
+                    .iterator());
+        } finally {
+            recorder.publish();
+        }
+    }
+
+    private List<CombatLogEntryEntity> parseChunk(String chunk) {
+        IngestMetrics.ParseRecorder recorder = ingestMetrics.parseRecorder();
+        List<CombatLogEntryEntity> entries = new ArrayList<>();
+        try {
+            chunk.lines().forEach(line -> {
+                CombatLogEntryEntity entry = recorder.parse(line);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            });
+        } finally {
+            recorder.publish();
+        }
+        return entries;
+    }
+
+    private static List<CombatLogEntryEntity> join(Future<List<CombatLogEntryEntity>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Reads a log in chunks of whole lines. A line longer than a chunk extends it, up to {@code maxLineLength}; past
+     * that, the line is dropped up to its end.
+     */
+    private final class ChunkReader {
+        private final Reader reader;
+        private char[] buffer = new char[chunkSize];
+        private int filled;
+        private boolean eof;
+        private boolean skipping;
+
+        private ChunkReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * @return the next chunk, or null at the end of the log
+         */
+        String next() {
+            try {
+                while (!eof) {
+                    if (filled == buffer.length) {
+                        int cut = lastLineEnd();
+                        if (cut > 0) {
+                            return take(cut);
+                        }
+                        if (buffer.length < maxLineLength) {
+                            buffer = Arrays.copyOf(buffer, (int) Math.min(2L * buffer.length, maxLineLength));
+                        } else {
+                            filled = 0;
+                            skipping = true;
+                        }
+                    }
+                    int read = reader.read(buffer, filled, buffer.length - filled);
+                    if (read < 0) {
+                        eof = true;
+                    } else {
+                        filled += read;
+                        if (skipping) {
+                            skipLineEnd();
+                        }
+                    }
+                }
+                return filled > 0 ? take(filled) : null;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        /**
+         * @return the length of the buffered lines that are known to be complete. A trailing {@code '\r'} may be
+         * followed by a {@code '\n'} still unread, so its line is not complete yet.
+         */
+        private int lastLineEnd() {
+            for (int i = filled - 1; i >= 0; i--) {
+                if (buffer[i] == '\n' || (buffer[i] == '\r' && i < filled - 1)) {
+                    return i + 1;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Drops the buffered characters of a line too long to read, up to and including its terminator. A
+         * {@code '\n'} left after its {@code '\r'} only ends an empty line.
+         */
+        private void skipLineEnd() {
+            for (int i = 0; i < filled; i++) {
+                if (buffer[i] == '\n' || buffer[i] == '\r') {
+                    skipping = false;
+                    take(i + 1);
+                    return;
+                }
+            }
+            filled = 0;
+        }
+
+        private String take(int length) {
+            String chunk = new String(buffer, 0, length);
+            System.arraycopy(buffer, length, buffer, 0, filled - length);
+            filled -= length;
+            return chunk;
+        }
+    }
+}
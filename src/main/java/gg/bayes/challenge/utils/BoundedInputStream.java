@@ -0,0 +1,71 @@
+package gg.bayes.challenge.utils;
+
+import gg.bayes.challenge.model.exception.CombatLogTooLargeException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads at most a given number of bytes from a stream, and fails with {@link CombatLogTooLargeException} as soon as
+ * the stream has more, so an upload is rejected before more than the limit is read. Streams can also share a limit,
+ * which then bounds the bytes read from all of them.
+ */
+public class BoundedInputStream extends FilterInputStream {
+
+    private final AtomicLong remaining;
+
+    /**
+     * @param in       the stream to read
+     * @param maxBytes the number of bytes the stream may have
+     */
+    public BoundedInputStream(InputStream in, long maxBytes) {
+        this(in, new AtomicLong(maxBytes));
+    }
+
+    /**
+     * @param in        the stream to read
+     * @param remaining the number of bytes left to the streams sharing it, decremented as they are read
+     */
+    public BoundedInputStream(InputStream in, AtomicLong remaining) {
+        super(in);
+        this.remaining = remaining;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            consumed(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+        if (read > 0) {
+            consumed(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        consumed(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void consumed(long bytes) {
+        if (remaining.addAndGet(-bytes) < 0) {
+            throw new CombatLogTooLargeException();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package gg.bayes.challenge.utils;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Scans a combat log file through memory mapped segments. Lines are never decoded into strings: they are handed out
+ * as a reused view over the bytes, so a line the consumer discards costs no allocation. Segments are at most {@link #SEGMENT_SIZE} bytes and end on a line
+ * boundary, which lets files larger than 2 GB be scanned.
+ */
+public final class MappedCombatLog {
+
+    static final long SEGMENT_SIZE = 1L << 30;
+    private static final int WINDOW_SIZE = 64 * 1024;
+
+    private MappedCombatLog() {
+    }
+
+    /**
+     * Calls the consumer with every line of the file, without its line terminator. Lines are decoded as ASCII, or as
+     * UTF-8 when they contain other bytes. The line passed to the consumer is only valid during the call; it is reused
+     * for the next line.
+     *
+     * @param path   the log file
+     * @param action the line consumer
+     */
+    public static void forEachLine(Path path, Consumer<CharSequence> action) throws IOException {
+        forEachLine(path, SEGMENT_SIZE, action);
+    }
+
+    static void forEachLine(Path path, long segmentSize, Consumer<CharSequence> action) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                int length = (int) Math.min(segmentSize, size - position);
+                boolean last = position + length == size;
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int consumed = scan(segment, length, last, action);
+                if (consumed == 0) {
+                    throw new IOException("Line longer than " + segmentSize + " bytes at offset " + position + " of "
+                            + path);
+                }
+                position += consumed;
+            }
+        }
+    }
+
+    /**
+     * Scans a segment through a window copied into a reused array: bulk copies from the mapping are cheaper than a
+     * bounds checked buffer read per character. A line longer than the window grows it.
+     *
+     * @return the number of bytes scanned; a trailing line without terminator is left for the next segment unless the
+     * segment is the last one
+     */
+    private static int scan(MappedByteBuffer segment, int length, boolean last, Consumer<CharSequence> action) {
+        ByteLine line = new ByteLine();
+        byte[] window = new byte[WINDOW_SIZE];
+        int base = 0;
+        int filled = 0;
+        int start = 0;
+        while (true) {
+            int end = indexOf(window, '\n', start, filled);
+            if (end >= 0) {
+                accept(line, window, start, end, action);
+                start = end + 1;
+                continue;
+            }
+            if (base + filled == length) {
+                break;
+            }
+            int kept = filled - start;
+            if (kept == window.length) {
+                window = Arrays.copyOf(window, window.length * 2);
+            }
+            System.arraycopy(window, start, window, 0, kept);
+            base += start;
+            start = 0;
+            int read = Math.min(window.length - kept, length - base - kept);
+            segment.position(base + kept);
+            segment.get(window, kept, read);
+            filled = kept + read;
+        }
+        if (last && start < filled) {
+            accept(line, window, start, filled, action);
+            return length;
+        }
+        return base + start;
+    }
+
+    private static int indexOf(byte[] bytes, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isAscii(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void accept(ByteLine line, byte[] bytes, int start, int end, Consumer<CharSequence> action) {
+        if (end > start && bytes[end - 1] == '\r') {
+            end--;
+        }
+        if (!isAscii(bytes, start, end)) {
+            action.accept(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+            return;
+        }
+        line.bytes = bytes;
+        line.offset = start;
+        line.length = end - start;
+        action.accept(line);
+    }
+
+    /**
+     * An ASCII line read in place from the scan window.
+     */
+    private static final class ByteLine implements CharSequence {
+        private byte[] bytes;
+        private int offset;
+        private int length;
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) bytes[offset + Objects.checkIndex(index, length)];
+        }
+
+        @Override
+        public String subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("[" + start + ", " + end + ")");
+            }
+            return new String(bytes, offset + start, end - start, StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, offset, length, StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -1,21 +1,90 @@
 package gg.bayes.challenge.utils;
 
-import gg.bayes.challenge.service.MatchService;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPInputStream;
 
 public class Utils {
-    private static final Logger LOGGER = LogManager.getLogger(MatchService.class.getName());
 
-    public static String readFile(String fullPath) {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Computes the SHA-256 of a file, read through a file channel.
+     *
+     * @param path the file
+     * @return the hex encoded digest
+     */
+    public static String sha256(Path path) throws IOException {
+        MessageDigest digest = newSha256();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * @return a new SHA-256 digest, for content hashes computed while the content is read
+     */
+    public static MessageDigest newSha256() {
         try {
-            return new String(Files.readAllBytes(Paths.get(fullPath)));
-        } catch (Exception ex) {
-            LOGGER.error(ex.getMessage(), ex);
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
         }
-        return "";
+    }
+
+    /**
+     * @param bytes a digest
+     * @return the bytes as lower case hex
+     */
+    public static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Decompresses a stream that starts with the gzip magic number, and returns any other stream as is.
+     *
+     * @param inputStream the possibly gzipped content
+     * @return a stream over the uncompressed content
+     */
+    public static InputStream gunzipIfCompressed(InputStream inputStream) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(inputStream, BUFFER_SIZE);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        if (first == (GZIPInputStream.GZIP_MAGIC & 0xFF) && second == (GZIPInputStream.GZIP_MAGIC >> 8)) {
+            return new GZIPInputStream(buffered, BUFFER_SIZE);
+        }
+        return buffered;
+    }
+
+    /**
+     * Wraps a combat log stream for line by line reading.
+     *
+     * @param inputStream the log content
+     * @return a reader over the stream content
+     */
+    public static BufferedReader newReader(InputStream inputStream) {
+        return new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
     }
 }
@@ -0,0 +1,109 @@
+CREATE SEQUENCE dota_match_sequence START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE dota_combat_log_sequence START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE dota_match (
+    id          BIGINT NOT NULL,
+    aggregated  BOOLEAN,
+    source_hash VARCHAR(64),
+    PRIMARY KEY (id)
+);
+CREATE INDEX dota_match_source_hash_idx ON dota_match (source_hash);
+
+CREATE TABLE dota_hero (
+    id   INTEGER      NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT dota_hero_name_uk UNIQUE (name)
+);
+
+CREATE TABLE dota_ability (
+    id   INTEGER      NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT dota_ability_name_uk UNIQUE (name)
+);
+
+CREATE TABLE dota_item (
+    id   INTEGER      NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT dota_item_name_uk UNIQUE (name)
+);
+
+CREATE TABLE dota_combat_log (
+    id              BIGINT       NOT NULL,
+    match_id        BIGINT       NOT NULL,
+    entry_type      VARCHAR(255) NOT NULL,
+    entry_timestamp BIGINT       NOT NULL,
+    actor_id        INTEGER,
+    target_id       INTEGER,
+    ability_id      INTEGER,
+    ability_level   INTEGER,
+    item_id         INTEGER,
+    damage          INTEGER,
+    PRIMARY KEY (id),
+    CONSTRAINT dota_combat_log_match_fk FOREIGN KEY (match_id) REFERENCES dota_match (id)
+);
+CREATE INDEX dota_combat_log_match_actor_time_idx ON dota_combat_log (match_id, actor_id, entry_timestamp);
+
+CREATE TABLE dota_hero_kills (
+    hero     VARCHAR(255) NOT NULL,
+    match_id BIGINT       NOT NULL,
+    kills    BIGINT,
+    PRIMARY KEY (hero, match_id)
+);
+CREATE INDEX dota_hero_kills_match_idx ON dota_hero_kills (match_id);
+
+CREATE TABLE dota_hero_items (
+    hero            VARCHAR(255) NOT NULL,
+    match_id        BIGINT       NOT NULL,
+    purchase_order  INTEGER      NOT NULL,
+    item            VARCHAR(255),
+    entry_timestamp BIGINT,
+    PRIMARY KEY (hero, match_id, purchase_order)
+);
+CREATE INDEX dota_hero_items_match_hero_idx ON dota_hero_items (match_id, hero, purchase_order);
+
+CREATE TABLE dota_hero_spells (
+    ability  VARCHAR(255) NOT NULL,
+    hero     VARCHAR(255) NOT NULL,
+    match_id BIGINT       NOT NULL,
+    casts    BIGINT,
+    PRIMARY KEY (ability, hero, match_id)
+);
+CREATE INDEX dota_hero_spells_match_hero_idx ON dota_hero_spells (match_id, hero);
+
+CREATE TABLE dota_hero_damage (
+    hero             VARCHAR(255) NOT NULL,
+    match_id         BIGINT       NOT NULL,
+    target           VARCHAR(255) NOT NULL,
+    damage_instances INTEGER,
+    total_damage     INTEGER,
+    PRIMARY KEY (hero, match_id, target)
+);
+CREATE INDEX dota_hero_damage_match_hero_idx ON dota_hero_damage (match_id, hero);
+
+CREATE TABLE dota_hero_stats (
+    hero             VARCHAR(255) NOT NULL,
+    matches          BIGINT,
+    kills            BIGINT,
+    damage_instances BIGINT,
+    total_damage     BIGINT,
+    PRIMARY KEY (hero)
+);
+
+CREATE TABLE dota_hero_item_stats (
+    hero      VARCHAR(255) NOT NULL,
+    item      VARCHAR(255) NOT NULL,
+    purchases BIGINT,
+    matches   BIGINT,
+    PRIMARY KEY (hero, item)
+);
+
+CREATE TABLE dota_hero_spell_stats (
+    ability VARCHAR(255) NOT NULL,
+    hero    VARCHAR(255) NOT NULL,
+    casts   BIGINT,
+    matches BIGINT,
+    PRIMARY KEY (ability, hero)
+);
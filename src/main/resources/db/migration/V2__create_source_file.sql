@@ -0,0 +1,7 @@
+CREATE TABLE dota_source_file (
+    path          VARCHAR(1024) NOT NULL,
+    size          BIGINT        NOT NULL,
+    last_modified BIGINT        NOT NULL,
+    source_hash   VARCHAR(64)   NOT NULL,
+    PRIMARY KEY (path)
+);
@@ -0,0 +1,19 @@
+CREATE TABLE dota_hero_victims (
+    hero     VARCHAR(255) NOT NULL,
+    match_id BIGINT       NOT NULL,
+    victim   VARCHAR(255) NOT NULL,
+    kills    BIGINT,
+    PRIMARY KEY (hero, match_id, victim)
+);
+CREATE INDEX dota_hero_victims_match_idx ON dota_hero_victims (match_id);
+
+-- Matches aggregated before this table existed get their victims from their entries.
+INSERT INTO dota_hero_victims (hero, match_id, victim, kills)
+SELECT actor.name, entry.match_id, target.name, COUNT(*)
+FROM dota_combat_log entry
+         JOIN dota_match ON dota_match.id = entry.match_id
+         JOIN dota_hero actor ON actor.id = entry.actor_id
+         JOIN dota_hero target ON target.id = entry.target_id
+WHERE entry.entry_type = 'HERO_KILLED'
+  AND dota_match.aggregated = TRUE
+GROUP BY actor.name, entry.match_id, target.name;
@@ -0,0 +1,21 @@
+ALTER TABLE dota_match ADD COLUMN fights_detected BOOLEAN DEFAULT FALSE NOT NULL;
+
+CREATE TABLE dota_fight (
+    match_id        BIGINT  NOT NULL,
+    fight_order     INTEGER NOT NULL,
+    start_timestamp BIGINT  NOT NULL,
+    end_timestamp   BIGINT  NOT NULL,
+    PRIMARY KEY (match_id, fight_order)
+);
+
+CREATE TABLE dota_fight_hero (
+    match_id     BIGINT       NOT NULL,
+    fight_order  INTEGER      NOT NULL,
+    hero         VARCHAR(255) NOT NULL,
+    kills        INTEGER      NOT NULL,
+    deaths       INTEGER      NOT NULL,
+    damage       BIGINT       NOT NULL,
+    streak       INTEGER      NOT NULL,
+    burst_damage BIGINT       NOT NULL,
+    PRIMARY KEY (match_id, fight_order, hero)
+);
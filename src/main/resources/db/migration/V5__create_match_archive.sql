@@ -0,0 +1,8 @@
+CREATE TABLE dota_match_archive (
+    match_id  BIGINT  NOT NULL,
+    content   BLOB    NOT NULL,
+    raw_size  BIGINT  NOT NULL,
+    resident  BOOLEAN NOT NULL,
+    PRIMARY KEY (match_id),
+    CONSTRAINT dota_match_archive_match_fk FOREIGN KEY (match_id) REFERENCES dota_match (id)
+);
@@ -0,0 +1,6 @@
+-- Unknown names are converted to -1, which must never be stored. Check constraints need no index, unlike the
+-- foreign keys they stand in for.
+ALTER TABLE dota_combat_log ADD CONSTRAINT dota_combat_log_actor_id_ck CHECK (actor_id >= 0);
+ALTER TABLE dota_combat_log ADD CONSTRAINT dota_combat_log_target_id_ck CHECK (target_id >= 0);
+ALTER TABLE dota_combat_log ADD CONSTRAINT dota_combat_log_ability_id_ck CHECK (ability_id >= 0);
+ALTER TABLE dota_combat_log ADD CONSTRAINT dota_combat_log_item_id_ck CHECK (item_id >= 0);
@@ -0,0 +1,26 @@
+package gg.bayes.challenge.config;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Test contexts share the in-memory database of the JVM, and several of them are cached at once. Each one drops the
+ * schema before migrating it, so it starts without the matches of the others; contexts with a durable store keep
+ * theirs. The application disables Flyway clean, so this is only found by the component scan of {@link AppConfig} on
+ * the test classpath, which the benchmarks share.
+ */
+@Configuration
+public class CleanSchemaConfig {
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(DotaProperties dotaProperties) {
+        return flyway -> {
+            if (!dotaProperties.getStorage().isDurable()) {
+                Flyway.configure().configuration(flyway.getConfiguration()).cleanDisabled(false).load().clean();
+            }
+            flyway.migrate();
+        };
+    }
+}
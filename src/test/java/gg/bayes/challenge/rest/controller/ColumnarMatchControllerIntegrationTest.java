@@ -0,0 +1,12 @@
+package gg.bayes.challenge.rest.controller;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Runs the endpoint tests against the in-memory columnar match store.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, properties = "dota.storage.engine=columnar")
+@AutoConfigureMockMvc
+class ColumnarMatchControllerIntegrationTest extends MatchControllerIntegrationTest {
+}
@@ -1,21 +1,53 @@
 package gg.bayes.challenge.rest.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import gg.bayes.challenge.config.DotaProperties;
+import gg.bayes.challenge.model.FightDetector;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.service.CombatLogParser;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.skyscreamer.jsonassert.JSONCompareMode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.unit.DataSize;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /*
  * Integration test template to get you started. Add tests and make modifications as you see fit.
@@ -24,6 +56,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
 @AutoConfigureMockMvc
+@AutoConfigureMetrics
 class MatchControllerIntegrationTest {
 
     private static final String COMBATLOG_FILE_1 = "/data/combatlog_1.log.txt";
@@ -32,6 +65,12 @@ class MatchControllerIntegrationTest {
     @Autowired
     private MockMvc mvc;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DotaProperties dotaProperties;
+
     private Map<String, Long> matchIds;
 
     @BeforeAll
@@ -50,6 +89,504 @@ class MatchControllerIntegrationTest {
         assertThat(mvc).isNotNull();
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {COMBATLOG_FILE_1, COMBATLOG_FILE_2})
+    void matchEndpointsReturnExpectedJson(String file) throws Exception {
+        assertMatchEndpoints(matchIds.get(file), expectedResults(file));
+    }
+
+    private void assertMatchEndpoints(Long matchId, JsonNode expected) throws Exception {
+        assertJson("/api/match/" + matchId, expected.get("kills"));
+        Iterator<Map.Entry<String, JsonNode>> heroes = expected.get("heroes").fields();
+        while (heroes.hasNext()) {
+            Map.Entry<String, JsonNode> hero = heroes.next();
+            for (String query : List.of("items", "spells", "damage")) {
+                String path = "/api/match/" + matchId + "/" + hero.getKey() + "/" + query;
+                if (hero.getValue().has(query)) {
+                    assertJson(path, hero.getValue().get(query));
+                } else {
+                    mvc.perform(get(path)).andExpect(status().isNotFound());
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {COMBATLOG_FILE_1, COMBATLOG_FILE_2})
+    void summaryAnswersEveryHeroQueryOfTheMatch(String file) throws Exception {
+        JsonNode expected = expectedResults(file);
+        Map<String, JsonNode> kills = new HashMap<>();
+        expected.get("kills").forEach(row -> kills.put(row.get("hero").asText(), row.get("kills")));
+        ArrayNode summary = objectMapper.createArrayNode();
+        expected.get("heroes").fields().forEachRemaining(hero -> {
+            ObjectNode row = summary.addObject();
+            row.put("hero", hero.getKey());
+            row.set("kills", kills.getOrDefault(hero.getKey(), objectMapper.getNodeFactory().numberNode(0)));
+            for (String query : List.of("items", "spells", "damage")) {
+                row.set(query, hero.getValue().has(query) ? hero.getValue().get(query) : objectMapper.createArrayNode());
+            }
+        });
+
+        assertJson("/api/match/" + matchIds.get(file) + "/summary", summary);
+        mvc.perform(get("/api/match/{matchId}/summary", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {COMBATLOG_FILE_1, COMBATLOG_FILE_2})
+    void matrixAgreesWithTheDamageAndKillsOfEveryHero(String file) throws Exception {
+        JsonNode expected = expectedResults(file);
+        JsonNode matrix = readJson("/api/match/" + matchIds.get(file) + "/matrix");
+        List<String> heroes = new ArrayList<>();
+        matrix.get("heroes").forEach(hero -> heroes.add(hero.asText()));
+        Map<String, Long> kills = new HashMap<>();
+        Map<String, ArrayNode> damage = new HashMap<>();
+        for (int row = 0; row < heroes.size(); row++) {
+            String hero = heroes.get(row);
+            for (int column = 0; column < heroes.size(); column++) {
+                kills.merge(hero, matrix.get("kills").get(row).get(column).asLong(), Long::sum);
+                int instances = matrix.get("damage_instances").get(row).get(column).asInt();
+                if (instances > 0) {
+                    ObjectNode target = damage.computeIfAbsent(hero, key -> objectMapper.createArrayNode()).addObject();
+                    target.put("target", heroes.get(column));
+                    target.put("damage_instances", instances);
+                    target.put("total_damage", matrix.get("total_damage").get(row).get(column).asLong());
+                }
+            }
+        }
+
+        assertThat(heroes).isSorted();
+        expected.get("kills").forEach(row ->
+                assertThat(kills.get(row.get("hero").asText())).isEqualTo(row.get("kills").asLong()));
+        for (Iterator<Map.Entry<String, JsonNode>> it = expected.get("heroes").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> hero = it.next();
+            if (hero.getValue().has("damage")) {
+                JSONAssert.assertEquals(hero.getKey(), hero.getValue().get("damage").toString(),
+                        damage.get(hero.getKey()).toString(), JSONCompareMode.NON_EXTENSIBLE);
+            }
+        }
+        mvc.perform(get("/api/match/{matchId}/matrix", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {COMBATLOG_FILE_1, COMBATLOG_FILE_2})
+    void fightsAreTheKillStreaksOfTheLog(String file) throws Exception {
+        List<CombatLogEntryEntity> entries = IOUtils.resourceToString(file, StandardCharsets.UTF_8).lines()
+                .map(CombatLogParser::parse)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        List<Integer> kills = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).getType() == CombatLogEntryEntity.Type.HERO_KILLED) {
+                kills.add(i);
+            }
+        }
+
+        // Recomputed from the whole log: runs of kills, each within the window of the previous one, that start with
+        // enough kills within one window. Damage counts from one window before the first kill, to the second, and
+        // bursts are the damage of 5 whole seconds within it. Streaks are kills in a row without dying in between.
+        ArrayNode fights = objectMapper.createArrayNode();
+        int first = 0;
+        while (first + FightDetector.MIN_KILLS <= kills.size()) {
+            if (timestamp(entries, kills.get(first + FightDetector.MIN_KILLS - 1))
+                    - timestamp(entries, kills.get(first)) > FightDetector.WINDOW) {
+                first++;
+                continue;
+            }
+            int last = first + FightDetector.MIN_KILLS - 1;
+            while (last + 1 < kills.size() && timestamp(entries, kills.get(last + 1))
+                    - timestamp(entries, kills.get(last)) <= FightDetector.WINDOW) {
+                last++;
+            }
+            long start = timestamp(entries, kills.get(first));
+            long fromSecond = Math.floorDiv(start - FightDetector.WINDOW, 1000);
+            // Per hero: kills, deaths, damage, longest streak, most damage within 5 seconds
+            Map<String, long[]> participants = new TreeMap<>();
+            Map<String, TreeMap<Long, Long>> damagePerSecond = new HashMap<>();
+            for (int i = 0; i < kills.get(last); i++) {
+                CombatLogEntryEntity entry = entries.get(i);
+                long second = Math.floorDiv(entry.getTimestamp(), 1000);
+                if (entry.getType() == CombatLogEntryEntity.Type.DAMAGE_DONE && second >= fromSecond) {
+                    participants.computeIfAbsent(entry.getActor(), key -> new long[5])[2] += entry.getDamage();
+                    damagePerSecond.computeIfAbsent(entry.getActor(), key -> new TreeMap<>())
+                            .merge(second, (long) entry.getDamage(), Long::sum);
+                }
+            }
+            damagePerSecond.forEach((hero, seconds) -> seconds.keySet().forEach(second -> {
+                long burst = seconds.subMap(Math.max(fromSecond, second - 4), true, second, true).values().stream()
+                        .mapToLong(Long::longValue).sum();
+                participants.get(hero)[4] = Math.max(participants.get(hero)[4], burst);
+            }));
+            Map<String, Long> running = new HashMap<>();
+            for (int kill = first; kill <= last; kill++) {
+                CombatLogEntryEntity entry = entries.get(kills.get(kill));
+                long[] killer = participants.computeIfAbsent(entry.getActor(), key -> new long[5]);
+                killer[0]++;
+                killer[3] = Math.max(killer[3], running.merge(entry.getActor(), 1L, Long::sum));
+                participants.computeIfAbsent(entry.getTarget(), key -> new long[5])[1]++;
+                running.put(entry.getTarget(), 0L);
+            }
+            ObjectNode fight = fights.addObject();
+            fight.put("from", start);
+            fight.put("to", timestamp(entries, kills.get(last)));
+            fight.put("kills", last - first + 1);
+            fight.put("total_damage", participants.values().stream().mapToLong(totals -> totals[2]).sum());
+            ArrayNode heroes = fight.putArray("heroes");
+            participants.forEach((hero, totals) -> heroes.addObject()
+                    .put("hero", hero).put("kills", totals[0]).put("deaths", totals[1]).put("damage", totals[2])
+                    .put("streak", totals[3]).put("burst_damage", totals[4]));
+            first = last + 1;
+        }
+
+        assertThat(fights).isNotEmpty();
+        assertJson("/api/match/" + matchIds.get(file) + "/fights", fights);
+        mvc.perform(get("/api/match/{matchId}/fights", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void unknownMatchIsNotFound() throws Exception {
+        mvc.perform(get("/api/match/{matchId}", Long.MAX_VALUE)).andExpect(status().isNotFound());
+        mvc.perform(get("/api/match/{matchId}/rubick/items", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void unparsableCombatLogIsRejected() throws Exception {
+        mvc.perform(post("/api/match")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content("[00:00:04.999] game state is now 2"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void combatLogLargerThanTheLimitIsRejected() throws Exception {
+        DataSize maxLogSize = dotaProperties.getIngest().getMaxLogSize();
+        dotaProperties.getIngest().setMaxLogSize(DataSize.ofKilobytes(64));
+        try {
+            mvc.perform(post("/api/match")
+                            .contentType(MediaType.TEXT_PLAIN)
+                            .content(IOUtils.resourceToString(COMBATLOG_FILE_1, StandardCharsets.UTF_8)))
+                    .andExpect(status().isPayloadTooLarge());
+        } finally {
+            dotaProperties.getIngest().setMaxLogSize(maxLogSize);
+        }
+    }
+
+    @Test
+    void ingestAndEndpointMetricsAreScraped() throws Exception {
+        String metrics = mvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertThat(metrics)
+                .contains("dota_ingest_lines_total")
+                .contains("dota_ingest_lines_matched_total{type=\"DAMAGE_DONE\",}")
+                .contains("dota_ingest_match_entries_bucket")
+                .contains("http_server_requests_seconds_bucket");
+    }
+
+    @Test
+    void asyncIngestReportsTheMatchId() throws Exception {
+        String fileContent = IOUtils.resourceToString(COMBATLOG_FILE_1, StandardCharsets.UTF_8);
+        String location = mvc.perform(post("/api/jobs")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content(fileContent))
+                .andExpect(status().isAccepted())
+                .andReturn()
+                .getResponse()
+                .getHeader("Location");
+
+        JsonNode job = objectMapper.createObjectNode();
+        for (int attempt = 0; attempt < 500 && !job.path("state").asText().equals("DONE"); attempt++) {
+            Thread.sleep(20);
+            job = objectMapper.readTree(mvc.perform(get(location))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString());
+        }
+        assertThat(job.path("state").asText()).isEqualTo("DONE");
+        assertJson("/api/match/" + job.path("matchId").asLong(), expectedResults(COMBATLOG_FILE_1).get("kills"));
+
+        mvc.perform(get("/api/jobs/{jobId}", "unknown")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void liveMatchIsQueryableWhileLinesAreAppended() throws Exception {
+        String fileContent = IOUtils.resourceToString(COMBATLOG_FILE_2, StandardCharsets.UTF_8);
+        Long matchId = Long.parseLong(mvc.perform(post("/api/live"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString());
+
+        // Cut in the middle of a line: the partial line must wait for the rest of it.
+        int half = fileContent.indexOf('\n', fileContent.length() / 2) + 10;
+        append(matchId, fileContent.substring(0, half));
+        String firstHalf = fileContent.substring(0, fileContent.lastIndexOf('\n', half) + 1);
+        Long firstHalfId = ingest(firstHalf);
+        JsonNode kills = objectMapper.readTree(mvc.perform(get("/api/match/" + firstHalfId))
+                .andReturn()
+                .getResponse()
+                .getContentAsString());
+        assertJson("/api/match/" + matchId, kills);
+        assertJson("/api/match/" + matchId + "/summary", readJson("/api/match/" + firstHalfId + "/summary"));
+        assertThat(readJson("/api/match/" + matchId + "/matrix"))
+                .isEqualTo(readJson("/api/match/" + firstHalfId + "/matrix"));
+        assertThat(readJson("/api/match/" + matchId + "/fights"))
+                .isEqualTo(readJson("/api/match/" + firstHalfId + "/fights"));
+        String hero = "ember_spirit";
+        long cut = 25 * 60 * 1000;
+        for (String query : List.of("/items?to=" + cut, "/spells?from=" + cut, "/damage?to=" + cut,
+                "/timeline?bucket=60000")) {
+            assertThat(readJson("/api/match/" + matchId + "/" + hero + query))
+                    .as(query)
+                    .isEqualTo(readJson("/api/match/" + firstHalfId + "/" + hero + query));
+        }
+
+        append(matchId, fileContent.substring(half));
+        mvc.perform(post("/api/live/{matchId}/close", matchId)).andExpect(status().isOk());
+        assertMatchEndpoints(matchId, expectedResults(COMBATLOG_FILE_2));
+
+        mvc.perform(post("/api/live/{matchId}", matchId)
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content("[00:00:04.999] game state is now 2\n"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void heroRollupsAddUpTheIngestedMatches() throws Exception {
+        JsonNode expected = expectedResults(COMBATLOG_FILE_1);
+        Map<String, Long> kills = new HashMap<>();
+        expected.get("kills").forEach(row -> kills.put(row.get("hero").asText(), row.get("kills").asLong()));
+        List<String> heroes = new ArrayList<>();
+        expected.get("heroes").fieldNames().forEachRemaining(heroes::add);
+        Map<String, JsonNode> before = new HashMap<>();
+        for (String hero : heroes) {
+            before.put(hero, heroRollup(hero));
+        }
+
+        ingestMatch(COMBATLOG_FILE_1);
+
+        for (String hero : heroes) {
+            JsonNode queries = expected.get("heroes").get(hero);
+            JsonNode previous = before.get(hero);
+            JsonNode after = heroRollup(hero);
+            boolean played = queries.size() > 0 || kills.containsKey(hero);
+            long damage = 0;
+            for (JsonNode row : queries.path("damage")) {
+                damage += row.get("total_damage").asLong();
+            }
+            Map<String, Long> purchases = new HashMap<>();
+            queries.path("items").forEach(row -> purchases.merge(row.get("item").asText(), 1L, Long::sum));
+
+            assertThat(delta(previous, after, "matches")).as(hero).isEqualTo(played ? 1 : 0);
+            assertThat(delta(previous, after, "kills")).as(hero).isEqualTo(kills.getOrDefault(hero, 0L));
+            assertThat(delta(previous, after, "total_damage")).as(hero).isEqualTo(damage);
+            purchases.forEach((item, count) -> assertThat(purchases(after, item) - purchases(previous, item))
+                    .as(hero + " " + item)
+                    .isEqualTo(count));
+        }
+
+        mvc.perform(get("/api/heroes/{heroName}", "unknown_hero")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void timeWindowedQueriesOnlyCountEntriesWithinTheWindow() throws Exception {
+        String hero = "abyssal_underlord";
+        long cut = 20 * 60 * 1000;
+        Long matchId = matchIds.get(COMBATLOG_FILE_1);
+        JsonNode expected = expectedResults(COMBATLOG_FILE_1).get("heroes").get(hero);
+        String path = "/api/match/" + matchId + "/" + hero;
+
+        ArrayNode itemsBefore = objectMapper.createArrayNode();
+        expected.get("items").forEach(row -> {
+            if (row.get("timestamp").asLong() < cut) {
+                itemsBefore.add(row);
+            }
+        });
+        assertJson(path + "/items?to=" + cut, itemsBefore);
+        assertJson(path + "/spells?from=0&to=" + Long.MAX_VALUE, expected.get("spells"));
+
+        Map<String, Long> damage = new HashMap<>();
+        for (String window : List.of("?to=" + cut, "?from=" + cut)) {
+            readJson(path + "/damage" + window).forEach(row ->
+                    damage.merge(row.get("target").asText(), row.get("total_damage").asLong(), Long::sum));
+        }
+        expected.get("damage").forEach(row ->
+                assertThat(damage.get(row.get("target").asText())).isEqualTo(row.get("total_damage").asLong()));
+
+        long bucket = 5 * 60 * 1000;
+        Map<String, Long> totals = new HashMap<>();
+        for (JsonNode row : readJson(path + "/timeline?bucket=" + bucket)) {
+            assertThat(row.get("from").asLong() % bucket).isZero();
+            assertThat(row.get("to").asLong() - row.get("from").asLong()).isEqualTo(bucket);
+            row.fields().forEachRemaining(field -> totals.merge(field.getKey(), field.getValue().asLong(), Long::sum));
+        }
+        long casts = 0;
+        for (JsonNode row : expected.get("spells")) {
+            casts += row.get("casts").asLong();
+        }
+        assertThat(totals.get("kills")).isEqualTo(6);
+        assertThat(totals.get("items_bought")).isEqualTo(expected.get("items").size());
+        assertThat(totals.get("spells_cast")).isEqualTo(casts);
+        assertThat(totals.get("total_damage")).isEqualTo(damage.values().stream().mapToLong(Long::longValue).sum());
+
+        mvc.perform(get(path + "/items?from=" + cut + "&to=" + cut)).andExpect(status().isBadRequest());
+        mvc.perform(get(path + "/timeline?bucket=0")).andExpect(status().isBadRequest());
+        mvc.perform(get(path + "/items?from=" + Long.MAX_VALUE / 2)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void bulkIngestReportsEveryFile() throws Exception {
+        // A unique unparsable first line keeps the content hashes apart from earlier runs on the same context.
+        String header = "[00:00:00.000] bulk " + UUID.randomUUID() + "\n";
+        byte[] log1 = (header + IOUtils.resourceToString(COMBATLOG_FILE_1, StandardCharsets.UTF_8))
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] log2 = (header + IOUtils.resourceToString(COMBATLOG_FILE_2, StandardCharsets.UTF_8))
+                .getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(log2);
+        }
+
+        JsonNode results = objectMapper.readTree(mvc.perform(multipart("/api/match/bulk")
+                        .file(new MockMultipartFile("files", "first.log", MediaType.TEXT_PLAIN_VALUE, log1))
+                        .file(new MockMultipartFile("files", "second.log.gz", "application/gzip", gzipped.toByteArray()))
+                        .file(new MockMultipartFile("files", "garbage.log", MediaType.TEXT_PLAIN_VALUE,
+                                "[00:00:04.999] game state is now 2".getBytes(StandardCharsets.UTF_8)))
+                        .file(new MockMultipartFile("files", "first-again.log", MediaType.TEXT_PLAIN_VALUE, log1)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString());
+
+        assertThat(results).hasSize(4);
+        assertThat(results.get(0).get("file").asText()).isEqualTo("first.log");
+        assertThat(results.get(0).get("status").asText()).isEqualTo("INGESTED");
+        assertThat(results.get(1).get("status").asText()).isEqualTo("INGESTED");
+        assertThat(results.get(2).get("status").asText()).isEqualTo("FAILED");
+        assertThat(results.get(2).get("match_id").isNull()).isTrue();
+        assertThat(results.get(3).get("status").asText()).isEqualTo("SKIPPED");
+        assertMatchEndpoints(results.get(0).get("match_id").asLong(), expectedResults(COMBATLOG_FILE_1));
+        assertMatchEndpoints(results.get(1).get("match_id").asLong(), expectedResults(COMBATLOG_FILE_2));
+
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            zip.putNextEntry(new ZipEntry("logs/"));
+            // The same bytes as an uploaded file; hashes cover files as sent, so the plain log2 would not match.
+            zip.putNextEntry(new ZipEntry("logs/second.log.gz"));
+            zip.write(gzipped.toByteArray());
+            zip.putNextEntry(new ZipEntry("logs/third.log"));
+            zip.write(("[00:00:01.000] bulk " + UUID.randomUUID() + "\n").getBytes(StandardCharsets.UTF_8));
+            zip.write(log1);
+        }
+        JsonNode archiveResults = objectMapper.readTree(mvc.perform(post("/api/match/bulk")
+                        .contentType("application/zip")
+                        .content(archive.toByteArray()))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString());
+
+        assertThat(archiveResults).hasSize(2);
+        assertThat(archiveResults.get(0).get("file").asText()).isEqualTo("logs/second.log.gz");
+        assertThat(archiveResults.get(0).get("status").asText()).isEqualTo("SKIPPED");
+        assertThat(archiveResults.get(1).get("status").asText()).isEqualTo("INGESTED");
+        assertJson("/api/match/" + archiveResults.get(1).get("match_id").asLong(),
+                expectedResults(COMBATLOG_FILE_1).get("kills"));
+    }
+
+    @Test
+    void exportedMatchImportsWithTheSameAnswers() throws Exception {
+        byte[] exported = mvc.perform(get("/api/match/{matchId}/export", matchIds.get(COMBATLOG_FILE_2)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+        Long matchId = Long.parseLong(mvc.perform(post("/api/match/import")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(exported))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString());
+
+        assertMatchEndpoints(matchId, expectedResults(COMBATLOG_FILE_2));
+        mvc.perform(get("/api/match/{matchId}/export", Long.MAX_VALUE)).andExpect(status().isNotFound());
+        mvc.perform(post("/api/match/import")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content("[00:00:04.999] game state is now 2"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode readJson(String path) throws Exception {
+        return objectMapper.readTree(mvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString());
+    }
+
+    /**
+     * @return the summary of the hero with its items under {@code items}, or an empty node if no match has the hero
+     */
+    private JsonNode heroRollup(String hero) throws Exception {
+        MockHttpServletResponse summary = mvc.perform(get("/api/heroes/{heroName}", hero)).andReturn().getResponse();
+        if (summary.getStatus() == HttpStatus.NOT_FOUND.value()) {
+            return objectMapper.createObjectNode();
+        }
+        ObjectNode rollup = (ObjectNode) objectMapper.readTree(summary.getContentAsString());
+        rollup.set("items", objectMapper.readTree(mvc.perform(get("/api/heroes/{heroName}/items", hero))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString()));
+        return rollup;
+    }
+
+    private static long delta(JsonNode before, JsonNode after, String field) {
+        return after.path(field).asLong() - before.path(field).asLong();
+    }
+
+    private static long purchases(JsonNode rollup, String item) {
+        for (JsonNode row : rollup.path("items")) {
+            if (row.get("item").asText().equals(item)) {
+                return row.get("purchases").asLong();
+            }
+        }
+        return 0;
+    }
+
+    private static long timestamp(List<CombatLogEntryEntity> entries, int index) {
+        return entries.get(index).getTimestamp();
+    }
+
+    private void append(Long matchId, String lines) throws Exception {
+        mvc.perform(post("/api/live/{matchId}", matchId)
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content(lines))
+                .andExpect(status().isOk());
+    }
+
+    private void assertJson(String path, JsonNode expected) throws Exception {
+        String actual = mvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        JSONAssert.assertEquals(path, expected.toString(), actual, JSONCompareMode.NON_EXTENSIBLE);
+    }
+
+    /**
+     * Loads the responses the endpoints returned for a sample log before any optimization of the ingest and query
+     * paths. Arrays are compared regardless of element order.
+     */
+    private JsonNode expectedResults(String file) throws Exception {
+        String name = file.substring(file.lastIndexOf('/') + 1).replace(".log.txt", ".json");
+        return objectMapper.readTree(IOUtils.resourceToString("/expected/" + name, StandardCharsets.UTF_8));
+    }
+
     /**
      * Helper method that ingests a combat log file and returns the match id associated with all parsed events.
      *
@@ -58,8 +595,10 @@ class MatchControllerIntegrationTest {
      * @throws Exception if an error happens when reading or ingesting the file
      */
     private Long ingestMatch(String file) throws Exception {
-        String fileContent = IOUtils.resourceToString(file, StandardCharsets.UTF_8);
+        return ingest(IOUtils.resourceToString(file, StandardCharsets.UTF_8));
+    }
 
+    private Long ingest(String fileContent) throws Exception {
         return Long.parseLong(mvc.perform(post("/api/match")
                                          .contentType(MediaType.TEXT_PLAIN)
                                          .content(fileContent))
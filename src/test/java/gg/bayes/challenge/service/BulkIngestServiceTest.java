@@ -0,0 +1,105 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.config.DotaProperties;
+import gg.bayes.challenge.model.exception.CombatLogTooLargeException;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.rest.model.BulkIngestResult;
+import gg.bayes.challenge.utils.Utils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkIngestServiceTest {
+
+    private static final DataSize MAX_LOG_SIZE = DataSize.ofMegabytes(1);
+
+    private final MatchService matchService = mock(MatchService.class);
+    private byte[] log;
+    private BulkIngestService bulkIngestService;
+
+    @BeforeEach
+    void setup() throws IOException {
+        log = IOUtils.resourceToByteArray("/data/combatlog_1.log.txt");
+        bulkIngestService = service(DataSize.ofMegabytes(16));
+    }
+
+    @AfterEach
+    void shutdown() {
+        bulkIngestService.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void logsAreHashedAsSentAndDecompressedWithinTheLimit() throws Exception {
+        byte[] gzipped = gzip(log);
+        byte[] bomb = gzip(new byte[(int) MAX_LOG_SIZE.toBytes() + 1]);
+        when(matchService.ingestEntries(anyList())).thenReturn(List.of(42L));
+
+        List<BulkIngestResult> results = bulkIngestService.ingestZip(
+                new ByteArrayInputStream(zip(gzipped, bomb)));
+
+        assertThat(results).extracting(BulkIngestResult::getStatus).containsExactly("INGESTED", "FAILED");
+        ArgumentCaptor<List<Pair<Iterator<CombatLogEntryEntity>, String>>> logs = ArgumentCaptor.forClass(List.class);
+        verify(matchService).ingestEntries(logs.capture());
+        // The hash the bootstrap computes for the same file in its directory
+        assertThat(logs.getValue().get(0).getRight())
+                .isEqualTo(Utils.toHex(Utils.newSha256().digest(gzipped)));
+    }
+
+    @Test
+    void archiveLargerThanTheLimitIsRejected() throws Exception {
+        bulkIngestService.shutdown();
+        bulkIngestService = service(DataSize.ofBytes(log.length * 2L));
+
+        assertThatThrownBy(() -> bulkIngestService.ingestZip(new ByteArrayInputStream(zip(log, log, log))))
+                .isInstanceOf(CombatLogTooLargeException.class);
+    }
+
+    private BulkIngestService service(DataSize maxBulkSize) {
+        DotaProperties properties = new DotaProperties();
+        properties.getIngest().setMaxLogSize(MAX_LOG_SIZE);
+        properties.getIngest().setMaxBulkSize(maxBulkSize);
+        return new BulkIngestService(matchService, new IngestMetrics(new SimpleMeterRegistry()), properties);
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(content);
+        }
+        return gzipped.toByteArray();
+    }
+
+    private static byte[] zip(byte[]... files) throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            for (int i = 0; i < files.length; i++) {
+                zip.putNextEntry(new ZipEntry("log-" + i));
+                zip.write(files[i]);
+            }
+        }
+        return archive.toByteArray();
+    }
+}
@@ -0,0 +1,10 @@
+package gg.bayes.challenge.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Runs the lazy ingest tests against the in-memory columnar match store.
+ */
+@SpringBootTest(properties = {"dota.storage.engine=columnar", "spring.datasource.url=jdbc:h2:mem:columnar-lazy"})
+class ColumnarLazyMatchServiceTest extends LazyMatchServiceTest {
+}
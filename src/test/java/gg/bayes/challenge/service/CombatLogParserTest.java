@@ -0,0 +1,93 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CombatLogParserTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/data/combatlog_1.log.txt", "/data/combatlog_2.log.txt"})
+    void singlePassParserMatchesRegexParser(String file) throws Exception {
+        List<String> lines = IOUtils.resourceToString(file, StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+
+        long parsed = 0;
+        for (String line : lines) {
+            CombatLogEntryEntity expected = parseWithRegex(line);
+            CombatLogEntryEntity actual = CombatLogParser.parse(line);
+            if (expected == null) {
+                assertThat(actual).as(line).isNull();
+            } else {
+                assertThat(actual).as(line).usingRecursiveComparison().isEqualTo(expected);
+                parsed++;
+            }
+        }
+        assertThat(parsed).isPositive();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "[00:00:04.999] game state is now 2",
+            "[00:12:21.207] npc_dota_neutral_harpy_storm is killed by npc_dota_creep_goodguys_ranged",
+            "[00:12:15.108] npc_dota_neutral_harpy_scout is killed by npc_dota_hero_pangolier",
+            "[00:13:10.018] npc_dota_hero_snapfire is killed by npc_dota_badguys_tower1_mid",
+            "[00:11:16.255] npc_dota_hero_puck uses item_tpscroll",
+            "[00:11:15.993] npc_dota_hero_mars's item_vladmir heals npc_dota_hero_mars for 3 health (1002->1005)",
+            "[00:11:17.489] npc_dota_hero_mars hits npc_dota_hero_snapfire with mars_spear for 74 damage",
+            "[00:10:42.031] npc_dota_hero_bane hits npc_dota_hero_abyssal_underlord with dota_unknown for 51 damage (740->689)",
+            "[00:10:42.031] npc_dota_hero_bane hits npc_dota_creep_badguys_melee with dota_unknown for 51 damage (740->689)",
+            "[00:08:43.460] npc_dota_hero_pangolier casts ability pangolier_swashbuckle (lvl 1) on dota_unknown",
+            "[00:21:36.962] npc_dota_hero_rubick casts ability rubick_fade_bolt (lvl 3) on npc_dota_hero_death_prophet",
+            "[00:21:36.962] npc_dota_hero_rubick casts ability rubick_fade_bolt (lvl 3) on npc_dota_creep_goodguys_melee",
+            "[00:21:36.962] npc_dota_hero_rubick casts ability rubick_fade_bolt (lvl x) on dota_unknown",
+            "[00:08:46.693] npc_dota_hero_snapfire buys item item_clarity",
+            "[00:08:46.693] npc_dota_hero_snapfire buys item clarity",
+            "[9:08:46.693] npc_dota_hero_snapfire buys item item_clarity",
+            "[00:08:46.6] npc_dota_hero_snapfire buys item item_clarity",
+    })
+    void singlePassParserMatchesRegexParserOnEdgeCases(String line) {
+        CombatLogEntryEntity expected;
+        try {
+            expected = parseWithRegex(line);
+        } catch (DateTimeParseException ex) {
+            assertThatThrownBy(() -> CombatLogParser.parse(line)).isInstanceOf(DateTimeParseException.class);
+            return;
+        }
+        assertThat(CombatLogParser.parse(line)).usingRecursiveComparison().isEqualTo(expected);
+    }
+
+    @Test
+    void namesAreSharedAcrossLines() {
+        CombatLogEntryEntity first = CombatLogParser.parse(
+                "[00:08:46.693] npc_dota_hero_snapfire buys item item_clarity");
+        CombatLogEntryEntity second = CombatLogParser.parse(
+                "[00:21:36.962] npc_dota_hero_rubick casts ability rubick_fade_bolt (lvl 3) on npc_dota_hero_snapfire");
+        CombatLogEntryEntity third = CombatLogParser.parse(
+                "[00:09:02.100] npc_dota_hero_snapfire buys item item_clarity");
+
+        assertThat(second.getTarget()).isSameAs(first.getActor());
+        assertThat(third.getActor()).isSameAs(first.getActor());
+        assertThat(third.getItem()).isSameAs(first.getItem());
+    }
+
+    private static CombatLogEntryEntity parseWithRegex(String line) {
+        return Arrays.stream(CombatLogParser.values())
+                .map(parser -> parser.parseCombatLog(line))
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+    }
+}
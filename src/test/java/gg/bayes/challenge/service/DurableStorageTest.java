@@ -0,0 +1,79 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.DotaChallengeApplication;
+import gg.bayes.challenge.rest.model.BootstrapProgress;
+import gg.bayes.challenge.rest.model.HeroKills;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Restarts the application on the same file backed database, as with the {@code durable} profile, and checks that
+ * stored matches survive and that the bootstrap only ingests the logs it has not read yet.
+ */
+class DurableStorageTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restartKeepsMatchesAndOnlyIngestsNewLogs() throws Exception {
+        Path logs = Files.createDirectory(directory.resolve("data"));
+        Path firstLog = copySampleLog("/data/combatlog_1.log.txt", logs);
+
+        List<HeroKills> kills;
+        try (ConfigurableApplicationContext context = start(logs)) {
+            assertThat(progress(context).getIngested()).isEqualTo(1);
+            kills = context.getBean(MatchService.class).getMatch(1L);
+            assertThat(kills).isNotEmpty();
+        }
+
+        copySampleLog("/data/combatlog_2.log.txt", logs);
+        try (ConfigurableApplicationContext context = start(logs)) {
+            BootstrapProgress progress = progress(context);
+            assertThat(progress.getIngested()).isEqualTo(1);
+            assertThat(progress.getSkipped()).isEqualTo(1);
+            assertThat(context.getBean(MatchService.class).getMatch(1L)).containsExactlyInAnyOrderElementsOf(kills);
+            assertThat(context.getBean(MatchService.class).getMatch(2L)).isNotEmpty();
+        }
+
+        // A touched file is read again, and skipped because its content is already stored.
+        Files.setLastModifiedTime(firstLog, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        try (ConfigurableApplicationContext context = start(logs)) {
+            BootstrapProgress progress = progress(context);
+            assertThat(progress.getIngested()).isZero();
+            assertThat(progress.getSkipped()).isEqualTo(2);
+            assertThat(progress.getFailed()).isZero();
+        }
+    }
+
+    private ConfigurableApplicationContext start(Path logs) {
+        return SpringApplication.run(DotaChallengeApplication.class,
+                "--spring.profiles.active=durable",
+                "--spring.main.web-application-type=none",
+                "--DOTA_STORE=" + directory.resolve("store"),
+                "--dota.bootstrap.directory=" + logs);
+    }
+
+    private static BootstrapProgress progress(ConfigurableApplicationContext context) {
+        return context.getBean(BootstrapService.class).getProgress();
+    }
+
+    private static Path copySampleLog(String resource, Path directory) throws Exception {
+        Path file = directory.resolve(resource.substring(resource.lastIndexOf('/') + 1));
+        try (InputStream in = IOUtils.resourceToURL(resource).openStream()) {
+            Files.copy(in, file);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,80 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.utils.MappedCombatLog;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EntryChunkQueueTest {
+
+    private static final int CHUNK_SIZE = 100;
+    private static final int CAPACITY = 2;
+    // The chunks waiting, the one being filled and the one being read
+    private static final long MAX_HELD = (CAPACITY + 2L) * CHUNK_SIZE;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void mappedLinesAreHeldInBoundedChunks() throws Exception {
+        String sample = IOUtils.resourceToString("/data/combatlog_1.log.txt", StandardCharsets.UTF_8);
+        Path file = Files.writeString(directory.resolve("combatlog.txt"), sample.repeat(10));
+        long expected = sample.repeat(10).lines().map(CombatLogParser::parse).filter(e -> e != null).count();
+
+        EntryChunkQueue queue = new EntryChunkQueue(CHUNK_SIZE, CAPACITY);
+        AtomicLong produced = new AtomicLong();
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            try {
+                MappedCombatLog.forEachLine(file, line -> {
+                    CombatLogEntryEntity entry = CombatLogParser.parse(line);
+                    if (entry != null) {
+                        queue.add(entry);
+                        produced.incrementAndGet();
+                    }
+                });
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+            queue.finish();
+        });
+
+        long consumed = 0;
+        long maxHeld = 0;
+        while (queue.hasNext()) {
+            queue.next();
+            consumed++;
+            if (consumed == 1) {
+                // Give the producer time to run as far ahead as it can
+                TimeUnit.MILLISECONDS.sleep(200);
+            }
+            maxHeld = Math.max(maxHeld, produced.get() - consumed);
+        }
+        producer.get(10, TimeUnit.SECONDS);
+
+        assertThat(consumed).isEqualTo(expected).isGreaterThan(10 * MAX_HELD);
+        assertThat(maxHeld).isLessThanOrEqualTo(MAX_HELD);
+    }
+
+    @Test
+    void failureIsThrownAfterTheEntriesAddedBefore() {
+        EntryChunkQueue queue = new EntryChunkQueue(CHUNK_SIZE, CAPACITY);
+        queue.add(CombatLogEntryEntity.builder().type(CombatLogEntryEntity.Type.HERO_KILLED).build());
+        queue.fail(new IOException("truncated"));
+
+        assertThat(queue.hasNext()).isTrue();
+        queue.next();
+        assertThatThrownBy(queue::hasNext).isInstanceOf(IllegalStateException.class).hasMessage("truncated");
+    }
+}
@@ -0,0 +1,113 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.config.DotaProperties;
+import gg.bayes.challenge.model.IngestJob;
+import gg.bayes.challenge.model.exception.CombatLogTooLargeException;
+import gg.bayes.challenge.model.exception.IngestQueueFullException;
+import gg.bayes.challenge.model.exception.InputIsNotParsableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IngestJobServiceTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final MatchService matchService = mock(MatchService.class);
+    private IngestJobService ingestJobService;
+
+    @BeforeEach
+    void setup() {
+        DotaProperties properties = new DotaProperties();
+        properties.getJobs().setWorkers(1);
+        properties.getJobs().setQueueCapacity(1);
+        ingestJobService = new IngestJobService(matchService, properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        ingestJobService.shutdown();
+    }
+
+    @Test
+    void submissionsBeyondTheQueueAreRejected() throws Exception {
+        when(matchService.ingestCombatLog(any(Reader.class))).thenAnswer(invocation -> {
+            release.await();
+            return 42L;
+        });
+
+        IngestJob running = ingestJobService.submit(log());
+        IngestJob queued = ingestJobService.submit(log());
+        awaitState(running, IngestJob.State.PARSING);
+        assertThat(queued.getState()).isEqualTo(IngestJob.State.QUEUED);
+        // Rejected before the upload is read
+        assertThatThrownBy(() -> ingestJobService.submit(unreadable())).isInstanceOf(IngestQueueFullException.class);
+
+        release.countDown();
+        awaitState(running, IngestJob.State.DONE);
+        awaitState(queued, IngestJob.State.DONE);
+        assertThat(ingestJobService.getJob(running.getId()).getMatchId()).isEqualTo(42L);
+    }
+
+    @Test
+    void unparsableLogFailsTheJob() throws Exception {
+        when(matchService.ingestCombatLog(any(Reader.class))).thenThrow(new InputIsNotParsableException());
+
+        IngestJob job = ingestJobService.submit(log());
+
+        awaitState(job, IngestJob.State.FAILED);
+        assertThat(job.getError()).isEqualTo("Could not parse any entry.");
+    }
+
+    @Test
+    void uploadsLargerThanTheLimitAreRejectedAndFreeTheirSlot() throws Exception {
+        when(matchService.ingestCombatLog(any(Reader.class))).thenReturn(42L);
+        DotaProperties properties = new DotaProperties();
+        properties.getJobs().setWorkers(1);
+        properties.getJobs().setQueueCapacity(0);
+        properties.getJobs().setMaxLogSize(DataSize.ofBytes(16));
+        ingestJobService.shutdown();
+        ingestJobService = new IngestJobService(matchService, properties, new SimpleMeterRegistry());
+
+        assertThatThrownBy(() -> ingestJobService.submit(log())).isInstanceOf(CombatLogTooLargeException.class);
+
+        properties.getJobs().setMaxLogSize(DataSize.ofKilobytes(1));
+        awaitState(ingestJobService.submit(log()), IngestJob.State.DONE);
+    }
+
+    private static InputStream unreadable() {
+        return new InputStream() {
+            @Override
+            public int read() {
+                throw new AssertionError("The upload must not be read");
+            }
+        };
+    }
+
+    private static ByteArrayInputStream log() {
+        return new ByteArrayInputStream("[00:00:04.999] game state is now 2".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void awaitState(IngestJob job, IngestJob.State state) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (job.getState() != state && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(job.getState()).isEqualTo(state);
+    }
+}
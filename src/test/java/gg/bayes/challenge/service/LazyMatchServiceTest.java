@@ -0,0 +1,163 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.config.DotaProperties;
+import gg.bayes.challenge.model.HeroRollup;
+import gg.bayes.challenge.model.exception.CombatLogTooLargeException;
+import gg.bayes.challenge.model.exception.InputIsNotParsableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Ingests the sample logs lazily, with room for a single parsed match, and checks that they answer like eagerly
+ * ingested ones through loads and evictions. Runs on its own database, as another context migrating the shared one
+ * would drop the archives this context still knows of.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:lazy")
+class LazyMatchServiceTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private MatchService matchService;
+
+    @Autowired
+    private LazyMatchService lazyMatchService;
+
+    @Autowired
+    private HeroService heroService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DotaProperties dotaProperties;
+
+    private String firstLog;
+    private String secondLog;
+
+    @BeforeEach
+    void readLogs() throws Exception {
+        firstLog = IOUtils.resourceToString("/data/combatlog_1.log.txt", StandardCharsets.UTF_8);
+        secondLog = IOUtils.resourceToString("/data/combatlog_2.log.txt", StandardCharsets.UTF_8);
+    }
+
+    @AfterEach
+    void restoreDefaults() {
+        dotaProperties.getLazy().setEnabled(false);
+        dotaProperties.getLazy().setMaxResident(64);
+    }
+
+    @Test
+    void lazyMatchesAnswerLikeEagerOnesAcrossEvictions() {
+        Long eagerMatchId = matchService.ingestCombatLog(firstLog);
+        byte[] eagerExport = export(eagerMatchId);
+        String hero = matchService.getSummary(eagerMatchId).heroes().iterator().next();
+        HeroRollup rollup = heroService.getHero(hero);
+
+        enableLazy();
+        Long firstMatchId = matchService.ingestCombatLog(firstLog);
+        Long secondMatchId = matchService.ingestCombatLog(secondLog);
+        assertThat(lazyMatchService.isResident(firstMatchId)).isFalse();
+        assertThat(lazyMatchService.isResident(secondMatchId)).isFalse();
+
+        assertThat(matchService.getMatch(firstMatchId))
+                .containsExactlyInAnyOrderElementsOf(matchService.getMatch(eagerMatchId));
+        assertThat(matchService.getMatrix(firstMatchId)).usingRecursiveComparison()
+                .isEqualTo(matchService.getMatrix(eagerMatchId));
+        assertThat(matchService.getFights(firstMatchId)).usingRecursiveComparison()
+                .isEqualTo(matchService.getFights(eagerMatchId));
+        assertThat(lazyMatchService.isResident(firstMatchId)).isTrue();
+
+        // Loading the second match evicts the first, which an uncached query loads again.
+        assertThat(export(secondMatchId)).isNotEmpty();
+        assertThat(lazyMatchService.isResident(firstMatchId)).isFalse();
+        assertThat(lazyMatchService.isResident(secondMatchId)).isTrue();
+        assertThat(export(firstMatchId)).isEqualTo(eagerExport);
+        assertThat(matchService.getHeroTimeline(firstMatchId, hero, 0L, null, 60_000)).usingRecursiveComparison()
+                .isEqualTo(matchService.getHeroTimeline(eagerMatchId, hero, 0L, null, 60_000));
+        assertThat(lazyMatchService.isResident(firstMatchId)).isTrue();
+        assertThat(lazyMatchService.isResident(secondMatchId)).isFalse();
+        // Lazily ingested matches stay out of the rollups, however often they are loaded.
+        assertThat(heroService.getHero(hero)).usingRecursiveComparison().isEqualTo(rollup);
+    }
+
+    @Test
+    void concurrentFirstQueriesShareOneLoad() throws Exception {
+        enableLazy();
+        Long matchId = matchService.ingestCombatLog(firstLog);
+        long loads = meterRegistry.get("dota.lazy.load").timer().count();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<byte[]>> exports = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                exports.add(executor.submit(() -> {
+                    start.await();
+                    return export(matchId);
+                }));
+            }
+            start.countDown();
+            byte[] export = exports.get(0).get();
+            for (Future<byte[]> other : exports) {
+                assertThat(other.get()).isEqualTo(export);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(meterRegistry.get("dota.lazy.load").timer().count()).isEqualTo(loads + 1);
+    }
+
+    @Test
+    void logWithoutEntriesIsRejectedAtIngestWhateverItsLines() {
+        enableLazy();
+        assertThatThrownBy(() -> matchService.ingestCombatLog("not a combat log\n"))
+                .isInstanceOf(InputIsNotParsableException.class);
+        assertThatThrownBy(() -> matchService.ingestCombatLog("x".repeat(1 << 20)))
+                .isInstanceOf(InputIsNotParsableException.class);
+        assertThat(matchService.ingestCombatLog("x".repeat(1 << 20) + "\n" + firstLog)).isNotNull();
+    }
+
+    @Test
+    void logLargerThanTheLimitIsRejectedAtIngest() {
+        enableLazy();
+        DataSize maxLogSize = dotaProperties.getIngest().getMaxLogSize();
+        dotaProperties.getIngest().setMaxLogSize(DataSize.ofKilobytes(64));
+        try {
+            assertThatThrownBy(() -> lazyMatchService.archive(new StringReader(firstLog)))
+                    .isInstanceOf(CombatLogTooLargeException.class);
+        } finally {
+            dotaProperties.getIngest().setMaxLogSize(maxLogSize);
+        }
+    }
+
+    private void enableLazy() {
+        dotaProperties.getLazy().setEnabled(true);
+        dotaProperties.getLazy().setMaxResident(1);
+    }
+
+    private byte[] export(Long matchId) {
+        ByteArrayOutputStream encodedMatch = new ByteArrayOutputStream();
+        matchService.exportMatch(matchId, encodedMatch);
+        return encodedMatch.toByteArray();
+    }
+}
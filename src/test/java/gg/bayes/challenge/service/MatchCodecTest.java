@@ -0,0 +1,130 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.model.exception.InputIsNotParsableException;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MatchCodecTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/data/combatlog_1.log.txt", "/data/combatlog_2.log.txt"})
+    void decodesTheParsedEntriesOfTheSampleLogs(String file) throws Exception {
+        String content = IOUtils.resourceToString(file, StandardCharsets.UTF_8);
+        List<CombatLogEntryEntity> entries = content.lines()
+                .map(CombatLogParser::parse)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        byte[] encoded = encode(entries);
+
+        assertThat(decode(encoded)).usingRecursiveFieldByFieldElementComparator().isEqualTo(entries);
+        assertThat(encoded.length).isLessThan(content.length() / 10);
+    }
+
+    @Test
+    void keepsNullsNegativeDeltasAndNonAsciiNames() throws Exception {
+        List<CombatLogEntryEntity> entries = List.of(
+                CombatLogEntryEntity.builder().type(CombatLogEntryEntity.Type.SPELL_CAST).timestamp(5000L)
+                        .actor("rubick").ability("rubick_fade_bolt").abilityLevel(3).build(),
+                CombatLogEntryEntity.builder().type(CombatLogEntryEntity.Type.ITEM_PURCHASED).timestamp(1000L)
+                        .actor("rubick").item("héros_blade").build(),
+                CombatLogEntryEntity.builder().type(CombatLogEntryEntity.Type.DAMAGE_DONE).timestamp(1000L)
+                        .actor("héros_blade").target("rubick").damage(0).build());
+
+        assertThat(decode(encode(entries))).usingRecursiveFieldByFieldElementComparator().isEqualTo(entries);
+    }
+
+    @Test
+    void rejectsForeignAndTruncatedInput() throws Exception {
+        assertThatThrownBy(() -> decode("[00:00:04.999] game state is now 2".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(InputIsNotParsableException.class);
+
+        byte[] encoded = encode(List.of(CombatLogEntryEntity.builder().type(CombatLogEntryEntity.Type.HERO_KILLED)
+                .timestamp(1000L).actor("mars").target("rubick").build()));
+        assertThatThrownBy(() -> decode(Arrays.copyOf(encoded, encoded.length - 3)))
+                .isInstanceOf(InputIsNotParsableException.class);
+    }
+
+    @Test
+    void rejectsMatchesWithoutTheirTrailer() throws Exception {
+        CombatLogEntryEntity kill = CombatLogEntryEntity.builder().type(CombatLogEntryEntity.Type.HERO_KILLED)
+                .timestamp(1000L).actor("mars").target("rubick").build();
+        byte[] encoded = encode(List.of(kill, kill));
+        assertThat(decode(encoded)).hasSize(2);
+
+        // Cut after the last record, before the end tag and the entry count
+        assertThatThrownBy(() -> decode(Arrays.copyOf(encoded, encoded.length - 2)))
+                .isInstanceOf(InputIsNotParsableException.class);
+        // Another entry count
+        byte[] recounted = encoded.clone();
+        recounted[recounted.length - 1] = 1;
+        assertThatThrownBy(() -> decode(recounted)).isInstanceOf(InputIsNotParsableException.class);
+        // Bytes after the trailer
+        assertThatThrownBy(() -> decode(Arrays.copyOf(encoded, encoded.length + 1)))
+                .isInstanceOf(InputIsNotParsableException.class);
+    }
+
+    @Test
+    void rejectsLengthsAndValuesOutOfRange() {
+        // A kill whose actor is a new name of 2^40 bytes
+        assertThatThrownBy(() -> decode(record(CombatLogEntryEntity.Type.HERO_KILLED, 0, 1, 1L << 40)))
+                .isInstanceOf(InputIsNotParsableException.class);
+        // Damage by a new one byte name to itself, of more than an int
+        assertThatThrownBy(() -> decode(record(CombatLogEntryEntity.Type.DAMAGE_DONE, 0, 1, 1, 'a', 1, 1L << 40)))
+                .isInstanceOf(InputIsNotParsableException.class);
+    }
+
+    /**
+     * Writes a header, then a record of the given type made of the given varints and the trailer of one entry.
+     */
+    private static byte[] record(CombatLogEntryEntity.Type type, long... varints) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write("DOTAM".getBytes(StandardCharsets.US_ASCII));
+        out.write(2);
+        out.write(type.ordinal());
+        for (long value : varints) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+        out.write(0xFF);
+        out.write(1);
+        return out.toByteArray();
+    }
+
+    private static byte[] encode(List<CombatLogEntryEntity> entries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatchCodec.Encoder encoder = new MatchCodec.Encoder(out);
+        for (CombatLogEntryEntity entry : entries) {
+            encoder.write(entry);
+        }
+        encoder.finish();
+        return out.toByteArray();
+    }
+
+    private static List<CombatLogEntryEntity> decode(byte[] encoded) throws IOException {
+        List<CombatLogEntryEntity> entries = new ArrayList<>();
+        Iterator<CombatLogEntryEntity> decoder = MatchCodec.decode(new ByteArrayInputStream(encoded));
+        decoder.forEachRemaining(entries::add);
+        return entries;
+    }
+}
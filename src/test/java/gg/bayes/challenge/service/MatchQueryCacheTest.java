@@ -0,0 +1,78 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.config.DotaProperties;
+import gg.bayes.challenge.model.exception.MatchNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MatchQueryCacheTest {
+
+    @Test
+    void resultsAreLoadedOnce() {
+        MatchQueryCache cache = new MatchQueryCache(new DotaProperties());
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            Map<String, Long> kills = cache.get(1L, null, MatchQueryCache.Query.KILLS, () -> {
+                loads.incrementAndGet();
+                return Map.of("mars", 2L);
+            });
+            assertThat(kills).containsEntry("mars", 2L);
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats().hitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void notFoundIsCachedBrieflyAndDroppedOnInvalidate() throws Exception {
+        DotaProperties properties = new DotaProperties();
+        properties.getCache().setNegativeTtl(Duration.ofMillis(200));
+        MatchQueryCache cache = new MatchQueryCache(properties);
+        AtomicInteger loads = new AtomicInteger();
+
+        Set<Throwable> thrown = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> cache.get(2L, "mars", MatchQueryCache.Query.ITEMS, () -> {
+                loads.incrementAndGet();
+                throw new MatchNotFoundException();
+            })).isInstanceOf(MatchNotFoundException.class)
+                    .satisfies(ex -> assertThat(ex.getStackTrace()).isEmpty())
+                    .satisfies(thrown::add);
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(thrown).hasSize(2);
+
+        Thread.sleep(300);
+        assertThat(cache.<String>get(2L, "mars", MatchQueryCache.Query.ITEMS, () -> "late")).isEqualTo("late");
+
+        cache.invalidate(2L);
+        assertThat(cache.<String>get(2L, "mars", MatchQueryCache.Query.ITEMS, () -> "reloaded")).isEqualTo("reloaded");
+    }
+
+    @Test
+    void resultsLoadedBeforeAnInvalidateStayUnreachableOnceItsGenerationIsEvicted() {
+        DotaProperties properties = new DotaProperties();
+        properties.getCache().setMaximumSize(10);
+        MatchQueryCache cache = new MatchQueryCache(properties);
+
+        // The match changes while its result is being loaded, as with a live match.
+        assertThat(cache.<String>get(1L, null, MatchQueryCache.Query.KILLS, () -> {
+            cache.invalidate(1L);
+            return "stale";
+        })).isEqualTo("stale");
+        for (long matchId = 2; matchId < 10_000; matchId++) {
+            cache.invalidate(matchId);
+        }
+
+        assertThat(cache.<String>get(1L, null, MatchQueryCache.Query.KILLS, () -> "fresh")).isEqualTo("fresh");
+    }
+}
@@ -0,0 +1,158 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.config.DotaProperties;
+import gg.bayes.challenge.model.MatchAggregates;
+import gg.bayes.challenge.model.exception.NoResultException;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import org.apache.commons.io.IOUtils;
+import gg.bayes.challenge.persistence.repository.NameDictionaryRepository;
+import gg.bayes.challenge.rest.model.HeroDamage;
+import gg.bayes.challenge.rest.model.HeroItem;
+import gg.bayes.challenge.rest.model.HeroKills;
+import gg.bayes.challenge.rest.model.HeroSpells;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Ingests the sample logs with every writer and with or without aggregates, and checks that all of them answer the
+ * queries the same way, per hero or in the match summary.
+ */
+@SpringBootTest
+class MatchServiceIngestModesTest {
+
+    @Autowired
+    private MatchService matchService;
+
+    @Autowired
+    private DotaProperties dotaProperties;
+
+    @Autowired
+    private NameDictionaryRepository nameDictionaryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void restoreDefaults() {
+        dotaProperties.getIngest().setWriter(DotaProperties.Writer.JDBC);
+        dotaProperties.getIngest().setAggregates(true);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/data/combatlog_1.log.txt", "/data/combatlog_2.log.txt"})
+    void allIngestModesProduceSameQueryResults(String file) throws Exception {
+        String combatLog = IOUtils.resourceToString(file, StandardCharsets.UTF_8);
+
+        Long jdbcMatchId = ingest(combatLog, DotaProperties.Writer.JDBC, true);
+        Long jpaMatchId = ingest(combatLog, DotaProperties.Writer.JPA, true);
+        Long projectionMatchId = ingest(combatLog, DotaProperties.Writer.JDBC, false);
+
+        List<HeroKills> kills = matchService.getMatch(jdbcMatchId);
+        assertThat(kills).isNotEmpty();
+        assertThat(matchService.getMatch(jpaMatchId)).containsExactlyInAnyOrderElementsOf(kills);
+        assertThat(matchService.getMatch(projectionMatchId)).containsExactlyInAnyOrderElementsOf(kills);
+
+        Set<String> heroes = combatLog.lines()
+                .map(CombatLogParser::parse)
+                .filter(Objects::nonNull)
+                .map(CombatLogEntryEntity::getActor)
+                .collect(Collectors.toSet());
+        for (String hero : heroes) {
+            for (Long matchId : new Long[]{jpaMatchId, projectionMatchId}) {
+                assertThat(outcome(() -> matchService.getHeroItems(matchId, hero)))
+                        .isEqualTo(outcome(() -> matchService.getHeroItems(jdbcMatchId, hero)));
+                assertThat(unordered(() -> matchService.getHeroSpells(matchId, hero)))
+                        .isEqualTo(unordered(() -> matchService.getHeroSpells(jdbcMatchId, hero)));
+                assertThat(unordered(() -> matchService.getHeroDamages(matchId, hero)))
+                        .isEqualTo(unordered(() -> matchService.getHeroDamages(jdbcMatchId, hero)));
+            }
+        }
+
+        for (Long matchId : new Long[]{jdbcMatchId, jpaMatchId, projectionMatchId}) {
+            MatchAggregates summary = matchService.getSummary(matchId);
+            assertThat(summary.getKills().entrySet().stream()
+                    .map(entry -> new HeroKills(entry.getKey(), entry.getValue().intValue())))
+                    .containsExactlyInAnyOrderElementsOf(kills);
+            assertThat(summary.heroes()).isEqualTo(heroes);
+            for (String hero : heroes) {
+                assertThat(summaryOutcome(summary.itemsOf(hero).stream()
+                        .map(entry -> new HeroItem(entry.getKey(), entry.getValue()))
+                        .collect(Collectors.toList())))
+                        .isEqualTo(outcome(() -> matchService.getHeroItems(jdbcMatchId, hero)));
+                assertThat(summaryOutcome(summary.spellsOf(hero).entrySet().stream()
+                        .map(entry -> new HeroSpells(entry.getKey(), entry.getValue().intValue()))
+                        .collect(Collectors.toSet())))
+                        .isEqualTo(unordered(() -> matchService.getHeroSpells(jdbcMatchId, hero)));
+                assertThat(summaryOutcome(summary.damagesOf(hero).entrySet().stream()
+                        .map(entry -> new HeroDamage(entry.getKey(), entry.getValue().getKey(),
+                                entry.getValue().getValue()))
+                        .collect(Collectors.toSet())))
+                        .isEqualTo(unordered(() -> matchService.getHeroDamages(jdbcMatchId, hero)));
+            }
+            assertThat(matchService.getMatrix(matchId)).usingRecursiveComparison()
+                    .isEqualTo(matchService.getMatrix(jdbcMatchId));
+            assertThat(matchService.getFights(matchId)).usingRecursiveComparison()
+                    .isEqualTo(matchService.getFights(jdbcMatchId));
+        }
+    }
+
+    @Test
+    void unknownNamesAreNeverStored() throws Exception {
+        Long matchId = matchService.ingestCombatLog(
+                IOUtils.resourceToString("/data/combatlog_1.log.txt", StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> nameDictionaryRepository.requireHeroId("npc_dota_hero_unknown"))
+                .hasMessageContaining("Name not registered");
+        assertThat(nameDictionaryRepository.heroId("npc_dota_hero_unknown")).isEqualTo(-1);
+        assertThatThrownBy(() -> jdbcTemplate.update("INSERT INTO dota_combat_log "
+                + "(id, match_id, entry_type, entry_timestamp, actor_id) VALUES (-1, ?, 'HERO_KILLED', 0, -1)", matchId))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private Long ingest(String combatLog, DotaProperties.Writer writer, boolean aggregates) {
+        dotaProperties.getIngest().setWriter(writer);
+        dotaProperties.getIngest().setAggregates(aggregates);
+        return matchService.ingestCombatLog(combatLog);
+    }
+
+    /**
+     * The summary answers with an empty collection where the per hero query has no result.
+     */
+    private static Object summaryOutcome(Collection<?> answer) {
+        return answer.isEmpty() ? NoResultException.class : answer;
+    }
+
+    /**
+     * Only items come in a defined order, so the other answers are compared as sets.
+     */
+    private static Object unordered(Supplier<? extends Collection<?>> query) {
+        Object outcome = outcome(query);
+        return outcome instanceof Collection ? new HashSet<>((Collection<?>) outcome) : outcome;
+    }
+
+    private static Object outcome(Supplier<?> query) {
+        try {
+            return query.get();
+        } catch (NoResultException ex) {
+            return NoResultException.class;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package gg.bayes.challenge.service;
+
+import gg.bayes.challenge.config.DotaProperties;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParallelLogParserTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/data/combatlog_1.log.txt", "/data/combatlog_2.log.txt"})
+    void parallelParseMatchesSequentialParse(String file) throws Exception {
+        String combatLog = IOUtils.resourceToString(file, StandardCharsets.UTF_8);
+        // Mixed line terminators, so that some chunks are cut between a '\r' and its '\n'.
+        String mixed = combatLog.lines().collect(Collectors.joining("\r\n")) + "\n" + combatLog;
+        List<CombatLogEntryEntity> expected = mixed.lines()
+                .map(CombatLogParser::parse)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        ParallelLogParser parser = parser(4, DataSize.ofBytes(0), DataSize.ofBytes(1000));
+        try {
+            assertThat(parse(parser, mixed)).usingRecursiveFieldByFieldElementComparator().isEqualTo(expected);
+        } finally {
+            parser.shutdown();
+        }
+    }
+
+    @Test
+    void parseErrorsReachTheCaller() {
+        ParallelLogParser parser = parser(2, DataSize.ofBytes(0), DataSize.ofBytes(100));
+        String combatLog = "[00:08:46.693] npc_dota_hero_snapfire buys item item_clarity\n".repeat(10)
+                + "[9:08:46.693] npc_dota_hero_snapfire buys item item_clarity\n";
+        try {
+            assertThatThrownBy(() -> parse(parser, combatLog)).isInstanceOf(RuntimeException.class);
+        } finally {
+            parser.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    void linesLongerThanTheLimitAreSkipped(int threads) {
+        ParallelLogParser parser = parser(threads, DataSize.ofBytes(0), DataSize.ofBytes(100));
+        String entry = "[00:08:46.693] npc_dota_hero_snapfire buys item item_clarity\n";
+        String tooLong = "x".repeat(100 * ParallelLogParser.MAX_LINE_CHUNKS + 1);
+        try {
+            // Without any newline, the log is dropped whole rather than read into one line.
+            assertThat(parse(parser, "x".repeat(100_000))).isEmpty();
+            assertThat(parse(parser, entry + tooLong + "\r\n" + entry + tooLong)).hasSize(2);
+        } finally {
+            parser.shutdown();
+        }
+    }
+
+    private static ParallelLogParser parser(int threads, DataSize threshold, DataSize chunkSize) {
+        DotaProperties properties = new DotaProperties();
+        properties.getIngest().setParseThreads(threads);
+        properties.getIngest().setParallelThreshold(threshold);
+        properties.getIngest().setParseChunkSize(chunkSize);
+        return new ParallelLogParser(new IngestMetrics(new SimpleMeterRegistry()), properties);
+    }
+
+    private static List<CombatLogEntryEntity> parse(ParallelLogParser parser, String combatLog) {
+        return parser.parse(new StringReader(combatLog), entries -> {
+            List<CombatLogEntryEntity> result = new ArrayList<>();
+            entries.forEachRemaining(result::add);
+            return result;
+        });
+    }
+}
@@ -0,0 +1,55 @@
+package gg.bayes.challenge.utils;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedCombatLogTest {
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @ValueSource(longs = {256, 1000, MappedCombatLog.SEGMENT_SIZE})
+    void linesMatchReaderAcrossSegments(long segmentSize) throws Exception {
+        String content = IOUtils.resourceToString("/data/combatlog_1.log.txt", StandardCharsets.UTF_8);
+        Path file = Files.writeString(directory.resolve("combatlog.txt"), content);
+
+        assertThat(lines(file, segmentSize)).isEqualTo(content.lines().collect(Collectors.toList()));
+    }
+
+    @Test
+    void handlesCarriageReturnsMissingTerminatorAndNonAsciiLines() throws Exception {
+        Path file = Files.writeString(directory.resolve("combatlog.txt"),
+                "[00:00:01.000] first\r\n\n[00:00:02.000] héros\n[00:00:03.000] last", StandardCharsets.UTF_8);
+
+        assertThat(lines(file, 24)).containsExactly(
+                "[00:00:01.000] first", "", "[00:00:02.000] héros", "[00:00:03.000] last");
+    }
+
+    @Test
+    void rejectsLinesLongerThanASegment() throws Exception {
+        Path file = Files.writeString(directory.resolve("combatlog.txt"), "x".repeat(100) + "\n");
+
+        assertThatThrownBy(() -> lines(file, 64)).isInstanceOf(IOException.class);
+    }
+
+    private static List<String> lines(Path file, long segmentSize) throws IOException {
+        List<String> lines = new ArrayList<>();
+        MappedCombatLog.forEachLine(file, segmentSize, line -> lines.add(line.toString()));
+        return lines;
+    }
+}